@@ -0,0 +1,59 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.dataAnalytics.SalesAnalytics;
+import my.edu.wix1002.goldenhour.dataAnalytics.SalesSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AnalyticsBenchmark - a full-year SalesAnalytics summary from each of its three sources:
+ * - fromRows    : every sales row through DataLoader (edits applied)
+ * - fromRollup  : the outlet x model x day cells of SalesRollup
+ * - fromColumns : the mapped column files of SalesColumns
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AnalyticsBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int salesRows;
+
+    @Param({"10", "1000", "10000"})
+    public int models;
+
+    @Param({"10"})
+    public int outlets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Dataset.prepare(salesRows, models, outlets);
+        // partitions, rollup and column files are built by the first call of each
+        fromRows();
+        fromRollup();
+        fromColumns();
+    }
+
+    @Benchmark
+    public SalesSummary fromRows() {
+        return SalesAnalytics.summarize(SalesAnalytics.loadSalesRecords(Dataset.YEAR_START, Dataset.YEAR_END),
+                Dataset.YEAR_START, Dataset.YEAR_END);
+    }
+
+    @Benchmark
+    public SalesSummary fromRollup() {
+        return SalesAnalytics.summarize(SalesAnalytics.loadRollupRecords(Dataset.YEAR_START, Dataset.YEAR_END),
+                Dataset.YEAR_START, Dataset.YEAR_END);
+    }
+
+    @Benchmark
+    public SalesSummary fromColumns() {
+        return SalesAnalytics.summarize(SalesAnalytics.loadColumnRecords(Dataset.YEAR_START, Dataset.YEAR_END),
+                Dataset.YEAR_START, Dataset.YEAR_END);
+    }
+}
@@ -0,0 +1,75 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.StorageSystem.AttendanceLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AttendanceBenchmark - clock-in/out through AttendanceLog.
+ *
+ * clockInOut punches a fresh employee/day pair after the generated year in and out (the
+ * attendance file keeps growing over the run, as it does in a shop); find looks up random
+ * employee/day pairs of the generated year.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AttendanceBenchmark {
+
+    @Param({"1000"})
+    public int salesRows;
+
+    @Param({"10"})
+    public int models;
+
+    @Param({"10", "100", "1000"})
+    public int outlets;
+
+    private Dataset dataset;
+    private long n;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataset = Dataset.prepare(salesRows, models, outlets);
+        // skip the pairs punched by earlier runs in this folder
+        n = 0;
+        while (AttendanceLog.find(employee(n), day(n)) != null) {
+            n += dataset.employees();
+        }
+    }
+
+    @Benchmark
+    public void clockInOut() throws IOException {
+        long i = n++;
+        String outlet = Dataset.outletCode(outletOf(i));
+        AttendanceLog.clockIn(employee(i), day(i), "09:00:00", outlet);
+        AttendanceLog.clockOut(employee(i), day(i), "18:00:00", outlet);
+    }
+
+    @Benchmark
+    public AttendanceLog.Entry find() {
+        int outlet = random.nextInt(outlets);
+        LocalDate date = Dataset.YEAR_START.plusDays(random.nextInt(365));
+        return AttendanceLog.find(Dataset.employeeId(outlet, 1 + random.nextInt(Dataset.EMPLOYEES_PER_OUTLET)), date);
+    }
+
+    private int outletOf(long i) {
+        return (int) (i % dataset.employees()) / Dataset.EMPLOYEES_PER_OUTLET;
+    }
+
+    private String employee(long i) {
+        return Dataset.employeeId(outletOf(i), 1 + (int) (i % dataset.employees()) % Dataset.EMPLOYEES_PER_OUTLET);
+    }
+
+    private LocalDate day(long i) {
+        return Dataset.YEAR_END.plusDays(1 + i / dataset.employees());
+    }
+}
@@ -0,0 +1,104 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import my.edu.wix1002.goldenhour.util.CsvParser;
+import my.edu.wix1002.goldenhour.util.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvParserBenchmark - CsvParser against OpenCSV on a sales.csv-shaped file.
+ *
+ * The file is generated in the temp directory, mixing quoted (CSVWriter) and unquoted
+ * (hand-edited) rows and the time formats we have. Both readers do the same work per row:
+ * sum Quantity and Subtotal (in cents).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvParserBenchmark {
+
+    @Param({"100000", "3000000"})
+    public int salesRows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("sales-bench-", ".csv");
+        generate(file, salesRows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long csvParser() throws IOException {
+        long[] sum = {0};
+        CsvParser.parseFile(file, new CsvParser.RowHandler() {
+            public void field(CsvParser.Field f) {
+                if (f.row() == 0) return;
+                if (f.column() == 5) sum[0] += f.asInt();
+                else if (f.column() == 7) sum[0] += f.asCents();
+            }
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long openCsv() throws IOException, CsvValidationException {
+        long sum = 0;
+        try (CSVReader reader = new CSVReader(new FileReader(file.toFile(), StandardCharsets.UTF_8))) {
+            reader.readNext();
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (row.length < 11) continue;
+                sum += Integer.parseInt(row[5].trim());
+                sum += Money.parse(row[7]);
+            }
+        }
+        return sum;
+    }
+
+    // rows shaped like data/sales.csv: some written by CSVWriter (all quoted), some by hand (unquoted)
+    private static void generate(Path file, int rows) throws IOException {
+        String[] models = {"DW2300-1", "DW2300-2", "DW2300-3", "SW2500-1", "SW2500-2", "DW2400-4"};
+        String[] methods = {"Cash", "Debit Card", "Credit Card", "E-wallet"};
+        String[] times = {"09:03 PM", "02:13:12.478931500", "14:48:37", "12:49 p.m."};
+        Random rnd = new Random(42);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("SaleID,EmployeeID,OutletCode,CustomerName,Model,Quantity,UnitPrice,Subtotal,PaymentMethod,Date,Time\n");
+            for (int i = 0; i < rows; i++) {
+                int qty = 1 + rnd.nextInt(3);
+                int price = 300 + rnd.nextInt(600);
+                String date = String.format("2025-%02d-%02d", 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+                String model = models[rnd.nextInt(models.length)];
+                String method = methods[rnd.nextInt(methods.length)];
+                String time = times[rnd.nextInt(times.length)];
+                if ((i & 1) == 0) {
+                    out.write("\"TX" + i + "\",\"C6005\",\"C60\",\"Customer, " + i + "\",\"" + model + "\",\""
+                            + qty + "\",\"" + price + ".0\",\"" + (qty * price) + ".0\",\"" + method + "\",\""
+                            + date + "\",\"" + time + "\"\n");
+                } else {
+                    out.write("S" + i + ",C6108,C61,Customer " + i + "," + model + "," + qty + "," + price + ","
+                            + (qty * price) + "," + method + "," + date + "," + time + "\n");
+                }
+            }
+        }
+    }
+}
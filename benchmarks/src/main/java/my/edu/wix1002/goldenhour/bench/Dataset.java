@@ -0,0 +1,109 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.util.SyntheticDataGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Dataset - writes the data/ folder the benchmarks run against.
+ *
+ * Every path in the application is relative to the working directory ("data/model.csv", ...),
+ * so the benchmarks generate their data into ./data of the directory they are started from.
+ * A marker file records the sizes it was made for: a later fork with the same sizes reuses the
+ * folder (with the partitions, indexes and rollup built by earlier runs), other sizes replace it.
+ * A data/ folder without the marker is never touched, so running from the project folder fails
+ * instead of overwriting the real store.
+ *
+ * The data comes from SyntheticDataGenerator with a fixed seed: one year of sales from
+ * YEAR_START, receipts for the last RECEIPT_DAYS days only (all of them would be several GB
+ * at 10M rows).
+ */
+public final class Dataset {
+
+    public static final LocalDate YEAR_START = LocalDate.of(2025, 1, 1);
+    public static final LocalDate YEAR_END = LocalDate.of(2025, 12, 31);
+    public static final int RECEIPT_DAYS = 31;
+    public static final int EMPLOYEES_PER_OUTLET = 6;
+
+    private static final Path DATA_DIR = Paths.get("data");
+    private static final Path MARKER = DATA_DIR.resolve(".benchmark-dataset");
+    private static final long SEED = 20250101L;
+
+    private final int salesRows;
+    private final int models;
+    private final int outlets;
+
+    private Dataset(int salesRows, int models, int outlets) {
+        this.salesRows = salesRows;
+        this.models = models;
+        this.outlets = outlets;
+    }
+
+    /** Make sure ./data holds the dataset of these sizes, generating it if needed. */
+    public static Dataset prepare(int salesRows, int models, int outlets) throws IOException {
+        Dataset set = new Dataset(salesRows, models, outlets);
+        String key = set.key();
+        if (Files.exists(MARKER) && key.equals(Files.readString(MARKER).trim())) {
+            return set;
+        }
+        if (Files.exists(DATA_DIR)) {
+            if (!Files.exists(MARKER)) {
+                throw new IllegalStateException("Refusing to replace " + DATA_DIR.toAbsolutePath()
+                        + ": it was not made by the benchmarks. Start them from an empty directory.");
+            }
+            deleteTree(DATA_DIR);
+        }
+        System.out.println("Generating benchmark data: " + key);
+        SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options();
+        options.out = DATA_DIR;
+        options.seed = SEED;
+        options.sales = salesRows;
+        options.models = models;
+        options.outlets = outlets;
+        options.employeesPerOutlet = EMPLOYEES_PER_OUTLET;
+        options.start = YEAR_START;
+        options.days = (int) (YEAR_END.toEpochDay() - YEAR_START.toEpochDay() + 1);
+        options.receiptDays = RECEIPT_DAYS;
+        SyntheticDataGenerator.generate(options);
+        Files.writeString(MARKER, key);
+        return set;
+    }
+
+    private String key() {
+        return "sales=" + salesRows + " models=" + models + " outlets=" + outlets + " seed=" + SEED;
+    }
+
+    //NAMES
+
+    public static String outletCode(int outlet) {
+        return SyntheticDataGenerator.outletCode(outlet);
+    }
+
+    public static String modelId(int model) {
+        return SyntheticDataGenerator.modelId(model);
+    }
+
+    /** Employee n (1-based) of an outlet. */
+    public static String employeeId(int outlet, int n) {
+        return SyntheticDataGenerator.employeeId(outlet, n);
+    }
+
+    public int salesRows() { return salesRows; }
+    public int models() { return models; }
+    public int outlets() { return outlets; }
+    public int employees() { return outlets * EMPLOYEES_PER_OUTLET; }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
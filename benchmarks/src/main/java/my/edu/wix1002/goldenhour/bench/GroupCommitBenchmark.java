@@ -0,0 +1,100 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import com.opencsv.CSVWriter;
+import my.edu.wix1002.goldenhour.StorageSystem.GroupCommitWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroupCommitBenchmark - appends per second with 1, 8 and 64 concurrent writers.
+ *
+ * Every writer thread appends stock-in shaped rows and waits for each one, like StoreManager
+ * callers do. Compared: the old way (new FileWriter + CSVWriter + Files.size per row, "per-call")
+ * and GroupCommitWriter with each durability. The file goes to the temp directory and is
+ * deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+    private static final int ROWS = 1024;
+    private static final String[] HEADER = {"EmployeeID", "OutletCode", "Date", "ModelID", "QuantityIn"};
+
+    @Param({"1", "8", "64"})
+    public int writers;
+
+    @Param({"per-call", "none", "batched", "every"})
+    public String mode;
+
+    private Path file;
+    private GroupCommitWriter writer;
+    private ExecutorService threads;
+
+    private interface Appender {
+        void append(String[] row) throws IOException;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("group-commit-bench-", ".csv");
+        Files.delete(file);
+        if (!mode.equals("per-call")) {
+            writer = GroupCommitWriter.open(file, HEADER, GroupCommitWriter.Durability.valueOf(mode.toUpperCase(Locale.ROOT)));
+        }
+        threads = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        threads.shutdownNow();
+        if (writer != null) writer.close();
+        Files.deleteIfExists(file);
+    }
+
+    /** ROWS appends split over the writer threads; the score is appends per second. */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void append() throws InterruptedException {
+        Appender appender = writer != null ? writer::write : row -> appendPerCall(file, row);
+        CountDownLatch done = new CountDownLatch(writers);
+        int perThread = ROWS / writers;
+        for (int t = 0; t < writers; t++) {
+            String employee = "C60" + (t % 10);
+            threads.execute(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        appender.append(new String[]{employee, "C60", "2025-12-20", "DW2300-" + (i % 5), String.valueOf(i % 9 + 1)});
+                    }
+                } catch (IOException e) {
+                    System.err.println("Benchmark writer failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    // what StoreManager.appendStockIn used to do for every row
+    private static void appendPerCall(Path file, String[] row) throws IOException {
+        try (CSVWriter writer = new CSVWriter(new FileWriter(file.toFile(), true))) {
+            if (Files.size(file) == 0) {
+                writer.writeNext(HEADER);
+            }
+            writer.writeNext(row);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.StorageSystem.StockLog;
+import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelCsvBenchmark - persisting stock changes to model.csv.
+ *
+ * salesSystem used to rewrite model.csv after every sale (persistModelCsv); a sale now appends
+ * its deltas to StockLog and model.csv is rewritten by periodic checkpoints. Measured:
+ * - stockDelta      : one logged stock change (what a sale pays)
+ * - deltaCheckpoint : one change folded into model.csv right away (the old per-sale cost)
+ * - saveModels      : StoreManager's full rewrite from the models in memory
+ * Each delta alternates +1 / -1 so the counts stay where the dataset put them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelCsvBenchmark {
+
+    @Param({"1000"})
+    public int salesRows;
+
+    @Param({"10", "1000", "10000"})
+    public int models;
+
+    @Param({"10", "100", "1000"})
+    public int outlets;
+
+    private Catalogue.Snapshot catalogue;
+    private long n;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Dataset.prepare(salesRows, models, outlets);
+        catalogue = Catalogue.get();
+    }
+
+    @Benchmark
+    public void stockDelta() throws IOException {
+        nextDelta();
+    }
+
+    @Benchmark
+    public void deltaCheckpoint() throws IOException {
+        nextDelta();
+        StockLog.checkpoint();
+    }
+
+    @Benchmark
+    public void saveModels() {
+        StoreManager.saveModels(catalogue.models(), catalogue.outlets());
+    }
+
+    private void nextDelta() throws IOException {
+        long i = n++;
+        int model = (int) ((i / 2) % models);
+        int outlet = (int) ((i / 2 / models) % outlets);
+        StockLog.append(Dataset.modelId(model), Dataset.outletCode(outlet), (i & 1) == 0 ? 1 : -1);
+    }
+}
@@ -0,0 +1,54 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SalesLoadBenchmark - DataLoader.loadSales over the monthly partitions.
+ *
+ * loadAll reads every partition (what the sales screens and the old analytics did),
+ * loadOneMonth reads the one partition a December report needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SalesLoadBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int salesRows;
+
+    @Param({"1000"})
+    public int models;
+
+    @Param({"10"})
+    public int outlets;
+
+    private static final LocalDate MONTH_START = LocalDate.of(2025, 12, 1);
+    private static final LocalDate MONTH_END = LocalDate.of(2025, 12, 31);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Dataset.prepare(salesRows, models, outlets);
+        // splits sales.csv into partitions on the first run
+        DataLoader.loadSales(MONTH_START, MONTH_END);
+    }
+
+    @Benchmark
+    public List<Sales> loadAll() {
+        return DataLoader.loadSales();
+    }
+
+    @Benchmark
+    public List<Sales> loadOneMonth() {
+        return DataLoader.loadSales(MONTH_START, MONTH_END);
+    }
+}
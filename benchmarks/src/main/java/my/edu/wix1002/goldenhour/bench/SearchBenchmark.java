@@ -0,0 +1,66 @@
+package my.edu.wix1002.goldenhour.bench;
+
+import my.edu.wix1002.goldenhour.SearchInformation;
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchBenchmark - the sales search behind SearchInformation.searchSalesInformation.
+ *
+ * Only the last Dataset.RECEIPT_DAYS days have receipts, so what grows with salesRows is the
+ * number of receipts per day file. Each call picks a different target.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int salesRows;
+
+    @Param({"1000"})
+    public int models;
+
+    @Param({"10"})
+    public int outlets;
+
+    private String[] receiptIds;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Dataset.prepare(salesRows, models, outlets);
+        // the sales of the days that have receipts
+        LocalDate from = Dataset.YEAR_END.minusDays(Dataset.RECEIPT_DAYS - 1);
+        receiptIds = DataLoader.loadSales(from, Dataset.YEAR_END).stream().map(Sales::getSaleID).distinct().toArray(String[]::new);
+        // builds the receipt index on the first run
+        SearchInformation.findReceipts(Dataset.modelId(0));
+    }
+
+    @Benchmark
+    public List<List<String>> byTransactionId() {
+        return SearchInformation.findReceipts(receiptIds[random.nextInt(receiptIds.length)]);
+    }
+
+    @Benchmark
+    public List<List<String>> byModel() {
+        return SearchInformation.findReceipts(Dataset.modelId(random.nextInt(models)));
+    }
+
+    @Benchmark
+    public List<List<String>> byEmployeeAndModel() {
+        int outlet = random.nextInt(outlets);
+        return SearchInformation.findReceipts(Dataset.employeeId(outlet, 1 + random.nextInt(Dataset.EMPLOYEES_PER_OUTLET))
+                + " " + Dataset.modelId(random.nextInt(models)));
+    }
+}
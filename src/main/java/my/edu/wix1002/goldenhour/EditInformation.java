@@ -3,9 +3,13 @@ package my.edu.wix1002.goldenhour;
 import my.edu.wix1002.goldenhour.model.Model;
 import my.edu.wix1002.goldenhour.model.Outlet;
 import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLedger;
 import my.edu.wix1002.goldenhour.model.Sales;
 import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.util.Money;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Scanner;
 
@@ -71,9 +75,11 @@ public class EditInformation {
         }
 
         //Audit Log
-        modelFound.getStockByOutlet().put(outletCode, newStock);
         try {
-            StoreManager.saveModels(allWatches, allOutlets);
+            // set the entered quantity and log only the difference for this model/outlet instead of
+            // rewriting model.csv; the ledger takes the difference from the live counter, not from the
+            // value shown above, which a sale may have changed meanwhile (it also tells open stock views)
+            StockLedger.set(modelFound, outletCode, newStock);
             System.out.println("Stock information updated successfully!");
         } catch (Exception e) {
             //when encounter error
@@ -84,20 +90,29 @@ public class EditInformation {
 
 public void editSalesInformation() {
     System.out.println("=== Edit Sales Information ===");
-    List <Sales> allSales = DataLoader.loadSales();
 
-    if (allSales.isEmpty()) {
-        System.out.println("No sales records found to edit.");
-        return;
-    }
-
-    //2. Get input and find sale record
+    //1. Get input and find sale record
     System.out.print("Enter Transaction Date (YYYY-MM-DD): ");
      String searchDate = scanner.nextLine().trim();
+     LocalDate date;
+     try {
+         date = LocalDate.parse(searchDate);
+     } catch (DateTimeParseException e) {
+         System.out.println("Invalid date. Please use YYYY-MM-DD.");
+         return;
+     }
 
      System.out.print("Enter Customer Name: ");
         String searchName = scanner.nextLine().trim();
 
+    //2. Only the partition holding that day is read
+    List <Sales> allSales = DataLoader.loadSales(date, date);
+
+    if (allSales.isEmpty()) {
+        System.out.println("No sales records found on " + searchDate + ".");
+        return;
+    }
+
     //find Sales Record matching both the Date and Name
         Sales targetSale = allSales.stream()
                 .filter(s -> s.getDate().equals(searchDate) && s.getCustomerName().equalsIgnoreCase(searchName))
@@ -112,7 +127,7 @@ public void editSalesInformation() {
         //if Sales found, display current info
         System.out.println("Sales Record Found:");
         System.out.println("Model: " + targetSale.getModel() + "Quantity: " + targetSale.getQuantity());
-        System.out.println("Total: RM " + String.format("%.2f", targetSale.getSubtotal()));
+        System.out.println("Total: RM " + Money.format(targetSale.getSubtotal()));
         System.out.println("Transaction Method: " + targetSale.getTransactionMethod());
 
         //3. Selecting which field to edit
@@ -141,9 +156,9 @@ public void editSalesInformation() {
 
 
         if (confirm.equalsIgnoreCase("Y")) {
-            StoreManager.saveSales(allSales);
             try {
-                 my.edu.wix1002.goldenhour.StorageSystem.StoreManager.saveSales(allSales);
+                 // only the edited row is written (appended to the sales journal)
+                 StoreManager.updateSale(targetSale);
                  System.out.println("Sales information updated successfully."); 
 
             } catch (Exception e) {
@@ -188,8 +203,8 @@ public void editSalesInformation() {
 
         case 3: { // Edit Quantity
             int oldQuantity = targetSale.getQuantity();
-            double oldSubtotal = targetSale.getSubtotal();
-            double unitPrice = targetSale.getUnitPrice();
+            long oldSubtotal = targetSale.getSubtotal();
+            long unitPrice = targetSale.getUnitPrice();
 
             int newQuantity = -1;
             boolean validQuantity = false;
@@ -214,7 +229,7 @@ public void editSalesInformation() {
             }
                 
             //calculate new subtotal
-            double newSubtotal = newQuantity * unitPrice;
+            long newSubtotal = Money.times(unitPrice, newQuantity);
             //Set the values
             targetSale.setQuantity(newQuantity);
             targetSale.setSubtotal(newSubtotal);
@@ -224,15 +239,15 @@ public void editSalesInformation() {
         }
 
         case 4: {// Edit Subtotal 
-            double oldSubtotal = targetSale.getSubtotal();
-            double newSubtotal = -1.0;
+            long oldSubtotal = targetSale.getSubtotal();
+            long newSubtotal = -1;
             boolean validSubtotal = false;
 
             while (!validSubtotal) {
             try {
                 System.out.print("Enter NEW Subtotal (Total Price): ");
                 String input = scanner.nextLine().trim();
-                newSubtotal = Double.parseDouble(input);
+                newSubtotal = Money.parse(input);
                 if (newSubtotal <= 0) {
                     System.out.println("Error: Subtotal must be greater than RM 0.00.");
                 } else {
@@ -273,10 +288,10 @@ public void editSalesInformation() {
 
 }
 
-    private void performFinalSaveAndAudit(List<Sales> allSales) {
+    private void performFinalSaveAndAudit(Sales editedSale) {
         try {
-            // Overwrite sales.csv with the updated list
-            my.edu.wix1002.goldenhour.StorageSystem.StoreManager.saveSales(allSales); 
+            // Journal the edited row instead of rewriting its partition
+            StoreManager.updateSale(editedSale); 
         } catch (Exception e) {
             System.err.println("An error occurred during save: " + e.getMessage());
         }
@@ -285,7 +300,7 @@ public void editSalesInformation() {
    public static void main(String[] args) {
 
     List<Sales> mockSales = new java.util.ArrayList<>();
-    mockSales.add(new Sales("S001", "EMP001", "C60", "Alice", "DW3000-5", 2, 150.00, 300.00, "Cash", "2024-06-01", "10:00"));
+    mockSales.add(new Sales("S001", "EMP001", "C60", "Alice", "DW3000-5", 2, 15000, 30000, "Cash", "2024-06-01", "10:00"));
 
     EditInformation testEditor = new EditInformation(new java.util.ArrayList<>(), new java.util.ArrayList<>());
     
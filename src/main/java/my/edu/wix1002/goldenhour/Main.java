@@ -3,6 +3,7 @@ package my.edu.wix1002.goldenhour;
 import my.edu.wix1002.goldenhour.model.Employee;
 import my.edu.wix1002.goldenhour.model.Model;
 import my.edu.wix1002.goldenhour.model.Outlet;
+import my.edu.wix1002.goldenhour.util.Catalogue;
 import my.edu.wix1002.goldenhour.util.DataLoader;
 import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
 import java.nio.file.Files;
@@ -21,9 +22,9 @@ public class Main {
         System.out.println("== Employee Login ==");
 
         // Load all initial data from CSV files (Data Load State)
+        // models and outlets live in the shared catalogue, which reloads itself when the files change
         List<Employee> allEmployees = DataLoader.loadEmployees();
-        List<Outlet> allOutlets = DataLoader.loadOutlets();
-        List<Model> allModels = DataLoader.loadModels();
+        Catalogue.get();
 
         // System.out.println("Number of employees loaded: " + allEmployees.size());
         // for (Employee emp : allEmployees) {
@@ -85,7 +86,7 @@ public class Main {
                     if (loggedInEmployee.getRole().equals("Manager")) {
                         showManagerMenu(input, allEmployees, outletCode);
                     } else {
-                        showEmployeeMenu(input, loggedInEmployee, allModels, allOutlets);
+                        showEmployeeMenu(input, loggedInEmployee);
                     }
                 } else {
                     System.out.println("\nLogin Failed: Invalid User ID or Password. ");
@@ -177,9 +178,14 @@ public class Main {
             System.err.println("Error saving employee data: " + e.getMessage());
         }
     }
-    private static void showEmployeeMenu(Scanner input, Employee loggedInEmployee, List<Model> allModels, List<Outlet> allOutlets) {
+    private static void showEmployeeMenu(Scanner input, Employee loggedInEmployee) {
         boolean running = true;
         while (running) {
+            // latest catalogue snapshot for this action
+            Catalogue.Snapshot catalogue = Catalogue.get();
+            List<Model> allModels = catalogue.models();
+            List<Outlet> allOutlets = catalogue.outlets();
+
             System.out.println("\n=== Employee Menu ===");
             System.out.println("1. Log Attendance");
             System.out.println("2. Stock Management");
@@ -204,7 +210,7 @@ public class Main {
                     break;
                 case "3":
                     // Record a new sale
-                    salesSystem.recordNewSale(input, loggedInEmployee, allModels);
+                    salesSystem.recordNewSale(input, loggedInEmployee);
                     break;
                 case "4":
                     //Launch search stock/sales information
@@ -33,6 +33,9 @@ be appended to the same file.
 // for input
 import java.util.Scanner;
 
+import my.edu.wix1002.goldenhour.StorageSystem.GroupCommitWriter;
+import my.edu.wix1002.goldenhour.StorageSystem.ReceiptStore;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLedger;
 import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
 
 // to generate time
@@ -41,31 +44,18 @@ import java.util.Date;
 // possible error
 import java.util.InputMismatchException;
 //read,write file
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
-// only this class can use (help to check the model status)
-class ModelStock {
-    String modelCode;
-    int price;
-    static String [] recordedOutlet = StockManagement.modelOutlets();
-    int line = StockManagement.countModelOutlets();
-    
-    int[] plannedStock = new int[line]; // C60 to C69
-    
-}
-
-// only this class can use (help to confirm the outlet)
-class Outlet {
-    String outletCode;
-    String outletName;
-    int line = StockManagement.countOutlets();
-    
-}
+import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.model.Outlet;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import my.edu.wix1002.goldenhour.util.FlightEvents;
+import my.edu.wix1002.goldenhour.util.IdGenerator;
 
 public class StockManagement {
 
@@ -113,165 +103,19 @@ public class StockManagement {
         return _12Time;
     }
 
-    // read model.csv
-    public static int countModelOutlets(){
-
-        int totalLines = 0;
-
-            try 
-            {
-                BufferedReader inputStream = new BufferedReader (new FileReader("data/model.csv"));
-                String line = inputStream.readLine();
-                String[] title = line.split(",");
-                totalLines = title.length -2;
-                ModelStock.recordedOutlet = new String[totalLines];
-                for (int i = 2; i < title.length; i++)
-                {
-                    ModelStock.recordedOutlet[i-2] = title[i];
-                }
-                inputStream.close();
-            }
-            catch (FileNotFoundException e) 
-            {
-            System.out.println("The file \"model.csv\" was not found");   
-            } 
-            catch (IOException e) 
-            {
-            System.out.println("Error reading from file");
-            }
-        return totalLines;    
-    }
-
-    public static String[] modelOutlets(){
-            String [] recordedOutlet = new String [countModelOutlets()];
-            try 
-            {
-                BufferedReader inputStream = new BufferedReader (new FileReader("data/model.csv"));
-                String line = inputStream.readLine();
-                String[] title = line.split(",");
-                for (int i = 2; i < title.length; i++)
-                {
-                    recordedOutlet[i-2] = title[i];
-                }
-                inputStream.close();
-            }
-            catch (FileNotFoundException e) 
-            {
-            System.out.println("The file \"model.csv\" was not found");   
-            } 
-            catch (IOException e) 
-            {
-            System.out.println("Error reading from file");
-            }
-        return recordedOutlet;    
-    }
-
-    private static int countModels()
-    {
-        int totalLines = 0;
-
-            try 
-            {
-                BufferedReader inputStream = new BufferedReader (new FileReader("data/model.csv"));
-                String line;
-                boolean firstLine = true;
-
-                while ((line = inputStream.readLine()) != null) 
-                {
-                    // skip the title
-                    if (firstLine) {
-                        firstLine = false; 
-                        continue;
-                    }
-                    
-                    totalLines ++;
-                } 
-                inputStream.close();
-            }
-            catch (FileNotFoundException e) 
-            {
-            System.out.println("The file \"model.csv\" was not found");   
-            } 
-            catch (IOException e) 
-            {
-            System.out.println("Error reading from file");
-            }
-        return totalLines;
-    }
-
-    private static ModelStock[] createCSVModels()
-    {
-        int totalLines = countModels();
-        ModelStock[] a = new ModelStock[totalLines];
-        return a;
-    }
-    
-    private static void modelsRead(ModelStock[] models){
-        try 
-        {
-            BufferedReader inputStream = new BufferedReader (new FileReader("data/model.csv"));
-            String line;
-            boolean firstLine = true;
-            int index = 0;
-            
-
-            while ((line = inputStream.readLine()) != null) {
-                // skip the title
-                if (firstLine) {
-                    firstLine = false; 
-                    continue;
-                }   
-                // basic information - attributes
-                String[] values = line.split(",");
-                ModelStock model = new ModelStock(); //one object
-                model.modelCode = values[0]; // the first element is the code of the object
-                model.price = Integer.valueOf(values[1]); // the second element is the price of the object
-                    
-                // read C60-C69（index 2 to 11, fill in the plannedstock)
-                for (int i = 0; i < 10; i++) 
-                {
-                    model.plannedStock[i] = Integer.valueOf(values[i + 2]);
-                }
-
-                models[index] = model; 
-                index ++;         
-            }
-        inputStream.close();
-        } 
-        catch (FileNotFoundException e) {
-        System.out.println("The file \"model.csv\" was not found");  
-        } 
-        catch (IOException e) {
-        System.out.println("Error reading from file");
-        }
-
-    }
-
     // model check
 
-    private static int modelsCheckIndex(String outlet)
-    {
-        int index = 0;
-        for (int i = 0; i < ModelStock.recordedOutlet.length; i++){
-            if (ModelStock.recordedOutlet[i].equals(outlet)){
-                index = i;
-                break;
-            }
-        }
-        return index;
-    }
-
-    private static int modelsCheck(ModelStock[] models, int index)
+    private static int modelsCheck(List<Model> models, String outlet)
     {
         int check = 0;
         int correct = 0;
         int wrong = 0;
-        for (int i = 0; i < models.length; i++)
+        for (Model model : models)
         {
-            System.out.print("Model: " + models[i].modelCode + " - Counted: ");
+            System.out.print("Model: " + model.getModelId() + " - Counted: ");
             int count = allScanner.nextInt();
             allScanner.nextLine(); 
-            int record = models[i].plannedStock[index];
+            int record = model.getStock(outlet);
             System.out.println("Store Record: " + record);
             if (count == record){
                 correct ++;
@@ -292,93 +136,9 @@ public class StockManagement {
     
     }
 
-    // read outlet.csv
-    public static int countOutlets()
-    {
-        int totalLines = 0;
-
-            try 
-            {
-                BufferedReader inputStream = new BufferedReader (new FileReader("data/outlet.csv"));
-                String line;
-                boolean firstLine = true;
-
-                while ((line = inputStream.readLine()) != null) 
-                {
-                    // skip the title
-                    if (firstLine) {
-                        firstLine = false; 
-                        continue;
-                    }
-                    
-                    totalLines ++;
-                } 
-                inputStream.close();
-            }
-            catch (FileNotFoundException e) 
-            {
-            System.out.println("The file \"outlet.csv\" was not found");   
-            } 
-            catch (IOException e) 
-            {
-            System.out.println("Error reading from file");
-            }
-        return totalLines;
-    }
-
-    private static Outlet[] createCSVOutlet()
-    {
-        int totalLines = countOutlets();
-        Outlet[] a = new Outlet[totalLines];
-        return a;
-    }
-   
-    private static void outletsRead(Outlet[]outlets){
-        try 
-        {
-            BufferedReader inputStream = new BufferedReader (new FileReader("data/outlet.csv"));
-            String line;
-            boolean firstLine = true;
-            int index = 0;
-            
-
-            while ((line = inputStream.readLine()) != null) {
-                // skip the title
-                if (firstLine) {
-                    firstLine = false; 
-                    continue;
-                }   
-                // basic information - attributes
-                String[] values = line.split(",");
-                Outlet outlet = new Outlet(); //one object
-                outlet.outletCode = values[0]; // the first element is the code of the outlet
-                outlet.outletName = values[1]; // the second element is the name of the outlet
-                    
-                outlets[index] = outlet; 
-                index ++;         
-            }
-        inputStream.close();
-        } 
-        catch (FileNotFoundException e) {
-        System.out.println("The file \"outlet.csv\" was not found");  
-        } 
-        catch (IOException e) {
-        System.out.println("Error reading from file");
-        }
-
-    }
-
-    private static String matchName(Outlet[] outlets, String code){
-        String name = "";
-        for (int i = 0; i< outlets.length; i++)
-        {
-            if(outlets[i].outletCode.equals(code))
-            {
-                name = outlets[i].outletName;
-                break;
-            }
-        }
-        return name;
+    private static String matchName(Catalogue.Snapshot catalogue, String code){
+        Outlet outlet = catalogue.outlet(code);
+        return outlet == null ? "" : outlet.getOutletName();
     }
     
     // how many times of stock count is needed
@@ -398,7 +158,7 @@ public class StockManagement {
         {
             System.out.print("The store's code is: ");
             String outlet = allScanner.nextLine();
-            for (String outletC : ModelStock.recordedOutlet)
+            for (String outletC : Catalogue.get().stockOutletCodes())
             {
                 if (outletC.equals(outlet)){
                     valid = true;
@@ -501,10 +261,7 @@ public class StockManagement {
             System.out.println("Employee: " + employeeName);
         }
 
-        ModelStock[] models = createCSVModels();
-        modelsRead(models);
-        int index = modelsCheckIndex(store);
-        int wrong = modelsCheck(models,index);
+        int wrong = modelsCheck(Catalogue.get().models(), store);
         System.out.println("Morning stock count completed.");
         if (wrong > 0)
         {
@@ -522,10 +279,7 @@ public class StockManagement {
         if (!employeeName.isEmpty()) {
             System.out.println("Employee: " + employeeName);
         }
-        ModelStock[] models = createCSVModels();
-        modelsRead(models);
-        int index = modelsCheckIndex(store);
-        int wrong = modelsCheck(models,index);
+        int wrong = modelsCheck(Catalogue.get().models(), store);
         System.out.println("Night stock count completed.");
         if (wrong > 0)
         {
@@ -540,8 +294,7 @@ public class StockManagement {
     {
         System.out.println("\nWhere are the new models are received from? \nEnter 1 for HQ(Service Center) \nEnter 2 for other outlets");
 
-        Outlet[] outlets = createCSVOutlet();
-        outletsRead(outlets);
+        Catalogue.Snapshot outlets = Catalogue.get();
 
         boolean validInput = false;
         while (!validInput) {
@@ -580,15 +333,10 @@ public class StockManagement {
             if (model.equals("")) {
                 break;
             }
-            ModelStock[] models_ = createCSVModels();
-            modelsRead(models_);
-            boolean valid = false;
-            for (int i = 0; i < models_.length; i++) {
-                if (model.equals(models_[i].modelCode)) {
-                    valid = true;
-                    models += model + ",";
-                    break;
-                }
+            Model found = Catalogue.get().model(model);
+            boolean valid = found != null && found.getModelId().equals(model);
+            if (valid) {
+                models += model + ",";
             }
             if (!valid) {
                 System.out.println("Invalid model code, try again!");
@@ -622,12 +370,15 @@ public class StockManagement {
     }
 
 
-    private static void generateReceipt(Date checkTime, String[] from_to, String[] modelCode,int[] quantity)
+    // returns the bytes written for the receipt
+    private static long generateReceipt(String receiptId, Date checkTime, String[] from_to, String[] modelCode,int[] quantity)
       {
         
         String fileName = "receipts_" + dateFormat.format(checkTime) + ".txt";
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName, true))) {
+        // build the receipt first, then append it in one write with its sidecar record
+        StringWriter text = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(text)) {
             writer.println("\n=== Stock In ===");
             writer.println("Date: " + dateFormat.format(checkTime));
             String time = _12FormatTime(checkTime);
@@ -655,7 +406,10 @@ public class StockManagement {
             writer.println("Model quantities updated successfully.");
 
             writer.println(); 
-            
+        }
+        long bytes = 0;
+        try {
+            bytes = ReceiptStore.append(Paths.get(fileName), receiptId, text.toString());
         } catch (IOException e) {
             System.err.println("Error generating receipt: " + e.getMessage());
         }
@@ -680,12 +434,19 @@ public class StockManagement {
         System.out.println("Total Quantity: " + total);
         System.out.println("Model quantities updated successfully.");
         System.out.println("Stock In recorded.");
-        System.out.println("Receipt generated: " + fileName);
+        System.out.println("Receipt generated: " + fileName + " (" + receiptId + ")");
+        return bytes;
     }
 
-    private static void stockIn(Date checkTime, String[] from_to, String[] modelCode,int[] quantity) 
+    // returns the transaction id of the stock-in
+    private static String stockIn(Date checkTime, String[] from_to, String[] modelCode,int[] quantity) 
     {
-        generateReceipt(checkTime, from_to, modelCode, quantity);
+        // the receipt and every row of this stock-in share one transaction id
+        String transactionId = IdGenerator.next();
+        FlightEvents.StockMove event = new FlightEvents.StockMove();
+        event.begin();
+        long bytes = generateReceipt(transactionId, checkTime, from_to, modelCode, quantity);
+        String toOutletCode = "";
         
         // Call StoreManager.appendStockIn() to record stock in
         try {
@@ -693,7 +454,6 @@ public class StockManagement {
             String time = checkFormat_h.format(checkTime) + ":" + checkFormat_m.format(checkTime);
             String datetime = date + " " + time;
             
-            String toOutletCode = "";
             for (String line : from_to) {
                 if (line.startsWith("To:")) {
                     String[] parts = line.split(" ");
@@ -710,10 +470,13 @@ public class StockManagement {
                     toOutletCode,  // outletCode
                     datetime,      // date + time
                     modelCode[i],  // modelID
-                    String.valueOf(quantity[i])  // quantity
+                    String.valueOf(quantity[i]),  // quantity
+                    transactionId  // TransactionID
                 };
                 
                 StoreManager.appendStockIn(stockData);
+                bytes += applyMovement(toOutletCode, modelCode[i], quantity[i]);
+                if (event.isEnabled()) bytes += GroupCommitWriter.rowBytes(stockData);
             }
             
             System.out.println("Stock In information saved to database.");
@@ -723,6 +486,52 @@ public class StockManagement {
         {
             System.out.println(e.getMessage());
         }
+        finally
+        {
+            endMove(event, "in", transactionId, toOutletCode, modelCode, quantity, bytes);
+        }
+        return transactionId;
+    }
+
+    // Put a stock movement on the outlet's counter (stock log + open stock views);
+    // only outlets with a stock column in model.csv are tracked, not HQ. Returns the bytes logged.
+    private static int applyMovement(String outletCode, String modelId, int delta)
+    {
+        Catalogue.Snapshot catalogue = Catalogue.get();
+        Model model = catalogue.model(modelId);
+        if (model == null || !catalogue.stockOutletCodes().contains(outletCode)) {
+            return 0;
+        }
+        try {
+            return StockLedger.adjust(model, outletCode, delta);
+        } catch (IOException e) {
+            System.err.println("Error updating stock of " + modelId + " at " + outletCode + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Reserve what a stock-out takes from an outlet, every line or none (HQ and untracked models are not counted)
+    private static List<StockLedger.Reservation> reserveMovement(String outletCode, String[] modelCode, int[] quantity)
+    {
+        Catalogue.Snapshot catalogue = Catalogue.get();
+        List<StockLedger.Reservation> reserved = new ArrayList<>();
+        if (!catalogue.stockOutletCodes().contains(outletCode)) {
+            return reserved;
+        }
+        for (int i = 0; i < modelCode.length; i++) {
+            Model model = catalogue.model(modelCode[i]);
+            if (model == null) {
+                continue;
+            }
+            StockLedger.Reservation r = StockLedger.reserve(model, outletCode, quantity[i]);
+            if (r == null) {
+                StockLedger.release(reserved);
+                throw new IllegalStateException("Not enough stock of " + model.getModelId() + " at " + outletCode
+                        + ": " + model.getStock(outletCode) + " available, " + quantity[i] + " to move out.");
+            }
+            reserved.add(r);
+        }
+        return reserved;
     }
 
     // stock out
@@ -731,8 +540,7 @@ public class StockManagement {
     {
         System.out.println("\nWhere are the models transferred from? \nEnter 1 for HQ(Service Center) \nEnter 2 for other outlets");
 
-        Outlet[] outlets = createCSVOutlet();
-        outletsRead(outlets);
+        Catalogue.Snapshot outlets = Catalogue.get();
 
         boolean validInput = false;
         while (!validInput) {
@@ -771,15 +579,10 @@ public class StockManagement {
             if (model.equals("")) {
                 break;
             }
-            ModelStock[] models_ = createCSVModels();
-            modelsRead(models_);
-            boolean valid = false;
-            for (int i = 0; i < models_.length; i++) {
-                if (model.equals(models_[i].modelCode)) {
-                    valid = true;
-                    models += model + ",";
-                    break;
-                }
+            Model found = Catalogue.get().model(model);
+            boolean valid = found != null && found.getModelId().equals(model);
+            if (valid) {
+                models += model + ",";
             }
             if (!valid) {
                 System.out.println("Invalid model code, try again!");
@@ -811,12 +614,15 @@ public class StockManagement {
         return a;
     }
 
-    private static void generateReceipt_out(Date checkTime, String[] from_to, String[] modelCode,int[] quantity)
+    // returns the bytes written for the receipt
+    private static long generateReceipt_out(String receiptId, Date checkTime, String[] from_to, String[] modelCode,int[] quantity)
       {
         
         String fileName = "receipts_" + dateFormat.format(checkTime) + ".txt";
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName, true))) {
+        // build the receipt first, then append it in one write with its sidecar record
+        StringWriter text = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(text)) {
             writer.println("\n=== Stock Out ===");
             writer.println("Date: " + dateFormat.format(checkTime));
             String time = _12FormatTime(checkTime);
@@ -844,7 +650,10 @@ public class StockManagement {
             writer.println("Model quantities updated successfully.");
 
             writer.println(); 
-            
+        }
+        long bytes = 0;
+        try {
+            bytes = ReceiptStore.append(Paths.get(fileName), receiptId, text.toString());
         } catch (IOException e) {
             System.err.println("Error generating receipt: " + e.getMessage());
         }
@@ -869,12 +678,36 @@ public class StockManagement {
         System.out.println("Total Quantity: " + total);
         System.out.println("Model quantities updated successfully.");
         System.out.println("Stock Out recorded.");
-        System.out.println("Receipt generated: " + fileName);
+        System.out.println("Receipt generated: " + fileName + " (" + receiptId + ")");
+        return bytes;
     }
 
-    private static void stockOut(Date checkTime, String[] from_to, String[] modelCode,int[] quantity) 
+    // returns the transaction id of the stock-out;
+    // IllegalStateException (nothing written) if the outlet does not have every quantity
+    private static String stockOut(Date checkTime, String[] from_to, String[] modelCode,int[] quantity) 
     {
-        generateReceipt_out(checkTime, from_to, modelCode, quantity);
+        String fromOutletCode = "";
+        for (String line : from_to) {
+            if (line.startsWith("From:")) {
+                String[] parts = line.split(" ");
+                if (parts.length > 1) {
+                    if (line.contains("HQ")) {
+                        fromOutletCode = "HQ";
+                    } else {
+                        fromOutletCode = parts[1];
+                    }
+                }
+                break;
+            }
+        }
+        // taken off the counters before anything is written, so a stock-out cannot oversell either
+        List<StockLedger.Reservation> reserved = reserveMovement(fromOutletCode, modelCode, quantity);
+
+        // the receipt and every row of this stock-out share one transaction id
+        String transactionId = IdGenerator.next();
+        FlightEvents.StockMove event = new FlightEvents.StockMove();
+        event.begin();
+        long bytes = generateReceipt_out(transactionId, checkTime, from_to, modelCode, quantity);
         
         // Call StoreManager.appendStockOut() to record stock out
         try {
@@ -882,21 +715,6 @@ public class StockManagement {
             String time = checkFormat_h.format(checkTime) + ":" + checkFormat_m.format(checkTime);
             String datetime = date + " " + time;
             
-            String fromOutletCode = "";
-            for (String line : from_to) {
-                if (line.startsWith("From:")) {
-                    String[] parts = line.split(" ");
-                    if (parts.length > 1) {
-                        if (line.contains("HQ")) {
-                            fromOutletCode = "HQ";
-                        } else {
-                            fromOutletCode = parts[1];
-                        }
-                    }
-                    break;
-                }
-            }
-            
             for (int i = 0; i < modelCode.length; i++) {
                 String[] stockData = {
                     employeeID.isEmpty() ? employeeName : employeeID, // EmployeeID
@@ -904,19 +722,111 @@ public class StockManagement {
                     datetime,               // Date
                     modelCode[i],           // ModelID
                     String.valueOf(quantity[i]),  // QuantityOut
-                    "Transfer"              // Reason
+                    "Transfer",             // Reason
+                    transactionId           // TransactionID
                 };
                 
                 StoreManager.appendStockOut(stockData);
+                if (event.isEnabled()) bytes += GroupCommitWriter.rowBytes(stockData);
             }
+            bytes += StockLedger.commitMovement(reserved);
             
             System.out.println("Stock Out information saved to database.");
             
         } 
         catch (Exception e) 
         {
+            // whatever was not logged goes back on the counters
+            StockLedger.release(reserved);
             System.out.println("Warning: Could not save stock out data to StoreManager: " + e.getMessage());
         }
+        finally
+        {
+            endMove(event, "out", transactionId, fromOutletCode, modelCode, quantity, bytes);
+        }
+        return transactionId;
+    }
+
+    /**
+     * Record a stock-in without the console (used by the HTTP server). from is "HQ" or an outlet
+     * code, to an outlet code. Writes the receipt and rows like the menu does; returns the transaction id.
+     */
+    public static synchronized String recordStockIn(String employeeID, String employeeName, String from, String to,
+                                                    String[] modelCode, int[] quantity)
+    {
+        useEmployee(employeeID, employeeName);
+        return stockIn(new Date(), movementLines(from, to), checkedModels(modelCode, quantity), quantity);
+    }
+
+    /** Stock-out counterpart of recordStockIn(). */
+    public static synchronized String recordStockOut(String employeeID, String employeeName, String from, String to,
+                                                     String[] modelCode, int[] quantity)
+    {
+        useEmployee(employeeID, employeeName);
+        return stockOut(new Date(), movementLines(from, to), checkedModels(modelCode, quantity), quantity);
+    }
+
+    private static void useEmployee(String ID, String name)
+    {
+        employeeID = ID;
+        employeeName = name;
+    }
+
+    // the "From: ..." / "To: ..." lines of the receipt, as the menu builds them
+    private static String[] movementLines(String from, String to)
+    {
+        Catalogue.Snapshot outlets = Catalogue.get();
+        if (!"HQ".equalsIgnoreCase(from) && outlets.outlet(from) == null) {
+            throw new IllegalArgumentException("Unknown outlet: " + from);
+        }
+        if (outlets.outlet(to) == null) {
+            throw new IllegalArgumentException("Unknown outlet: " + to);
+        }
+        String fromLine = "HQ".equalsIgnoreCase(from)
+                ? "From: HQ (Service Center)"
+                : "From: " + from + " (" + matchName(outlets, from) + ")";
+        return new String[]{fromLine, "To: " + to + " (" + matchName(outlets, to) + ")"};
+    }
+
+    // model codes as they are in model.csv; IllegalArgumentException for unknown models or bad quantities
+    private static String[] checkedModels(String[] modelCode, int[] quantity)
+    {
+        if (modelCode.length == 0 || modelCode.length != quantity.length) {
+            throw new IllegalArgumentException("Give one quantity for every model");
+        }
+        String[] ids = new String[modelCode.length];
+        for (int i = 0; i < modelCode.length; i++) {
+            Model found = Catalogue.get().model(modelCode[i]);
+            if (found == null) {
+                throw new IllegalArgumentException("Model not found: " + modelCode[i]);
+            }
+            if (quantity[i] <= 0) {
+                throw new IllegalArgumentException("Quantity of " + found.getModelId() + " must be greater than zero");
+            }
+            ids[i] = found.getModelId();
+        }
+        return ids;
+    }
+
+    // Commit the flight recorder event of a stock movement (nothing when no recording is running)
+    private static void endMove(FlightEvents.StockMove event, String direction, String transactionId,
+                                String outletCode, String[] modelCode, int[] quantity, long bytes)
+    {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        int units = 0;
+        for (int i = 0; i < modelCode.length; i++) {
+            units += quantity[i];
+        }
+        event.direction = direction;
+        event.transactionId = transactionId;
+        event.outlet = outletCode;
+        event.rows = modelCode.length;
+        event.units = units;
+        event.bytes = bytes;
+        event.commit();
     }
 
 
@@ -978,7 +888,11 @@ public static void main(String[] args) {
             int[] quantity = new int[modelCode.length];
             quantity = information2_out(quantity, modelCode);
             
-            stockOut(now, from_to, modelCode, quantity);
+            try {
+                stockOut(now, from_to, modelCode, quantity);
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage() + " Stock out cancelled.");
+            }
         }
 
     }
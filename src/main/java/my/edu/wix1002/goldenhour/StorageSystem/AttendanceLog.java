@@ -0,0 +1,179 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.util.CsvParser;
+import my.edu.wix1002.goldenhour.util.FlightEvents;
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AttendanceLog - data/attendance.csv as an append-only event log with an in-memory index.
+ *
+ * Clock-in and clock-out are two separate rows with the usual columns
+ * (EmployeeID, Date, ClockInTime, ClockOutTime, OutletCode):
+ *   "C6004","2025-12-20","09:00:00","","C60"   <- clock-in event
+ *   "C6004","2025-12-20","","18:02:11","C60"   <- clock-out event
+ * Older rows carrying both times are read as both events. Rows are never rewritten.
+ *
+ * The index maps (employee, date) to the punches of that day. It is built from the file on
+ * first use; afterwards only bytes appended since the last look are parsed (so punches from
+ * another running instance are picked up too), which keeps a punch O(1) in the file size.
+ * Rows are written through a GroupCommitWriter, so punches from many terminals share a write.
+ * The first clock-in and the first clock-out of a day win, like the old row search did, so
+ * reading an event twice changes nothing.
+ */
+public class AttendanceLog {
+
+    private static final Path ATTENDANCE_PATH = Paths.get("data", "attendance.csv");
+    private static final String HEADER = "EmployeeID,Date,ClockInTime,ClockOutTime,OutletCode\n";
+    private static final GroupCommitWriter WRITER = GroupCommitWriter.forFile(ATTENDANCE_PATH,
+            new String[]{"EmployeeID", "Date", "ClockInTime", "ClockOutTime", "OutletCode"});
+    private static final Metrics.Timer APPEND = Metrics.timer("attendance.append");
+
+    /** Punches of one employee on one day (times as stored, "" when missing). */
+    public static final class Entry {
+        private final String employeeID;
+        private final String date;
+        private String clockIn = "";
+        private String clockOut = "";
+        private String outletCode = "";
+
+        Entry(String employeeID, String date) {
+            this.employeeID = employeeID;
+            this.date = date;
+        }
+
+        public String getEmployeeID() { return employeeID; }
+        public String getDate() { return date; }
+        public String getClockIn() { return clockIn; }
+        public String getClockOut() { return clockOut; }
+        public String getOutletCode() { return outletCode; }
+        public boolean hasClockIn() { return !clockIn.isEmpty(); }
+        public boolean hasClockOut() { return !clockOut.isEmpty(); }
+    }
+
+    private static final Map<String, Entry> INDEX = new HashMap<>();
+    // bytes of attendance.csv already indexed
+    private static long coveredLength = -1;
+
+    //QUERY
+
+    /** The punches of an employee on a date, or null if there are none. */
+    public static synchronized Entry find(String employeeID, LocalDate date) {
+        catchUp();
+        return INDEX.get(key(employeeID, date.toString()));
+    }
+
+    //APPEND
+
+    public static void clockIn(String employeeID, LocalDate date, String time, String outletCode) throws IOException {
+        append("in", new String[]{employeeID, date.toString(), time, "", outletCode});
+    }
+
+    public static void clockOut(String employeeID, LocalDate date, String time, String outletCode) throws IOException {
+        append("out", new String[]{employeeID, date.toString(), "", time, outletCode});
+    }
+
+    // Write one event row (punches at the same moment share one write), then index it
+    private static void append(String punch, String[] event) throws IOException {
+        long t0 = System.nanoTime();
+        FlightEvents.AttendancePunch recorded = new FlightEvents.AttendancePunch();
+        recorded.begin();
+        boolean written = false;
+        try {
+            WRITER.write(event);
+            written = true;
+            synchronized (AttendanceLog.class) {
+                catchUp();
+            }
+        } finally {
+            APPEND.since(t0);
+            recorded.end();
+            if (recorded.shouldCommit()) {
+                recorded.punch = punch;
+                recorded.employeeId = event[0];
+                recorded.outlet = event[4];
+                recorded.rows = written ? 1 : 0;
+                recorded.bytes = written ? GroupCommitWriter.rowBytes(event) : 0;
+                recorded.succeeded = written;
+                recorded.commit();
+            }
+        }
+    }
+
+    //INDEX
+
+    // Index whatever was appended to the file since the last call (the whole file the first time)
+    private static void catchUp() {
+        try {
+            if (!Files.exists(ATTENDANCE_PATH)) {
+                Path parent = ATTENDANCE_PATH.getParent();
+                if (parent != null && !Files.exists(parent)) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(ATTENDANCE_PATH, HEADER.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+            }
+            long size = Files.size(ATTENDANCE_PATH);
+            if (size < coveredLength) {
+                // replaced by hand: start over
+                INDEX.clear();
+                coveredLength = -1;
+            }
+            long from = Math.max(coveredLength, 0);
+            if (size <= from) return;
+
+            ByteBuffer tail = ByteBuffer.allocate((int) (size - from));
+            try (FileChannel ch = FileChannel.open(ATTENDANCE_PATH, StandardOpenOption.READ)) {
+                while (tail.hasRemaining() && ch.read(tail, from + tail.position()) > 0) { }
+            }
+            tail.flip();
+            long[] indexedUpTo = {0};
+            boolean fromStart = from == 0;
+            String[] parts = new String[5];
+            CsvParser.parse(tail, new CsvParser.RowHandler() {
+                int count;
+
+                public void field(CsvParser.Field f) {
+                    if (f.column() < parts.length) parts[f.column()] = f.asString();
+                    count = f.column() + 1;
+                }
+
+                public boolean endRow(int row, long start, long end) {
+                    // a last row without its line break may still be being written; leave it for next time
+                    if (end == tail.limit() && tail.get((int) end - 1) != '\n') return false;
+                    indexedUpTo[0] = end;
+                    boolean header = fromStart && row == 0;
+                    if (!header && count >= 3) {
+                        apply(parts[0], parts[1], parts[2], count >= 4 ? parts[3] : "", count >= 5 ? parts[4] : "");
+                    }
+                    count = 0;
+                    return true;
+                }
+            });
+            coveredLength = from + indexedUpTo[0];
+        } catch (IOException e) {
+            System.err.println("Error reading attendance file: " + e.getMessage());
+        }
+    }
+
+    private static void apply(String employeeID, String date, String clockIn, String clockOut, String outletCode) {
+        Entry e = INDEX.computeIfAbsent(key(employeeID, date), k -> new Entry(employeeID, date));
+        if (!e.hasClockIn() && !clockIn.isEmpty()) e.clockIn = clockIn;
+        if (!e.hasClockOut() && !clockOut.isEmpty()) e.clockOut = clockOut;
+        if (e.outletCode.isEmpty()) e.outletCode = outletCode;
+    }
+
+    private static String key(String employeeID, String date) {
+        return employeeID + '|' + date;
+    }
+}
@@ -0,0 +1,55 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FileSync - forcing files and directory entries to disk.
+ *
+ * A derived file that something else vouches for (an APPLIED mark, an emptied log) has to be on
+ * disk first. For a new or renamed file that includes the directory entry, so the directory is
+ * forced too. Windows cannot open a directory for that; there the rename itself is as durable
+ * as it gets, and the failure is ignored.
+ *
+ * replace() is the temp file + rename used for checkpoints and rewrites, made durable: whoever
+ * empties a log afterwards can rely on the new file being there after a power cut.
+ */
+final class FileSync {
+
+    private FileSync() {
+    }
+
+    /** Force the contents of a file that was written and closed. */
+    static void force(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    /** Move a fully written temp file over target (atomically where possible), forcing it before and the directory after. */
+    static void replace(Path tmp, Path target) throws IOException {
+        force(tmp);
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectoryOf(target);
+    }
+
+    /** Force the directory holding the file, after the file was created or renamed into it. */
+    static void forceDirectoryOf(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // not supported for directories on this platform
+        }
+    }
+}
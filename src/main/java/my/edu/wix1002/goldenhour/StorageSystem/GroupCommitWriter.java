@@ -0,0 +1,281 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * GroupCommitWriter - one long-lived appender per CSV file that batches concurrent appends.
+ *
+ * Callers hand in a row and get a future back. A single writer thread per file takes every
+ * row waiting in the queue, encodes them (all fields quoted, like CSVWriter), writes the whole
+ * batch with one write() on a channel that stays open, and then completes the futures.
+ * The header is written once when the file is empty; the size is not checked again per row.
+ *
+ * Durability (per writer, default from -Dgoldenhour.durability=none|batched|every):
+ * - NONE    : write() only; the OS flushes to disk when it likes, as CSVWriter did (default)
+ * - BATCHED : one force() per batch, before any future of the batch completes
+ * - EVERY   : one write() + force() per row
+ * Forcing is opt-in. Throughput for 1, 8 and 64 writers: GroupCommitBenchmark in benchmarks/.
+ */
+public class GroupCommitWriter {
+
+    public enum Durability { NONE, BATCHED, EVERY }
+
+    // upper bound on rows per write, so one batch never holds a huge buffer
+    private static final int MAX_BATCH = 4096;
+
+    private static final class Pending {
+        final String[] row;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(String[] row) {
+            this.row = row;
+        }
+    }
+
+    // queued by close(); the channel is interruptible, so the thread is stopped with this instead
+    private static final Pending STOP = new Pending(null);
+
+    private static final Map<Path, GroupCommitWriter> WRITERS = new HashMap<>();
+
+    static {
+        // let rows that are still queued reach the file before the program ends
+        Runtime.getRuntime().addShutdownHook(new Thread(GroupCommitWriter::closeAll, "group-commit-exit"));
+    }
+
+    private final Path file;
+    private final String[] header;
+    private final Durability durability;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private FileChannel channel;
+    private boolean started;
+    private volatile boolean closed;
+
+    private GroupCommitWriter(Path file, String[] header, Durability durability) {
+        this.file = file;
+        this.header = header;
+        this.durability = durability;
+        this.thread = new Thread(this::run, "group-commit-" + file.getFileName());
+        thread.setDaemon(true);
+    }
+
+    // the thread (and the file) are only opened on the first append
+    private synchronized void start() {
+        if (!started) {
+            started = true;
+            thread.start();
+        }
+    }
+
+    /** The shared writer of a file (created on first use with the default durability). */
+    public static synchronized GroupCommitWriter forFile(Path file, String[] header) {
+        Path key = file.toAbsolutePath().normalize();
+        GroupCommitWriter w = WRITERS.get(key);
+        if (w == null) {
+            w = new GroupCommitWriter(file, header, defaultDurability());
+            WRITERS.put(key, w);
+        }
+        return w;
+    }
+
+    /** A private writer with its own durability (benchmarks); close it when done. */
+    public static GroupCommitWriter open(Path file, String[] header, Durability durability) {
+        return new GroupCommitWriter(file, header, durability);
+    }
+
+    public static Durability defaultDurability() {
+        String value = System.getProperty("goldenhour.durability", "none");
+        try {
+            return Durability.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown goldenhour.durability \"" + value + "\", using none.");
+            return Durability.NONE;
+        }
+    }
+
+    //APPEND
+
+    /** Queue one row; the future completes once it is written (and forced, unless NONE). */
+    public CompletableFuture<Void> append(String[] row) {
+        Pending p = new Pending(row);
+        if (closed) {
+            p.done.completeExceptionally(new IOException(file + " writer is closed"));
+            return p.done;
+        }
+        start();
+        queue.add(p);
+        return p.done;
+    }
+
+    /** Queue one row and wait for it. */
+    public void write(String[] row) throws IOException {
+        try {
+            append(row).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + file.getFileName(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /** Write what is queued, then stop the writer thread and close the file. */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (!started) return;
+        }
+        queue.add(STOP);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeAll() {
+        List<GroupCommitWriter> all;
+        synchronized (GroupCommitWriter.class) {
+            all = new ArrayList<>(WRITERS.values());
+            WRITERS.clear();
+        }
+        for (GroupCommitWriter w : all) {
+            w.close();
+        }
+    }
+
+    //WRITER THREAD
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            // rows queued before close() are still written
+            stop = batch.remove(STOP);
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+        }
+        // an append that raced with close()
+        for (Pending p; (p = queue.poll()) != null; ) {
+            p.done.completeExceptionally(new IOException(file + " writer is closed"));
+        }
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        try {
+            if (channel == null) {
+                openChannel();
+            }
+            if (durability == Durability.EVERY) {
+                for (Pending p : batch) {
+                    StringBuilder sb = new StringBuilder(128);
+                    appendRow(sb, p.row);
+                    writeFully(sb);
+                    channel.force(false);
+                    p.done.complete(null);
+                }
+                return;
+            }
+            StringBuilder sb = new StringBuilder(batch.size() * 96);
+            for (Pending p : batch) {
+                appendRow(sb, p.row);
+            }
+            writeFully(sb);
+            if (durability == Durability.BATCHED) {
+                channel.force(false);
+            }
+            for (Pending p : batch) {
+                p.done.complete(null);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Pending p : batch) {
+                p.done.completeExceptionally(e);
+            }
+            // reopen on the next batch
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            channel = null;
+        }
+    }
+
+    // Open for append; write the header into an empty file, or a line break after a cut-off last row
+    private void openChannel() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        long size = channel.size();
+        if (size == 0) {
+            if (header != null) {
+                StringBuilder sb = new StringBuilder();
+                appendRow(sb, header);
+                writeFully(sb);
+            }
+        } else {
+            // an append-mode channel cannot read, so look at the last byte through a second one
+            ByteBuffer last = ByteBuffer.allocate(1);
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                in.read(last, size - 1);
+            }
+            if (last.get(0) != '\n') {
+                writeFully(new StringBuilder("\n"));
+            }
+        }
+    }
+
+    private void writeFully(CharSequence text) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /** Size in bytes of a row as the writer puts it in the file (for flight recorder events). */
+    public static int rowBytes(String[] row) {
+        StringBuilder sb = new StringBuilder(128);
+        appendRow(sb, row);
+        return sb.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /** One CSV row, every field quoted like CSVWriter writes them (also used by SalesPartitions). */
+    static void appendRow(StringBuilder sb, String[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) sb.append(',');
+            String v = row[i] == null ? "" : row[i];
+            sb.append('"').append(v.replace("\"", "\"\"")).append('"');
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,305 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * ReceiptIndex - inverted index over the daily receipt files (data/sales/sales_yyyy-MM-dd.txt).
+ *
+ * Every receipt block is indexed under its terms: date, employee ID, customer name words,
+ * model IDs and transaction ID (all lower case). A search looks the words up, intersects
+ * the receipt lists and reads only the matching blocks from disk.
+ *
+ * The index is kept in data/receipts.idx, an append-only log with one record per receipt
+ * (file name, byte offset, byte length, terms), framed as [int length][int crc32][payload]
+ * like the stock log. Nothing is ever rewritten:
+ * - salesSystem calls catchUp(file) after appending a receipt; only the new bytes are read
+ * - a search first checks the size of each receipt file and indexes whatever was added
+ *   since (receipts from another instance, or every file when the index is missing)
+ */
+public class ReceiptIndex {
+
+    private static final Path SALES_DIR = Paths.get("data", "sales");
+    private static final Path INDEX_PATH = Paths.get("data", "receipts.idx");
+    private static final String END_OF_RECEIPT = "-----";
+
+    /** Where one receipt is: file name inside data/sales, byte offset and length. */
+    public static final class Location implements Comparable<Location> {
+        private final String fileName;
+        private final long offset;
+        private final int length;
+
+        Location(String fileName, long offset, int length) {
+            this.fileName = fileName;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getFileName() { return fileName; }
+        public long getOffset() { return offset; }
+
+        // file names carry the date, so this is date order, then order within the day
+        public int compareTo(Location o) {
+            int c = fileName.compareTo(o.fileName);
+            return c != 0 ? c : Long.compare(offset, o.offset);
+        }
+    }
+
+    // term -> receipts containing it
+    private static final TreeMap<String, Set<Location>> POSTINGS = new TreeMap<>();
+    // receipt file name -> bytes of it already indexed
+    private static final Map<String, Long> COVERED = new HashMap<>();
+    private static FileChannel channel;
+
+    //SEARCH
+
+    /**
+     * Receipts that match every word of the query. A word matches a term it is a prefix of,
+     * so "zik" finds "Zikri" and "SW2500" finds every SW2500 variant.
+     */
+    public static synchronized List<Location> search(String query) {
+        catchUpAll();
+        Set<Location> result = null;
+        for (String word : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            Set<Location> matches = new TreeSet<>();
+            for (Set<Location> posting : POSTINGS.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                matches.addAll(posting);
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result == null ? Collections.emptyList() : new ArrayList<>(result);
+    }
+
+    /** The lines of one receipt, read straight from its offset. */
+    public static List<String> read(Location location) throws IOException {
+        byte[] bytes = new byte[location.length];
+        try (RandomAccessFile in = new RandomAccessFile(SALES_DIR.resolve(location.fileName).toFile(), "r")) {
+            in.seek(location.offset);
+            in.readFully(bytes);
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\\r?\\n")) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    //INDEX
+
+    /** Index the receipts appended to one receipt file since the last call. */
+    public static synchronized void catchUp(Path receiptFile) {
+        try {
+            open();
+            indexTail(receiptFile);
+        } catch (IOException e) {
+            System.err.println("Error updating receipt index: " + e.getMessage());
+        }
+    }
+
+    private static void catchUpAll() {
+        if (!Files.isDirectory(SALES_DIR)) return;
+        try {
+            open();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(SALES_DIR, "sales_*.txt")) {
+                for (Path file : files) {
+                    indexTail(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error updating receipt index: " + e.getMessage());
+        }
+    }
+
+    // Read one file from its indexed length up to the last complete receipt
+    private static void indexTail(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long from = COVERED.getOrDefault(name, 0L);
+        long size = Files.size(file);
+        if (size <= from) return;
+
+        byte[] bytes = new byte[(int) (size - from)];
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            in.seek(from);
+            in.readFully(bytes);
+        }
+
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        int blockStart = 0;
+        int lineStart = 0;
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+            lineStart = i + 1;
+            if (line.startsWith(END_OF_RECEIPT)) {
+                if (!terms.isEmpty()) {
+                    Location loc = new Location(name, from + blockStart, lineStart - blockStart);
+                    add(loc, terms);
+                    writeFrame(frames, loc, terms);
+                }
+                terms = new LinkedHashSet<>();
+                blockStart = lineStart;
+            } else {
+                termsOf(line, terms);
+            }
+        }
+        if (frames.size() > 0) {
+            ByteBuffer buf = ByteBuffer.wrap(frames.toByteArray());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            channel.force(false);
+        }
+        // a receipt without its closing line yet is read again next time
+        COVERED.put(name, from + blockStart);
+    }
+
+    // Search terms of one receipt line (the labels are the ones salesSystem.appendReceipt writes)
+    private static void termsOf(String line, Set<String> terms) {
+        if (line.startsWith("Date:")) {
+            terms.add(value(line, "Date:"));
+        } else if (line.startsWith("Employee:")) {
+            // "C6002 - Adam bin Abu": the ID only
+            String employee = value(line, "Employee:");
+            int dash = employee.indexOf(" - ");
+            terms.add(dash >= 0 ? employee.substring(0, dash).trim() : employee);
+        } else if (line.startsWith("Customer Name:")) {
+            for (String word : value(line, "Customer Name:").split("\\s+")) {
+                if (!word.isEmpty()) terms.add(word);
+            }
+        } else if (line.startsWith("Enter Model:")) {
+            terms.add(value(line, "Enter Model:"));
+        } else if (line.startsWith("Transaction ID:")) {
+            terms.add(value(line, "Transaction ID:"));
+        }
+    }
+
+    private static String value(String line, String label) {
+        return line.substring(label.length()).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void add(Location loc, Set<String> terms) {
+        for (String term : terms) {
+            if (term.isEmpty()) continue;
+            POSTINGS.computeIfAbsent(term, k -> new TreeSet<>()).add(loc);
+        }
+        long end = loc.offset + loc.length;
+        COVERED.merge(loc.fileName, end, Math::max);
+    }
+
+    //LOG
+
+    // Open the index log and load it (once); a torn record at the end is cut off
+    private static void open() throws IOException {
+        if (channel != null) return;
+        Path parent = INDEX_PATH.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(INDEX_PATH, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (pos + 8 <= size) {
+            header.clear();
+            channel.read(header, pos);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || pos + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, pos + 8);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+            Location loc = new Location(in.readUTF(), in.readLong(), in.readInt());
+            int count = in.readInt();
+            Set<String> terms = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++) {
+                terms.add(in.readUTF());
+            }
+            add(loc, terms);
+            pos += 8 + length;
+        }
+        if (pos < size) {
+            System.err.println("Warning: receipt index had an incomplete record, truncating it.");
+            channel.truncate(pos);
+        }
+        channel.position(pos);
+
+        // a receipt file that shrank (edited by hand) no longer matches its offsets
+        for (Map.Entry<String, Long> e : new ArrayList<>(COVERED.entrySet())) {
+            Path file = SALES_DIR.resolve(e.getKey());
+            if (!Files.exists(file) || Files.size(file) < e.getValue()) {
+                rebuild();
+                return;
+            }
+        }
+    }
+
+    // Drop the log and index every receipt file again from the start
+    private static void rebuild() throws IOException {
+        System.err.println("Receipt files changed, rebuilding receipt index.");
+        POSTINGS.clear();
+        COVERED.clear();
+        channel.truncate(0);
+        channel.position(0);
+        catchUpAll();
+    }
+
+    private static void writeFrame(ByteArrayOutputStream frames, Location loc, Set<String> terms) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(loc.fileName);
+        out.writeLong(loc.offset);
+        out.writeInt(loc.length);
+        out.writeInt(terms.size());
+        for (String term : terms) {
+            out.writeUTF(term);
+        }
+        byte[] payload = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        DataOutputStream frame = new DataOutputStream(frames);
+        frame.writeInt(payload.length);
+        frame.writeInt((int) crc.getValue());
+        frame.write(payload);
+    }
+}
@@ -0,0 +1,305 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * ReceiptStore - appends receipts to the daily text files with a fixed-width sidecar index.
+ *
+ * Next to every receipt file (sales_yyyy-MM-dd.txt, receipts_yyyy-MM-dd.txt) a file with the
+ * same name plus ".idx" gets one 48-byte record per receipt:
+ *   [32 bytes transaction id, ASCII, space padded][long offset][int length][int crc32]
+ * The records are kept in id order, so a lookup by id is a binary search and record n is the
+ * n-th receipt by id (not necessarily by position in the text file):
+ * - transaction ids (util.IdGenerator) sort by the time they were made, so an append normally
+ *   goes to the end of the sidecar
+ * - an id below the last one (two terminals, a sale replayed by TransactionLog) is merged in;
+ *   the sidecar is then rewritten through a temp file, so a crash leaves the old or the new one
+ * - a receipt file written before it had a sidecar is indexed from its "Transaction ID:" lines
+ *   on the first append, so its older receipts are found too
+ * The CRC catches a receipt file that was edited by hand after it was indexed.
+ */
+public class ReceiptStore {
+
+    private static final int ID_BYTES = 32;
+    private static final int RECORD_BYTES = ID_BYTES + 8 + 4 + 4;
+    private static final String ID_LABEL = "Transaction ID:";
+    private static final String END_OF_RECEIPT = "-----";
+
+    private static final Metrics.Timer APPEND = Metrics.timer("receipts.append");
+    private static final Metrics.Timer FIND = Metrics.timer("receipts.find");
+
+    /** Append one receipt to the file and record it in the sidecar; returns the bytes written to both. */
+    public static long append(Path receiptFile, String transactionId, String text) throws IOException {
+        return append(receiptFile, Collections.singletonList(transactionId), Collections.singletonList(text), false);
+    }
+
+    /** Same, with force: the receipt is on disk before its sidecar record, and both are when it returns. */
+    static long append(Path receiptFile, String transactionId, String text, boolean force) throws IOException {
+        return append(receiptFile, Collections.singletonList(transactionId), Collections.singletonList(text), force);
+    }
+
+    /** Append several receipts to one file, with one write to the file and one to the sidecar. */
+    public static long append(Path receiptFile, List<String> transactionIds, List<String> texts) throws IOException {
+        return append(receiptFile, transactionIds, texts, false);
+    }
+
+    private static synchronized long append(Path receiptFile, List<String> transactionIds, List<String> texts,
+                                            boolean force) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            if (transactionIds.size() != texts.size()) {
+                throw new IllegalArgumentException(transactionIds.size() + " ids for " + texts.size() + " receipts");
+            }
+            if (texts.isEmpty()) return 0;
+            Path parent = receiptFile.toAbsolutePath().getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            byte[][] bytes = new byte[texts.size()][];
+            int total = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = texts.get(i).getBytes(StandardCharsets.UTF_8);
+                total += bytes[i].length;
+            }
+            ByteBuffer data = ByteBuffer.allocate(total);
+            for (byte[] b : bytes) {
+                data.put(b);
+            }
+            data.flip();
+            long offset;
+            try (FileChannel ch = FileChannel.open(receiptFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                offset = ch.size();
+                write(ch, data, offset);
+                if (force) {
+                    ch.force(false);
+                    if (offset == 0) FileSync.forceDirectoryOf(receiptFile);
+                }
+            }
+
+            long end = offset;
+            List<byte[]> added = new ArrayList<>(bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                added.add(record(idBytes(transactionIds.get(i)), offset, bytes[i]));
+                offset += bytes[i].length;
+            }
+            added.sort(ReceiptStore::compareRecords);
+            return total + writeRecords(receiptFile, end, added, force);
+        } finally {
+            APPEND.since(t0);
+        }
+    }
+
+    // Add the records to the sidecar in id order; end is where the receipt file ended before this append
+    private static long writeRecords(Path receiptFile, long end, List<byte[]> added, boolean force) throws IOException {
+        Path idx = sidecar(receiptFile);
+        List<byte[]> merged;
+        try (FileChannel ch = FileChannel.open(idx, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // drop a torn record left by a crash
+            long size = ch.size() - ch.size() % RECORD_BYTES;
+            if (size == 0 && end > 0) {
+                // receipts from before the sidecar existed
+                added.addAll(backfill(receiptFile, end));
+                added.sort(ReceiptStore::compareRecords);
+            }
+            if (size == 0 || compareRecords(record(ch, (int) (size / RECORD_BYTES) - 1).array(), added.get(0)) <= 0) {
+                // in order: append
+                ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * added.size());
+                for (byte[] r : added) {
+                    records.put(r);
+                }
+                records.flip();
+                write(ch, records, size);
+                ch.truncate(size + records.limit());
+                if (force) {
+                    ch.force(false);
+                    if (size == 0) FileSync.forceDirectoryOf(receiptFile);
+                }
+                return records.limit();
+            }
+            merged = new ArrayList<>((int) (size / RECORD_BYTES) + added.size());
+            for (int i = 0; i < size / RECORD_BYTES; i++) {
+                merged.add(record(ch, i).array());
+            }
+        }
+        // an id below the last one: merge it in and replace the sidecar as a whole
+        merged.addAll(added);
+        merged.sort(ReceiptStore::compareRecords);
+        ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * merged.size());
+        for (byte[] r : merged) {
+            records.put(r);
+        }
+        records.flip();
+        Path tmp = Paths.get(idx.toString() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(ch, records, 0);
+        }
+        FileSync.replace(tmp, idx);
+        return records.limit();
+    }
+
+    // Records for the complete receipts in the first end bytes of a file that has no sidecar yet
+    private static List<byte[]> backfill(Path receiptFile, long end) throws IOException {
+        byte[] bytes = new byte[(int) end];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        try (FileChannel ch = FileChannel.open(receiptFile, StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, buf.position()) < 0) break;
+            }
+        }
+        List<byte[]> records = new ArrayList<>();
+        int blockStart = 0;
+        int lineStart = 0;
+        String id = null;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+            lineStart = i + 1;
+            if (line.startsWith(ID_LABEL)) {
+                id = line.substring(ID_LABEL.length()).trim();
+            } else if (line.startsWith(END_OF_RECEIPT)) {
+                // blocks without an id (stock receipts) or with one that does not fit stay unindexed
+                if (id != null && !id.isEmpty() && id.length() <= ID_BYTES) {
+                    records.add(record(idBytes(id), blockStart, Arrays.copyOfRange(bytes, blockStart, lineStart)));
+                }
+                id = null;
+                blockStart = lineStart;
+            }
+        }
+        return records;
+    }
+
+    private static byte[] record(byte[] id, long offset, byte[] receipt) {
+        CRC32 crc = new CRC32();
+        crc.update(receipt);
+        ByteBuffer r = ByteBuffer.allocate(RECORD_BYTES);
+        r.put(id);
+        r.putLong(offset);
+        r.putInt(receipt.length);
+        r.putInt((int) crc.getValue());
+        return r.array();
+    }
+
+    // by id, ties (the same id twice) by offset
+    private static int compareRecords(byte[] a, byte[] b) {
+        int c = Arrays.compareUnsigned(a, 0, ID_BYTES, b, 0, ID_BYTES);
+        return c != 0 ? c : Long.compare(ByteBuffer.wrap(a).getLong(ID_BYTES), ByteBuffer.wrap(b).getLong(ID_BYTES));
+    }
+
+    //LOOKUP
+
+    /** Number of receipts recorded for the file (receipts written without an id are not counted). */
+    public static int count(Path receiptFile) throws IOException {
+        Path idx = sidecar(receiptFile);
+        return Files.exists(idx) ? (int) (Files.size(idx) / RECORD_BYTES) : 0;
+    }
+
+    /** The n-th receipt of the file in id order (0 = lowest id), or null if there is none. */
+    public static String read(Path receiptFile, int position) throws IOException {
+        Path idx = sidecar(receiptFile);
+        if (position < 0 || !Files.exists(idx)) return null;
+        try (FileChannel ch = FileChannel.open(idx, StandardOpenOption.READ)) {
+            if ((long) (position + 1) * RECORD_BYTES > ch.size()) return null;
+            return readReceipt(receiptFile, record(ch, position));
+        }
+    }
+
+    /** The receipt with the given transaction id, or null if the file has none. */
+    public static String find(Path receiptFile, String transactionId) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            Path idx = sidecar(receiptFile);
+            if (!Files.exists(idx) || transactionId.trim().length() > ID_BYTES) return null;
+            byte[] key = idBytes(transactionId);
+            try (FileChannel ch = FileChannel.open(idx, StandardOpenOption.READ)) {
+                int n = (int) (ch.size() / RECORD_BYTES);
+                int lo = 0;
+                int hi = n - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    ByteBuffer r = record(ch, mid);
+                    int c = compareId(r, key);
+                    if (c == 0) return readReceipt(receiptFile, r);
+                    if (c < 0) lo = mid + 1; else hi = mid - 1;
+                }
+            }
+            return null;
+        } finally {
+            FIND.since(t0);
+        }
+    }
+
+    private static ByteBuffer record(FileChannel ch, int position) throws IOException {
+        ByteBuffer r = ByteBuffer.allocate(RECORD_BYTES);
+        long pos = (long) position * RECORD_BYTES;
+        while (r.hasRemaining()) {
+            if (ch.read(r, pos + r.position()) < 0) throw new IOException("Receipt index is truncated");
+        }
+        r.flip();
+        return r;
+    }
+
+    // one positioned read of the receipt, checked against the CRC in the record
+    private static String readReceipt(Path receiptFile, ByteBuffer record) throws IOException {
+        long offset = record.getLong(ID_BYTES);
+        int length = record.getInt(ID_BYTES + 8);
+        int expectedCrc = record.getInt(ID_BYTES + 12);
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try (FileChannel ch = FileChannel.open(receiptFile, StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, offset + buf.position()) < 0) {
+                    throw new IOException("Receipt file " + receiptFile.getFileName() + " is shorter than its index");
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Receipt in " + receiptFile.getFileName() + " at " + offset + " was changed after it was written");
+        }
+        return new String(buf.array(), StandardCharsets.UTF_8);
+    }
+
+    private static int compareId(ByteBuffer record, byte[] key) {
+        for (int i = 0; i < ID_BYTES; i++) {
+            int c = Integer.compare(record.get(i) & 0xFF, key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    private static byte[] idBytes(String transactionId) {
+        byte[] id = new byte[ID_BYTES];
+        Arrays.fill(id, (byte) ' ');
+        byte[] src = transactionId.trim().getBytes(StandardCharsets.US_ASCII);
+        if (src.length > ID_BYTES) {
+            throw new IllegalArgumentException("Transaction id longer than " + ID_BYTES + " characters: " + transactionId);
+        }
+        System.arraycopy(src, 0, id, 0, src.length);
+        return id;
+    }
+
+    private static Path sidecar(Path receiptFile) {
+        return Paths.get(receiptFile.toString() + ".idx");
+    }
+
+    private static void write(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SalesColumns - column files next to each sales partition, read through a memory mapping.
+ *
+ * data/sales/yyyy/MM/part.<n>.col holds the rows of part.csv (journal applied) column by column:
+ * epoch-day, outlet, model, employee, payment method and quantity as ints, subtotal as long
+ * cents. Outlet, model, employee and payment method are dictionary codes; the few distinct
+ * strings are stored once in the file header. Rows are sorted by day, so a date range is a
+ * binary search plus a loop over plain ints and longs, with no parsing and no objects per row.
+ *
+ * Layout (little endian):
+ *   int magic, long source partition size, long its modified time, long journal stamp, int rows,
+ *   4 dictionaries (int count, then int length + UTF-8 bytes per entry), padding to 8,
+ *   int day[rows], outlet[rows], model[rows], employee[rows], payment[rows], quantity[rows],
+ *   long cents[rows]
+ * The journal stamp is a checksum of the journal records that change this month (SalesJournal.stamp),
+ * so an edit to one month does not rebuild the others. A column file whose recorded stamps no
+ * longer match its partition and its journal records is rebuilt from the CSV on the next query
+ * (for past months that practically never happens).
+ *
+ * Column files are never replaced in place: a rebuild writes the next generation n, and older
+ * generations are deleted once nothing maps them any more (Windows refuses to delete or replace
+ * a mapped file). part.col of earlier versions counts as generation 0.
+ */
+public class SalesColumns {
+
+    private static final String COLUMN_GLOB = "part*.col";
+    private static final int MAGIC = 0x53434c31; // "SCL1"
+
+    /** The column view of one month. Codes index the dictionary of the same segment. */
+    public static final class Segment {
+        private final YearMonth month;
+        private final long sourceBytes;
+        private final long sourceModified;
+        private final long journalStamp;
+        private final int rows;
+        private final String[] outlets;
+        private final String[] models;
+        private final String[] employees;
+        private final String[] payments;
+        private final IntBuffer day;
+        private final IntBuffer outlet;
+        private final IntBuffer model;
+        private final IntBuffer employee;
+        private final IntBuffer payment;
+        private final IntBuffer quantity;
+        private final LongBuffer cents;
+
+        private Segment(YearMonth month, MappedByteBuffer buf) {
+            this.month = month;
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGIC) throw new IllegalStateException("not a sales column file");
+            sourceBytes = buf.getLong();
+            sourceModified = buf.getLong();
+            journalStamp = buf.getLong();
+            rows = buf.getInt();
+            outlets = readDictionary(buf);
+            models = readDictionary(buf);
+            employees = readDictionary(buf);
+            payments = readDictionary(buf);
+            buf.position(align8(buf.position()));
+            day = intColumn(buf);
+            outlet = intColumn(buf);
+            model = intColumn(buf);
+            employee = intColumn(buf);
+            payment = intColumn(buf);
+            quantity = intColumn(buf);
+            cents = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+
+        private IntBuffer intColumn(ByteBuffer buf) {
+            IntBuffer col = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            col.limit(rows);
+            buf.position(buf.position() + rows * 4);
+            return col;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public int rows() { return rows; }
+
+        public int day(int row) { return day.get(row); }
+        public int outlet(int row) { return outlet.get(row); }
+        public int model(int row) { return model.get(row); }
+        public int employee(int row) { return employee.get(row); }
+        public int payment(int row) { return payment.get(row); }
+        public int quantity(int row) { return quantity.get(row); }
+        public long cents(int row) { return cents.get(row); }
+
+        public int outletCount() { return outlets.length; }
+        public int modelCount() { return models.length; }
+        public String outletName(int code) { return outlets[code]; }
+        public String modelName(int code) { return models[code]; }
+        public String employeeName(int code) { return employees[code]; }
+        public String paymentName(int code) { return payments[code]; }
+
+        /** First row whose day is on or after epochDay (rows() if there is none). */
+        public int firstRowOnOrAfter(long epochDay) {
+            int lo = 0;
+            int hi = rows;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day.get(mid) < epochDay) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    // month -> mapped column file; replaced when the partition or its journal records change
+    private static final Map<YearMonth, Segment> OPEN = new HashMap<>();
+
+    //QUERY
+
+    /** Column segments of the months holding sales between from and to (build or refresh as needed). */
+    public static List<Segment> segments(LocalDate from, LocalDate to) throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            return open(SalesPartitions.overlapping(from, to));
+        }
+    }
+
+    /** Column segments of every month. */
+    public static List<Segment> all() throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            return open(SalesPartitions.all());
+        }
+    }
+
+    private static List<Segment> open(List<SalesPartitions.Partition> partitions) throws IOException {
+        List<Segment> out = new ArrayList<>(partitions.size());
+        for (SalesPartitions.Partition p : partitions) {
+            long journal = SalesJournal.stamp(p.getMonth());
+            long source = Files.size(p.getPath());
+            long modified = Files.getLastModifiedTime(p.getPath()).toMillis();
+            Segment seg = OPEN.get(p.getMonth());
+            if (!matches(seg, source, modified, journal)) {
+                seg = map(p);
+                if (!matches(seg, source, modified, journal)) {
+                    build(p, source, modified, journal);
+                    seg = map(p);
+                    if (seg == null) throw new IOException("Could not map the column file of " + p.getPath());
+                }
+                OPEN.put(p.getMonth(), seg);
+            }
+            out.add(seg);
+        }
+        return out;
+    }
+
+    private static boolean matches(Segment seg, long source, long modified, long journal) {
+        return seg != null && seg.sourceBytes == source && seg.sourceModified == modified && seg.journalStamp == journal;
+    }
+
+    // Map the newest column file of a partition; null if there is none or it is unreadable
+    private static Segment map(SalesPartitions.Partition p) throws IOException {
+        TreeMap<Long, Path> files = generations(p.getPath());
+        if (files.isEmpty()) return null;
+        Path file = files.lastEntry().getValue();
+        deleteOlder(files);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed; the file itself is never rewritten
+            return new Segment(p.getMonth(), ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Sales column file " + file + " unreadable, rebuilding: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Forget the column files of a partition that was removed (caller holds SalesJournal.BASE_LOCK). */
+    static void discard(YearMonth month, Path partition) throws IOException {
+        OPEN.remove(month);
+        for (Path file : generations(partition).values()) {
+            deleteQuietly(file);
+        }
+    }
+
+    // column files next to a partition by generation
+    private static TreeMap<Long, Path> generations(Path partition) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        Path dir = partition.getParent();
+        if (dir == null || !Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, COLUMN_GLOB)) {
+            for (Path file : stream) {
+                long generation = generation(file.getFileName().toString());
+                if (generation >= 0) files.put(generation, file);
+            }
+        }
+        return files;
+    }
+
+    // part.col -> 0, part.<n>.col -> n, anything else -> -1
+    private static long generation(String name) {
+        if (name.equals("part.col")) return 0;
+        if (!name.startsWith("part.") || !name.endsWith(".col")) return -1;
+        try {
+            return Long.parseLong(name.substring(5, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // every generation but the newest; one still mapped (on Windows) is left for a later call
+    private static void deleteOlder(TreeMap<Long, Path> files) {
+        for (Path file : files.headMap(files.lastKey()).values()) {
+            deleteQuietly(file);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // still mapped; deleted by a later rebuild or query
+        }
+    }
+
+    //BUILD
+
+    // Parse the partition once (journal applied) and write its columns (temp file + atomic rename)
+    private static void build(SalesPartitions.Partition p, long source, long modified, long journal) throws IOException {
+        List<Sales> sales = SalesJournal.applyTo(p.getMonth(), DataLoader.loadSalesFile(p.getPath().toString()));
+
+        int n = 0;
+        int[] day = new int[sales.size()];
+        Sales[] kept = new Sales[sales.size()];
+        for (Sales s : sales) {
+            try {
+                day[n] = (int) LocalDate.parse(s.getDate().trim()).toEpochDay();
+                kept[n++] = s;
+            } catch (RuntimeException e) {
+                System.err.println("Skipping unreadable sales record " + s.getSaleID() + ": " + e.getMessage());
+            }
+        }
+
+        // sort by day, keeping file order within a day
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(day[a], day[b]));
+
+        Dictionary outlets = new Dictionary();
+        Dictionary models = new Dictionary();
+        Dictionary employees = new Dictionary();
+        Dictionary payments = new Dictionary();
+        int[][] codes = new int[4][n];
+        for (int r = 0; r < n; r++) {
+            Sales s = kept[order[r]];
+            codes[0][r] = outlets.code(s.getOutletCode());
+            codes[1][r] = models.code(s.getModel());
+            codes[2][r] = employees.code(s.getEmployeeID());
+            codes[3][r] = payments.code(s.getTransactionMethod());
+        }
+
+        int header = 4 + 8 + 8 + 8 + 4 + outlets.bytes() + models.bytes() + employees.bytes() + payments.bytes();
+        ByteBuffer buf = ByteBuffer.allocate(align8(header) + n * (6 * 4 + 8)).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC);
+        buf.putLong(source);
+        buf.putLong(modified);
+        buf.putLong(journal);
+        buf.putInt(n);
+        outlets.writeTo(buf);
+        models.writeTo(buf);
+        employees.writeTo(buf);
+        payments.writeTo(buf);
+        buf.position(align8(buf.position()));
+        for (int r = 0; r < n; r++) buf.putInt(day[order[r]]);
+        for (int c = 0; c < 4; c++) {
+            for (int r = 0; r < n; r++) buf.putInt(codes[c][r]);
+        }
+        for (int r = 0; r < n; r++) buf.putInt(kept[order[r]].getQuantity());
+        for (int r = 0; r < n; r++) buf.putLong(kept[order[r]].getSubtotal());
+        buf.flip();
+
+        TreeMap<Long, Path> files = generations(p.getPath());
+        long next = files.isEmpty() ? 1 : files.lastKey() + 1;
+        Path file = p.getPath().resolveSibling("part." + next + ".col");
+        Path tmp = Files.createTempFile(file.getParent(), "part-", ".col.tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+        }
+        // a new name, so a mapping of the previous generation never blocks the move
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(tmp, file);
+        }
+    }
+
+    // distinct strings of one column, code = position of first appearance
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+
+        int code(String value) {
+            String v = value == null ? "" : value.trim();
+            Integer c = codes.get(v);
+            if (c == null) {
+                c = values.size();
+                codes.put(v, c);
+                values.add(v.getBytes(StandardCharsets.UTF_8));
+            }
+            return c;
+        }
+
+        int bytes() {
+            int total = 4;
+            for (byte[] v : values) total += 4 + v.length;
+            return total;
+        }
+
+        void writeTo(ByteBuffer buf) {
+            buf.putInt(values.size());
+            for (byte[] v : values) {
+                buf.putInt(v.length);
+                buf.put(v);
+            }
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buf) {
+        String[] values = new String[buf.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[buf.getInt()];
+            buf.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int align8(int position) {
+        return (position + 7) & ~7;
+    }
+}
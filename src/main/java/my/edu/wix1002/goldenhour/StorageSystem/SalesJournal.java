@@ -0,0 +1,442 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * SalesJournal - append-only log of edits and deletions made to the sales rows.
+ *
+ * New sales are still appended to the monthly partitions (the "base", see SalesPartitions). Edits and deletions
+ * no longer rewrite the base file; they are appended here as small records instead:
+ * - UPSERT    : the new version of one sales row, keyed by SaleID + line
+ * - TOMBSTONE : removes every row of a SaleID (with the sale's date, to find its partition)
+ *
+ * Each record on disk is framed as [int length][int crc32][payload] so a record that was
+ * only half written (crash, power loss) is detected and cut off on the next start.
+ *
+ * Readers see the latest version of each row through applyTo(base). A background
+ * compactor periodically folds the journal into the partitions it touches and empties the journal;
+ * the other months are not read.
+ */
+public class SalesJournal {
+
+    private static final Path JOURNAL_PATH = Paths.get("data", "sales.journal");
+
+    private static final byte UPSERT = 1;
+    private static final byte TOMBSTONE = 2;
+
+    // compact every few minutes, or earlier once the journal holds this many records
+    private static final long COMPACT_INTERVAL_MINUTES = 5;
+    private static final int COMPACT_THRESHOLD = 1000;
+
+    /*
+     * Anything that writes a sales partition must hold this lock, otherwise a row appended
+     * while the compactor is rewriting that partition would be lost by the rename.
+     */
+    public static final Object BASE_LOCK = new Object();
+
+    private static FileChannel channel;
+    private static int recordCount;
+
+    // per-month checksums of the journal records (see stamp), for the journal length they were computed at
+    private static Map<YearMonth, Long> monthStamps = new HashMap<>();
+    private static long anyMonthStamp;
+    private static long stampedLength = -1;
+
+    private static final ScheduledExecutorService COMPACTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sales-journal-compactor");
+        t.setDaemon(true); // never keep the program alive just for compaction
+        return t;
+    });
+
+    static {
+        try {
+            open();
+        } catch (IOException e) {
+            System.err.println("Error opening sales journal: " + e.getMessage());
+        }
+        COMPACTOR.scheduleWithFixedDelay(SalesJournal::compactQuietly,
+                COMPACT_INTERVAL_MINUTES, COMPACT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    // Open the journal and cut off a torn record at the end (if any) so new appends stay aligned
+    private static void open() throws IOException {
+        Path parent = JOURNAL_PATH.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(JOURNAL_PATH, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        List<byte[]> records = new ArrayList<>();
+        long validLength = readRecords(records);
+        if (validLength < channel.size()) {
+            System.err.println("Warning: sales journal had an incomplete record, truncating it.");
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        recordCount = records.size();
+    }
+
+    //APPEND
+
+    /** Record the new version of one sales row (after an edit). */
+    public static void appendUpsert(Sales sale) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(UPSERT);
+        out.writeUTF(sale.getSaleID());
+        out.writeInt(sale.getLine());
+        for (String col : StoreManager.toSalesRow(sale)) {
+            out.writeUTF(col == null ? "" : col);
+        }
+        append(bytes.toByteArray());
+    }
+
+    /** Record that every row of this SaleID (sold on the given date) has been removed. */
+    public static void appendTombstone(String saleId, LocalDate date) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TOMBSTONE);
+        out.writeUTF(saleId);
+        out.writeInt(-1);
+        out.writeUTF(date.toString());
+        append(bytes.toByteArray());
+    }
+
+    private static void append(byte[] payload) throws IOException {
+        boolean compactNow;
+        synchronized (SalesJournal.class) {
+            if (channel == null) {
+                open();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+            frame.putInt(payload.length);
+            frame.putInt((int) crc.getValue());
+            frame.put(payload);
+            frame.flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            // edits are rare and must survive a crash, so force every record
+            channel.force(false);
+            recordCount++;
+            compactNow = recordCount >= COMPACT_THRESHOLD;
+        }
+        if (compactNow) {
+            COMPACTOR.execute(SalesJournal::compactQuietly);
+        }
+    }
+
+    //READ
+
+    // Read every complete record from the start of the journal; returns the byte length that was valid
+    private static long readRecords(List<byte[]> records) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (pos + 8 <= size) {
+            header.clear();
+            channel.read(header, pos);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || pos + 8 + length > size) {
+                break; // torn tail
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, pos + 8);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            records.add(payload.array());
+            pos += 8 + length;
+        }
+        return pos;
+    }
+
+    /**
+     * Apply the journal on top of the rows loaded from the base file.
+     * Rows keep their original order; rows that only exist in the journal go to the end.
+     */
+    public static List<Sales> applyTo(List<Sales> base) {
+        Replay replay = replay();
+        if (replay == null) return base;
+        Map<String, Sales> pending = new LinkedHashMap<>(replay.upserts);
+        List<Sales> merged = merge(base, pending, replay.deleted);
+        merged.addAll(pending.values());
+        return merged;
+    }
+
+    /**
+     * Apply the journal to the rows of one month's partition: rows that only exist in the
+     * journal are added at the end when their date is in that month.
+     */
+    static List<Sales> applyTo(YearMonth month, List<Sales> base) {
+        Replay replay = replay();
+        if (replay == null) return base;
+        Map<String, Sales> pending = new LinkedHashMap<>(replay.upserts);
+        List<Sales> merged = merge(base, pending, replay.deleted);
+        for (Sales s : pending.values()) {
+            if (month.equals(monthOf(s.getDate()))) merged.add(s);
+        }
+        return merged;
+    }
+
+    // The journal read once and replayed in order (later records win); null if it is empty or unreadable
+    private static Replay replay() {
+        List<byte[]> records = new ArrayList<>();
+        synchronized (SalesJournal.class) {
+            try {
+                if (channel == null) {
+                    open();
+                }
+                readRecords(records);
+            } catch (IOException e) {
+                System.err.println("Error reading sales journal: " + e.getMessage());
+                return null;
+            }
+        }
+        if (records.isEmpty()) {
+            return null;
+        }
+
+        Replay replay = new Replay();
+        Map<String, List<String>> keysBySaleId = new HashMap<>();
+        for (byte[] record : records) {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+                byte type = in.readByte();
+                String saleId = in.readUTF();
+                int line = in.readInt();
+
+                if (type == TOMBSTONE) {
+                    replay.deleted.add(saleId);
+                    List<String> keys = keysBySaleId.remove(saleId);
+                    if (keys != null) {
+                        for (String k : keys) replay.upserts.remove(k);
+                    }
+                    // tombstones written before they carried the date could be in any month
+                    replay.touch(in.available() > 0 ? monthOf(in.readUTF()) : null, record);
+                } else if (type == UPSERT) {
+                    String[] cols = new String[11];
+                    for (int i = 0; i < cols.length; i++) {
+                        cols[i] = in.readUTF();
+                    }
+                    Sales sale = DataLoader.toSales(cols);
+                    if (sale == null) continue;
+                    sale.setLine(line);
+                    String key = key(saleId, line);
+                    replay.upserts.put(key, sale);
+                    keysBySaleId.computeIfAbsent(saleId, k -> new ArrayList<>()).add(key);
+                    // the date of a sale cannot be edited, so the row lives in the partition of this date
+                    replay.touch(monthOf(sale.getDate()), record);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping unreadable sales journal record: " + e.getMessage());
+            }
+        }
+        return replay;
+    }
+
+    // latest upsert per row, deleted SaleIDs and the months they are in (with a checksum of their records)
+    private static final class Replay {
+        final Map<String, Sales> upserts = new LinkedHashMap<>();
+        final Set<String> deleted = new HashSet<>();
+        final Map<YearMonth, CRC32> months = new TreeMap<>();
+        final CRC32 anyMonth = new CRC32();
+        boolean anyMonthTouched;
+
+        void touch(YearMonth month, byte[] record) {
+            if (month == null) {
+                anyMonth.update(record);
+                anyMonthTouched = true;
+            } else {
+                months.computeIfAbsent(month, k -> new CRC32()).update(record);
+            }
+        }
+    }
+
+    // Rows of base with the journal applied; upserts that matched a row are removed from pending
+    private static List<Sales> merge(List<Sales> base, Map<String, Sales> pending, Set<String> deleted) {
+        List<Sales> merged = new ArrayList<>(base.size() + pending.size());
+        for (Sales s : base) {
+            String key = key(s.getSaleID(), s.getLine());
+            Sales newer = pending.remove(key);
+            if (newer != null) {
+                merged.add(newer);
+            } else if (!deleted.contains(s.getSaleID())) {
+                merged.add(s);
+            }
+        }
+        return merged;
+    }
+
+    private static YearMonth monthOf(String date) {
+        try {
+            return date == null ? null : YearMonth.from(LocalDate.parse(date.trim()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A checksum of the journal records that change the given month (0 when there are none),
+     * so a copy derived from that month's partition only goes stale when its own edits change.
+     */
+    static long stamp(YearMonth month) throws IOException {
+        synchronized (SalesJournal.class) {
+            if (channel == null) {
+                open();
+            }
+            if (channel.size() != stampedLength) {
+                Replay replay = replay();
+                monthStamps = new HashMap<>();
+                anyMonthStamp = 0;
+                if (replay != null) {
+                    for (Map.Entry<YearMonth, CRC32> e : replay.months.entrySet()) {
+                        monthStamps.put(e.getKey(), e.getValue().getValue());
+                    }
+                    anyMonthStamp = replay.anyMonth.getValue();
+                }
+                stampedLength = channel.size();
+            }
+            return (anyMonthStamp << 32) | monthStamps.getOrDefault(month, 0L);
+        }
+    }
+
+    /**
+     * The rows of one sale as readers see them now: the partition of its date with the journal
+     * applied. Only that month is read, and only when it has rows of the sale.
+     */
+    static List<Sales> rowsOf(String saleId, LocalDate date) throws IOException {
+        List<Sales> base = new ArrayList<>();
+        synchronized (BASE_LOCK) {
+            if (SalesPartitions.contains(saleId, date)) {
+                for (Sales s : DataLoader.loadSalesFile(SalesPartitions.pathOf(YearMonth.from(date)).toString())) {
+                    if (s.getSaleID().equals(saleId)) base.add(s);
+                }
+            }
+        }
+        Replay replay = replay();
+        if (replay == null) return base;
+        Map<String, Sales> pending = new LinkedHashMap<>();
+        for (Map.Entry<String, Sales> e : replay.upserts.entrySet()) {
+            if (e.getValue().getSaleID().equals(saleId)) pending.put(e.getKey(), e.getValue());
+        }
+        List<Sales> merged = merge(base, pending, replay.deleted);
+        merged.addAll(pending.values());
+        return merged;
+    }
+
+    private static String key(String saleId, int line) {
+        return saleId + "#" + line;
+    }
+
+    //COMPACT
+
+    /**
+     * Fold the journal into the partitions it changes (temp file + atomic rename each) and
+     * empty the journal. Only the months named by the journal records are read; rows that
+     * only exist in the journal are added to the partition of their date.
+     * Blocks appends to the partitions and the journal while it runs.
+     */
+    public static void compact() throws IOException {
+        synchronized (BASE_LOCK) {
+            synchronized (SalesJournal.class) {
+                if (channel == null) {
+                    open();
+                }
+                if (channel.size() == 0) {
+                    return;
+                }
+                Replay replay = replay();
+                if (replay != null) {
+                    fold(replay);
+                }
+
+                // only empty the journal once the new partitions are in place
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                recordCount = 0;
+                stampedLength = -1;
+                SalesRollup.invalidate();
+            }
+        }
+    }
+
+    private static void fold(Replay replay) throws IOException {
+        Map<YearMonth, List<Sales>> rows = new TreeMap<>();
+        Set<YearMonth> changed = new TreeSet<>();
+        Map<String, Sales> pending = new LinkedHashMap<>(replay.upserts);
+
+        for (SalesPartitions.Partition p : SalesPartitions.all()) {
+            if (!replay.anyMonthTouched && !replay.months.containsKey(p.getMonth())) continue;
+            List<Sales> base = DataLoader.loadSalesFile(p.getPath().toString());
+            List<Sales> merged = merge(base, pending, replay.deleted);
+            // rows the journal left alone come back as the same objects
+            boolean same = merged.size() == base.size();
+            for (int i = 0; same && i < merged.size(); i++) {
+                same = merged.get(i) == base.get(i);
+            }
+            rows.put(p.getMonth(), merged);
+            if (!same) changed.add(p.getMonth());
+        }
+
+        for (Sales s : pending.values()) {
+            YearMonth month = monthOf(s.getDate());
+            if (month == null) {
+                System.err.println("Warning: edited sales row " + s.getSaleID() + " has no valid date, not kept.");
+                continue;
+            }
+            rows.computeIfAbsent(month, k -> new ArrayList<>()).add(s);
+            changed.add(month);
+        }
+
+        for (YearMonth month : changed) {
+            SalesPartitions.rewrite(month, rows.get(month));
+        }
+    }
+
+    private static void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            System.err.println("Error compacting sales journal: " + e.getMessage());
+        }
+    }
+}
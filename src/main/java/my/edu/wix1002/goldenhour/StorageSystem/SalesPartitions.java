@@ -0,0 +1,559 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.CsvParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SalesPartitions - sales rows stored per calendar month instead of one ever-growing sales.csv.
+ *
+ * Every month is its own CSV with the usual header and columns, e.g. data/sales/2025/12/part.csv.
+ * data/sales/manifest.csv lists each partition with its first and last sale date, row count and
+ * file size:
+ *   Partition,MinDate,MaxDate,Rows,Bytes
+ *   2025/12,2025-12-11,2025-12-19,5,612
+ * A date-range query opens only the partitions whose [MinDate, MaxDate] overlaps the range.
+ *
+ * - New rows are appended to the partition of their date. The manifest (temp file + atomic
+ *   rename; one line per month) is only rewritten when a month is created, which also seals the
+ *   month before it, or rewritten; in between, the open month's line lags behind its file.
+ * - A partition whose size does not match the manifest (the open month, a crash, edited by hand)
+ *   is rescanned when the manifest is loaded.
+ * - The old data/sales.csv is split into partitions on first use and kept as sales.csv.migrated.
+ *   A month that already has a partition gets only the rows it is missing. Until that has
+ *   worked, writes fail instead of adding rows next to an unmigrated sales.csv.
+ *
+ * All writers hold SalesJournal.BASE_LOCK, like they did for sales.csv.
+ */
+public class SalesPartitions {
+
+    private static final Path SALES_DIR = Paths.get("data", "sales");
+    private static final Path MANIFEST_PATH = SALES_DIR.resolve("manifest.csv");
+    private static final Path LEGACY_PATH = Paths.get("data", "sales.csv");
+    private static final Path MIGRATED_PATH = Paths.get("data", "sales.csv.migrated");
+    private static final String PART_FILE = "part.csv";
+    private static final String HEADER = "SaleID,EmployeeID,OutletCode,CustomerName,Model,Quantity,UnitPrice,Subtotal,PaymentMethod,Date,Time\n";
+    private static final int DATE_COLUMN = 9;
+
+    /** One month of sales: where it is and what the manifest knows about it. */
+    public static final class Partition {
+        private final YearMonth month;
+        private long minDay = Long.MAX_VALUE;
+        private long maxDay = Long.MIN_VALUE;
+        private long rows;
+        private long bytes;
+
+        Partition(YearMonth month) {
+            this.month = month;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public LocalDate getMinDate() { return rows == 0 ? null : LocalDate.ofEpochDay(minDay); }
+        public LocalDate getMaxDate() { return rows == 0 ? null : LocalDate.ofEpochDay(maxDay); }
+        public long getRows() { return rows; }
+        public Path getPath() { return pathOf(month); }
+
+        /** "2025/12", also the directory below data/sales. */
+        public String getName() { return nameOf(month); }
+
+        boolean overlaps(long fromDay, long toDay) {
+            return rows > 0 && minDay <= toDay && maxDay >= fromDay;
+        }
+
+        void addDay(long day) {
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+            rows++;
+        }
+    }
+
+    private static final TreeMap<YearMonth, Partition> MANIFEST = new TreeMap<>();
+    private static boolean loaded;
+
+    // SaleIDs of the months TransactionLog recovery asked about, kept up to date by append and rewrite
+    private static final Map<YearMonth, Set<String>> SALE_IDS = new HashMap<>();
+
+    //QUERY
+
+    /** Every partition, oldest month first. */
+    public static List<Partition> all() {
+        synchronized (SalesJournal.BASE_LOCK) {
+            ensureLoaded();
+            return new ArrayList<>(MANIFEST.values());
+        }
+    }
+
+    /** The partitions holding at least one sale between from and to, inclusive. */
+    public static List<Partition> overlapping(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        List<Partition> out = new ArrayList<>();
+        synchronized (SalesJournal.BASE_LOCK) {
+            ensureLoaded();
+            // months outside the range cannot overlap; min/max dates prune the rest
+            for (Partition p : MANIFEST.subMap(YearMonth.from(from), true, YearMonth.from(to), true).values()) {
+                if (p.overlaps(fromDay, toDay)) out.add(p);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Whether the partition of the date has rows of the sale (TransactionLog recovery). The month's
+     * SaleID column is read once; later calls are a set lookup.
+     */
+    static boolean contains(String saleId, LocalDate date) throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            load();
+            YearMonth month = YearMonth.from(date);
+            Set<String> ids = SALE_IDS.get(month);
+            if (ids == null) {
+                ids = readSaleIds(month);
+                SALE_IDS.put(month, ids);
+            }
+            return ids.contains(saleId);
+        }
+    }
+
+    private static Set<String> readSaleIds(YearMonth month) throws IOException {
+        Set<String> ids = new HashSet<>();
+        Path path = pathOf(month);
+        if (!Files.exists(path)) return ids;
+        CsvParser.parseFile(path, new CsvParser.RowHandler() {
+            public void field(CsvParser.Field f) {
+                if (f.row() > 0 && f.column() == 0) ids.add(f.asString());
+            }
+
+            public boolean endRow(int row, long start, long end) {
+                return true;
+            }
+        });
+        return ids;
+    }
+
+    //APPEND
+
+    /**
+     * Append sales rows (the 11 columns of sales.csv, Date in yyyy-MM-dd) to the partitions
+     * of their dates, then update the sales rollup (and the manifest when a month was created).
+     * Returns the bytes written.
+     */
+    public static long append(List<String[]> rows) throws IOException {
+        return append(rows, false);
+    }
+
+    /** Same, with force: the rows (and a new partition's directory entry) are on disk when it returns. */
+    static long append(List<String[]> rows, boolean force) throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            load();
+            // parse every date first, so a bad row rejects the whole sale before anything is written
+            LocalDate[] dates = new LocalDate[rows.size()];
+            for (int i = 0; i < dates.length; i++) {
+                dates[i] = LocalDate.parse(rows.get(i)[DATE_COLUMN].trim());
+            }
+            Map<YearMonth, StringBuilder> byMonth = new TreeMap<>();
+            boolean created = false;
+            for (int i = 0; i < dates.length; i++) {
+                YearMonth month = YearMonth.from(dates[i]);
+                GroupCommitWriter.appendRow(byMonth.computeIfAbsent(month, k -> new StringBuilder()), rows.get(i));
+                Partition p = MANIFEST.get(month);
+                if (p == null) {
+                    p = new Partition(month);
+                    MANIFEST.put(month, p);
+                    created = true;
+                }
+                p.addDay(dates[i].toEpochDay());
+            }
+            long written = 0;
+            try {
+                for (Map.Entry<YearMonth, StringBuilder> e : byMonth.entrySet()) {
+                    Partition p = MANIFEST.get(e.getKey());
+                    long before = p.bytes;
+                    p.bytes = appendToFile(p.getPath(), e.getValue().toString(), force);
+                    written += p.bytes - before;
+                }
+                for (int i = 0; i < dates.length; i++) {
+                    Set<String> ids = SALE_IDS.get(YearMonth.from(dates[i]));
+                    if (ids != null) ids.add(rows.get(i)[0]);
+                }
+            } finally {
+                // counts were bumped before the write; a failed write is corrected by the size check on next load
+                if (created) {
+                    writeManifest();
+                }
+            }
+            SalesRollup.catchUp();
+            return written;
+        }
+    }
+
+    //REWRITE
+
+    /**
+     * Replace the rows of one month (used by the journal compactor and full saves).
+     * An empty list removes the partition.
+     */
+    static void rewrite(YearMonth month, List<Sales> sales) throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            load();
+            SALE_IDS.remove(month);
+            Path path = pathOf(month);
+            if (sales.isEmpty()) {
+                Files.deleteIfExists(path);
+                // and its column files (SalesColumns), so a later partition of that month cannot match them
+                SalesColumns.discard(month, path);
+                MANIFEST.remove(month);
+            } else {
+                Files.createDirectories(path.getParent());
+                Path tmp = Files.createTempFile(path.getParent(), "part-", ".tmp");
+                StoreManager.writeSalesFile(tmp, sales);
+                // forced: the journal compactor truncates the journal right after this
+                FileSync.replace(tmp, path);
+                MANIFEST.put(month, scan(month));
+            }
+            writeManifest();
+        }
+    }
+
+    /** Replace every partition with the given rows, grouped by month. */
+    static void rewriteAll(List<Sales> sales) throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            load();
+            Map<YearMonth, List<Sales>> byMonth = new TreeMap<>();
+            for (Sales s : sales) {
+                byMonth.computeIfAbsent(YearMonth.from(LocalDate.parse(s.getDate().trim())), k -> new ArrayList<>()).add(s);
+            }
+            for (YearMonth month : new ArrayList<>(MANIFEST.keySet())) {
+                if (!byMonth.containsKey(month)) rewrite(month, new ArrayList<>());
+            }
+            for (Map.Entry<YearMonth, List<Sales>> e : byMonth.entrySet()) {
+                rewrite(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    //MIGRATION
+
+    /**
+     * Split data/sales.csv into monthly partitions (rows keep their order, so the journal's
+     * SaleID + line keys still match) and rename it to sales.csv.migrated. Runs on first use;
+     * does nothing when there is no sales.csv. A partition that already exists (a migration cut
+     * short, or a sales.csv put back next to partitions) is never replaced: rows of sales.csv it
+     * does not have yet are appended to it.
+     */
+    public static void migrate() throws IOException {
+        synchronized (SalesJournal.BASE_LOCK) {
+            if (!Files.exists(LEGACY_PATH)) return;
+            System.out.println("Splitting data/sales.csv into monthly partitions...");
+
+            Map<YearMonth, List<String[]>> byMonth = new TreeMap<>();
+            int[] skipped = {0};
+            CsvParser.parseFile(LEGACY_PATH, new CsvParser.RowHandler() {
+                final String[] cols = new String[11];
+                int count;
+
+                public void field(CsvParser.Field f) {
+                    if (f.column() < cols.length) cols[f.column()] = f.asString();
+                    count = f.column() + 1;
+                }
+
+                public boolean endRow(int row, long start, long end) {
+                    if (row > 0) {
+                        LocalDate date = count > DATE_COLUMN ? parseDate(cols[DATE_COLUMN]) : null;
+                        if (date == null) {
+                            skipped[0]++;
+                        } else {
+                            for (int i = count; i < cols.length; i++) cols[i] = "";
+                            byMonth.computeIfAbsent(YearMonth.from(date), k -> new ArrayList<>()).add(cols.clone());
+                        }
+                    }
+                    count = 0;
+                    return true;
+                }
+            });
+
+            for (Map.Entry<YearMonth, List<String[]>> e : byMonth.entrySet()) {
+                Path path = pathOf(e.getKey());
+                if (Files.exists(path)) {
+                    int merged = mergeInto(path, e.getValue());
+                    if (merged > 0) {
+                        System.err.println("Warning: " + path + " already existed; " + merged
+                                + " rows of data/sales.csv it did not have were appended to it.");
+                    }
+                    continue;
+                }
+                StringBuilder sb = new StringBuilder(HEADER);
+                for (String[] row : e.getValue()) {
+                    GroupCommitWriter.appendRow(sb, row);
+                }
+                Files.createDirectories(path.getParent());
+                Path tmp = Files.createTempFile(path.getParent(), "part-", ".tmp");
+                Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+                FileSync.replace(tmp, path);
+            }
+            move(LEGACY_PATH, MIGRATED_PATH);
+            if (skipped[0] > 0) {
+                System.err.println("Warning: " + skipped[0] + " sales rows without a valid date were not migrated; "
+                        + "they are still in " + MIGRATED_PATH);
+            }
+
+            MANIFEST.clear();
+            SALE_IDS.clear();
+            scanAll();
+            writeManifest();
+            loaded = true;
+            SalesRollup.invalidate();
+        }
+    }
+
+    // Append the rows the partition does not have yet (compared field by field, duplicates counted); returns how many
+    private static int mergeInto(Path path, List<String[]> rows) throws IOException {
+        Map<List<String>, Integer> present = new HashMap<>();
+        CsvParser.parseFile(path, new CsvParser.RowHandler() {
+            final String[] cols = new String[11];
+            int count;
+
+            public void field(CsvParser.Field f) {
+                if (f.column() < cols.length) cols[f.column()] = f.asString();
+                count = f.column() + 1;
+            }
+
+            public boolean endRow(int row, long start, long end) {
+                if (row > 0) {
+                    for (int i = count; i < cols.length; i++) cols[i] = "";
+                    present.merge(List.of(cols.clone()), 1, Integer::sum);
+                }
+                count = 0;
+                return true;
+            }
+        });
+        StringBuilder missing = new StringBuilder();
+        int merged = 0;
+        for (String[] row : rows) {
+            List<String> key = List.of(row);
+            Integer n = present.get(key);
+            if (n != null) {
+                if (n == 1) present.remove(key); else present.put(key, n - 1);
+                continue;
+            }
+            GroupCommitWriter.appendRow(missing, row);
+            merged++;
+        }
+        if (merged > 0) {
+            appendToFile(path, missing.toString(), true);
+        }
+        return merged;
+    }
+
+    //MANIFEST
+
+    // Migrate sales.csv and read the manifest, once; stays unloaded while that fails, so writers fail too
+    private static void load() throws IOException {
+        if (loaded) return;
+        migrate();
+        readManifest();
+        loaded = true;
+    }
+
+    // Readers go on with the partitions that could be read
+    private static void ensureLoaded() {
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading sales partitions: " + e.getMessage());
+        }
+    }
+
+    // Read the manifest; partitions missing from it or with a different size are rescanned
+    private static void readManifest() throws IOException {
+        MANIFEST.clear();
+        if (Files.exists(MANIFEST_PATH)) {
+            CsvParser.parseSmallFile(MANIFEST_PATH, new CsvParser.RowHandler() {
+                final String[] cols = new String[5];
+                int count;
+
+                public void field(CsvParser.Field f) {
+                    if (f.column() < cols.length) cols[f.column()] = f.asString();
+                    count = f.column() + 1;
+                }
+
+                public boolean endRow(int row, long start, long end) {
+                    if (row > 0 && count >= 5) {
+                        try {
+                            Partition p = new Partition(YearMonth.parse(cols[0].trim().replace('/', '-')));
+                            p.minDay = LocalDate.parse(cols[1].trim()).toEpochDay();
+                            p.maxDay = LocalDate.parse(cols[2].trim()).toEpochDay();
+                            p.rows = Long.parseLong(cols[3].trim());
+                            p.bytes = Long.parseLong(cols[4].trim());
+                            MANIFEST.put(p.month, p);
+                        } catch (RuntimeException e) {
+                            System.err.println("Skipping unreadable sales manifest line " + row + ": " + e.getMessage());
+                        }
+                    }
+                    count = 0;
+                    return true;
+                }
+            });
+        }
+
+        boolean changed = false;
+        for (YearMonth month : listMonths()) {
+            Partition known = MANIFEST.get(month);
+            if (known == null || known.bytes != Files.size(pathOf(month))) {
+                MANIFEST.put(month, scan(month));
+                changed = true;
+            }
+        }
+        // partitions that were removed by hand
+        changed |= MANIFEST.keySet().removeIf(month -> !Files.exists(pathOf(month)));
+        if (changed) {
+            writeManifest();
+        }
+    }
+
+    private static void writeManifest() throws IOException {
+        StringBuilder sb = new StringBuilder("Partition,MinDate,MaxDate,Rows,Bytes\n");
+        for (Partition p : MANIFEST.values()) {
+            if (p.rows == 0) continue;
+            sb.append(p.getName()).append(',')
+              .append(p.getMinDate()).append(',')
+              .append(p.getMaxDate()).append(',')
+              .append(p.rows).append(',')
+              .append(p.bytes).append('\n');
+        }
+        Files.createDirectories(SALES_DIR);
+        Path tmp = Files.createTempFile(SALES_DIR, "manifest-", ".tmp");
+        Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        move(tmp, MANIFEST_PATH);
+    }
+
+    private static void scanAll() throws IOException {
+        for (YearMonth month : listMonths()) {
+            MANIFEST.put(month, scan(month));
+        }
+    }
+
+    // Row count and date range of one partition, read from the file itself
+    private static Partition scan(YearMonth month) throws IOException {
+        Partition p = new Partition(month);
+        Path path = pathOf(month);
+        p.bytes = Files.size(path);
+        CsvParser.parseFile(path, new CsvParser.RowHandler() {
+            long day = Long.MIN_VALUE;
+
+            public void field(CsvParser.Field f) {
+                if (f.row() > 0 && f.column() == DATE_COLUMN) day = f.asEpochDay();
+            }
+
+            public boolean endRow(int row, long start, long end) {
+                if (day != Long.MIN_VALUE) p.addDay(day);
+                day = Long.MIN_VALUE;
+                return true;
+            }
+        });
+        return p;
+    }
+
+    // months that have a data/sales/yyyy/MM/part.csv
+    private static List<YearMonth> listMonths() throws IOException {
+        List<YearMonth> months = new ArrayList<>();
+        if (!Files.isDirectory(SALES_DIR)) return months;
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(SALES_DIR, "[0-9][0-9][0-9][0-9]")) {
+            for (Path year : years) {
+                if (!Files.isDirectory(year)) continue;
+                try (DirectoryStream<Path> monthDirs = Files.newDirectoryStream(year, "[0-9][0-9]")) {
+                    for (Path m : monthDirs) {
+                        if (!Files.exists(m.resolve(PART_FILE))) continue;
+                        try {
+                            months.add(YearMonth.of(Integer.parseInt(year.getFileName().toString()),
+                                    Integer.parseInt(m.getFileName().toString())));
+                        } catch (RuntimeException e) {
+                            System.err.println("Ignoring sales partition " + m + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    //FILES
+
+    // Append text to a partition (header first for a new file); returns the new file size
+    private static long appendToFile(Path path, String rows, boolean force) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            StringBuilder sb = new StringBuilder(rows.length() + HEADER.length() + 1);
+            long size = ch.size();
+            if (size == 0) {
+                sb.append(HEADER);
+            } else {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                ch.read(last, size - 1);
+                if (last.get(0) != '\n') sb.append('\n');
+            }
+            sb.append(rows);
+            ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            long pos = size;
+            while (buf.hasRemaining()) {
+                pos += ch.write(buf, pos);
+            }
+            if (force) {
+                ch.force(false);
+                if (size == 0) {
+                    // a new month: its part.csv, MM and yyyy entries
+                    FileSync.forceDirectoryOf(path);
+                    FileSync.forceDirectoryOf(path.getParent());
+                    FileSync.forceDirectoryOf(path.getParent().getParent());
+                }
+            }
+            return pos;
+        }
+    }
+
+    private static LocalDate parseDate(String s) {
+        try {
+            return s == null ? null : LocalDate.parse(s.trim());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static Path pathOf(YearMonth month) {
+        return SALES_DIR.resolve(nameOf(month)).resolve(PART_FILE);
+    }
+
+    private static String nameOf(YearMonth month) {
+        return String.format("%04d/%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,489 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.util.CsvParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SalesRollup - sales totals per (outlet, model, day), kept up to date as sales are appended.
+ *
+ * Each day holds its cells (quantity and revenue in cents per outlet + model) plus the day
+ * totals, in a map sorted by epoch-day, so any date range costs O(days in range) instead of
+ * a scan of every sale.
+ *
+ * - SalesPartitions.append calls catchUp() while still holding SalesJournal.BASE_LOCK; it parses
+ *   only the bytes appended to each monthly partition since the last call, so the cube moves
+ *   with every committed sale.
+ *   The cube itself is guarded by BASE_LOCK too, so a query never sees half of an append.
+ * - Edits and removals (sales journal) are applied as a delta by applyEdit(): the old rows of
+ *   the sale are subtracted from their cells and the new ones added. Only when the old rows
+ *   cannot be read, or the journal changed behind the cube's back (compaction, another
+ *   instance), is the cube marked stale and rebuilt from the partitions + journal on the next query.
+ * - The cube is saved to data/sales_rollup.bin (compact binary) in the background and at exit.
+ *   The file records how much of each partition it covers, so on start only the missing tails
+ *   are parsed; if the file is missing or does not match, the cube is rebuilt.
+ */
+public class SalesRollup {
+
+    private static final Path ROLLUP_PATH = Paths.get("data", "sales_rollup.bin");
+    private static final Path JOURNAL_PATH = Paths.get("data", "sales.journal");
+
+    private static final int MAGIC = 0x53524332; // "SRC2" (per-partition coverage)
+
+    private static final long SAVE_INTERVAL_SECONDS = 30;
+
+    // quantity and revenue (cents) of one outlet + model on one day
+    private static final class Cell {
+        long quantity;
+        long cents;
+    }
+
+    private static final class Day {
+        long quantity;
+        long cents;
+        // key: outlet index << 32 | model index
+        final Map<Long, Cell> cells = new HashMap<>();
+    }
+
+    /** Quantity and revenue of one bucket (a day, week, month or model). */
+    public static final class Totals {
+        public long quantity;
+        public long cents;
+    }
+
+    /** Receives the cells of a date range. */
+    public interface CellVisitor {
+        void visit(long epochDay, String outletCode, String modelId, long quantity, long cents);
+    }
+
+    private static final TreeMap<Long, Day> DAYS = new TreeMap<>();
+    // outlet codes and model ids are stored once and referenced by index
+    private static final List<String> OUTLETS = new ArrayList<>();
+    private static final Map<String, Integer> OUTLET_INDEX = new HashMap<>();
+    private static final List<String> MODELS = new ArrayList<>();
+    private static final Map<String, Integer> MODEL_INDEX = new HashMap<>();
+
+    // partition name ("2025/12") -> bytes of it already folded in, and journal size the cube was built with
+    private static final Map<String, Long> COVERED = new HashMap<>();
+    private static long journalLength;
+    private static boolean loaded;
+    private static boolean stale;
+    private static boolean dirty;
+
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sales-rollup-saver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        SAVER.scheduleWithFixedDelay(SalesRollup::saveQuietly, SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(SalesRollup::saveQuietly, "sales-rollup-exit"));
+    }
+
+    //UPDATE
+
+    /**
+     * Fold the rows appended to the sales partitions since the last call into the cube.
+     * Call it right after appending, while still holding SalesJournal.BASE_LOCK.
+     */
+    public static void catchUp() {
+        synchronized (SalesJournal.BASE_LOCK) {
+            try {
+                ensureLoaded();
+                if (!stale) {
+                    foldTail();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error updating sales rollup: " + e.getMessage());
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * A sale was edited or removed through the journal: subtract its rows as they were (before)
+     * from their cells and add the new ones (after; empty for a removal). StoreManager calls
+     * catchUp() and reads the old rows before appending the journal record and this right after,
+     * all under SalesJournal.BASE_LOCK, so the cube covers exactly the journal before the record.
+     */
+    static void applyEdit(List<Sales> before, List<Sales> after) {
+        synchronized (SalesJournal.BASE_LOCK) {
+            // not built yet or stale: the next query builds it with the journal record included
+            if (!loaded || stale) return;
+            try {
+                for (Sales s : before) addRow(s, -1);
+                for (Sales s : after) addRow(s, 1);
+                journalLength = Files.exists(JOURNAL_PATH) ? Files.size(JOURNAL_PATH) : 0;
+                dirty = true;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error updating sales rollup: " + e.getMessage());
+                stale = true;
+            }
+        }
+    }
+
+    /** The cube no longer matches the partitions + journal: rebuild before the next query. */
+    public static void invalidate() {
+        synchronized (SalesJournal.BASE_LOCK) {
+            stale = true;
+            dirty = true;
+            // the saved cube no longer matches the partitions either
+            try {
+                Files.deleteIfExists(ROLLUP_PATH);
+            } catch (IOException e) {
+                System.err.println("Error removing sales rollup file: " + e.getMessage());
+            }
+        }
+    }
+
+    //QUERY
+
+    /** Visit every (outlet, model, day) cell between start and end, inclusive. */
+    public static void forEachCell(LocalDate start, LocalDate end, CellVisitor visitor) {
+        synchronized (SalesJournal.BASE_LOCK) {
+            for (Map.Entry<Long, Day> d : range(start, end).entrySet()) {
+                for (Map.Entry<Long, Cell> c : d.getValue().cells.entrySet()) {
+                    long key = c.getKey();
+                    visitor.visit(d.getKey(), OUTLETS.get((int) (key >>> 32)), MODELS.get((int) key),
+                            c.getValue().quantity, c.getValue().cents);
+                }
+            }
+        }
+    }
+
+    /** Totals per day between start and end (days without sales are left out). */
+    public static NavigableMap<LocalDate, Totals> dailyTotals(LocalDate start, LocalDate end) {
+        NavigableMap<LocalDate, Totals> out = new TreeMap<>();
+        synchronized (SalesJournal.BASE_LOCK) {
+            for (Map.Entry<Long, Day> d : range(start, end).entrySet()) {
+                Totals t = new Totals();
+                t.quantity = d.getValue().quantity;
+                t.cents = d.getValue().cents;
+                out.put(LocalDate.ofEpochDay(d.getKey()), t);
+            }
+        }
+        return out;
+    }
+
+    /** Totals per calendar month between start and end (key is the first day of the month). */
+    public static NavigableMap<LocalDate, Totals> monthlyTotals(LocalDate start, LocalDate end) {
+        NavigableMap<LocalDate, Totals> out = new TreeMap<>();
+        synchronized (SalesJournal.BASE_LOCK) {
+            for (Map.Entry<Long, Day> d : range(start, end).entrySet()) {
+                LocalDate month = LocalDate.ofEpochDay(d.getKey()).withDayOfMonth(1);
+                Totals t = out.computeIfAbsent(month, k -> new Totals());
+                t.quantity += d.getValue().quantity;
+                t.cents += d.getValue().cents;
+            }
+        }
+        return out;
+    }
+
+    private static NavigableMap<Long, Day> range(LocalDate start, LocalDate end) {
+        try {
+            ensureLoaded();
+            if (stale) {
+                rebuild();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading sales rollup: " + e.getMessage());
+        }
+        return DAYS.subMap(start.toEpochDay(), true, end.toEpochDay(), true);
+    }
+
+    //LOAD / REBUILD
+
+    private static void ensureLoaded() throws IOException {
+        if (loaded) return;
+        loaded = true;
+        if (!readFile()) {
+            rebuild();
+            return;
+        }
+        // rows appended while the cube was not running are picked up here
+        foldTail();
+    }
+
+    // Recompute from the column files of the partitions (journal applied)
+    private static void rebuild() throws IOException {
+        clear();
+        for (SalesColumns.Segment seg : SalesColumns.all()) {
+            // segment dictionary code -> cube index, resolved once per segment
+            int[] outlets = new int[seg.outletCount()];
+            for (int c = 0; c < outlets.length; c++) outlets[c] = index(seg.outletName(c), OUTLETS, OUTLET_INDEX);
+            int[] models = new int[seg.modelCount()];
+            for (int c = 0; c < models.length; c++) models[c] = index(seg.modelName(c), MODELS, MODEL_INDEX);
+            for (int r = 0, n = seg.rows(); r < n; r++) {
+                add(outlets[seg.outlet(r)], models[seg.model(r)], seg.day(r), seg.quantity(r), seg.cents(r));
+            }
+        }
+        COVERED.clear();
+        for (SalesPartitions.Partition p : SalesPartitions.all()) {
+            COVERED.put(p.getName(), lastCompleteRow(p.getPath(), Files.size(p.getPath())));
+        }
+        journalLength = Files.exists(JOURNAL_PATH) ? Files.size(JOURNAL_PATH) : 0;
+        stale = false;
+        dirty = true;
+    }
+
+    // Parse the part of every partition after its covered length (complete rows only)
+    private static void foldTail() throws IOException {
+        long journal = Files.exists(JOURNAL_PATH) ? Files.size(JOURNAL_PATH) : 0;
+        if (journal != journalLength) {
+            // the journal changed without applyEdit (compaction, another instance)
+            rebuild();
+            return;
+        }
+        List<SalesPartitions.Partition> partitions = SalesPartitions.all();
+        for (SalesPartitions.Partition p : partitions) {
+            if (Files.size(p.getPath()) < COVERED.getOrDefault(p.getName(), 0L)) {
+                // partition was rewritten (compaction, manual edit)
+                rebuild();
+                return;
+            }
+        }
+        if (partitions.size() < COVERED.size()) {
+            // a partition was removed
+            rebuild();
+            return;
+        }
+        for (SalesPartitions.Partition p : partitions) {
+            foldTail(p);
+        }
+    }
+
+    private static void foldTail(SalesPartitions.Partition p) throws IOException {
+        Path path = p.getPath();
+        long covered = COVERED.getOrDefault(p.getName(), 0L);
+        long end = lastCompleteRow(path, Files.size(path));
+        if (end <= covered) return;
+
+        ByteBuffer tail = ByteBuffer.allocate((int) (end - covered));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (tail.hasRemaining() && ch.read(tail, covered + tail.position()) > 0) { }
+        }
+        tail.flip();
+        boolean fromStart = covered == 0;
+        CsvParser.parse(tail, new CsvParser.RowHandler() {
+            String outlet;
+            String model;
+            int quantity;
+            long cents;
+            long day;
+            int count;
+
+            public void field(CsvParser.Field f) {
+                if (fromStart && f.row() == 0) return; // header
+                count = f.column() + 1;
+                switch (f.column()) {
+                    case 2: outlet = f.asString(); break;
+                    case 4: model = f.asString(); break;
+                    case 5: quantity = f.asInt(); break;
+                    case 7: cents = f.asCents(); break;
+                    case 9: day = f.asEpochDay(); break;
+                    default: break;
+                }
+            }
+
+            public boolean endRow(int row, long rowStart, long rowEnd) {
+                if (count >= 10 && day != Long.MIN_VALUE) {
+                    add(outlet, model, day, quantity, cents);
+                }
+                count = 0;
+                return true;
+            }
+        });
+        COVERED.put(p.getName(), end);
+        dirty = true;
+    }
+
+    // length of a partition up to and including the last line break (a row still being written is left out)
+    private static long lastCompleteRow(Path path, long size) throws IOException {
+        if (size == 0) return 0;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(4096);
+            long pos = size;
+            while (pos > 0) {
+                int len = (int) Math.min(one.capacity(), pos);
+                one.clear().limit(len);
+                ch.read(one, pos - len);
+                for (int i = len - 1; i >= 0; i--) {
+                    if (one.get(i) == '\n') return pos - len + i + 1;
+                }
+                pos -= len;
+            }
+        }
+        return 0;
+    }
+
+    private static void add(String outlet, String model, long day, long quantity, long cents) {
+        add(index(outlet.trim(), OUTLETS, OUTLET_INDEX), index(model.trim(), MODELS, MODEL_INDEX), day, quantity, cents);
+    }
+
+    // one sales row into (sign 1) or out of (sign -1) its cell; rows without a valid date are not in the cube
+    private static void addRow(Sales s, int sign) {
+        long day;
+        try {
+            day = LocalDate.parse(s.getDate().trim()).toEpochDay();
+        } catch (RuntimeException e) {
+            return;
+        }
+        int o = index(s.getOutletCode().trim(), OUTLETS, OUTLET_INDEX);
+        int m = index(s.getModel().trim(), MODELS, MODEL_INDEX);
+        add(o, m, day, sign * (long) s.getQuantity(), sign * s.getSubtotal());
+        if (sign < 0) {
+            // a cell emptied by a removal is dropped, as a rebuild would never create it
+            Day d = DAYS.get(day);
+            Cell c = d.cells.get(((long) o << 32) | m);
+            if (c.quantity == 0 && c.cents == 0) d.cells.remove(((long) o << 32) | m);
+            if (d.cells.isEmpty()) DAYS.remove(day);
+        }
+    }
+
+    private static void add(int o, int m, long day, long quantity, long cents) {
+        Day d = DAYS.computeIfAbsent(day, k -> new Day());
+        Cell c = d.cells.computeIfAbsent(((long) o << 32) | m, k -> new Cell());
+        c.quantity += quantity;
+        c.cents += cents;
+        d.quantity += quantity;
+        d.cents += cents;
+    }
+
+    private static int index(String name, List<String> names, Map<String, Integer> indexes) {
+        Integer i = indexes.get(name);
+        if (i == null) {
+            i = names.size();
+            names.add(name);
+            indexes.put(name, i);
+        }
+        return i;
+    }
+
+    private static void clear() {
+        DAYS.clear();
+        OUTLETS.clear();
+        OUTLET_INDEX.clear();
+        MODELS.clear();
+        MODEL_INDEX.clear();
+        COVERED.clear();
+    }
+
+    //FILE
+
+    /*
+     * Layout: magic, journal length, covered length per partition (name, length),
+     * outlet codes, model ids, then per day: epoch-day, cell count, cells (outlet, model, quantity, cents).
+     */
+    // called with BASE_LOCK held
+    private static void save() throws IOException {
+        if (!dirty || !loaded || stale) return;
+        Path parent = ROLLUP_PATH.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = Files.createTempFile(parent, "sales_rollup-", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(journalLength);
+            out.writeInt(COVERED.size());
+            for (Map.Entry<String, Long> c : COVERED.entrySet()) {
+                out.writeUTF(c.getKey());
+                out.writeLong(c.getValue());
+            }
+            out.writeInt(OUTLETS.size());
+            for (String s : OUTLETS) out.writeUTF(s);
+            out.writeInt(MODELS.size());
+            for (String s : MODELS) out.writeUTF(s);
+            out.writeInt(DAYS.size());
+            for (Map.Entry<Long, Day> d : DAYS.entrySet()) {
+                out.writeLong(d.getKey());
+                out.writeInt(d.getValue().cells.size());
+                for (Map.Entry<Long, Cell> c : d.getValue().cells.entrySet()) {
+                    out.writeInt((int) (c.getKey() >>> 32));
+                    out.writeInt((int) (long) c.getKey());
+                    out.writeLong(c.getValue().quantity);
+                    out.writeLong(c.getValue().cents);
+                }
+            }
+        }
+        try {
+            Files.move(tmp, ROLLUP_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(tmp, ROLLUP_PATH, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    // Load the saved cube; false if it is missing, damaged or was built with a different journal
+    private static boolean readFile() {
+        if (!Files.exists(ROLLUP_PATH)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ROLLUP_PATH)))) {
+            if (in.readInt() != MAGIC) return false;
+            long journal = in.readLong();
+            long currentJournal = Files.exists(JOURNAL_PATH) ? Files.size(JOURNAL_PATH) : 0;
+            if (journal != currentJournal) return false;
+
+            clear();
+            int partitions = in.readInt();
+            for (int i = 0; i < partitions; i++) {
+                COVERED.put(in.readUTF(), in.readLong());
+            }
+            int outlets = in.readInt();
+            for (int i = 0; i < outlets; i++) index(in.readUTF(), OUTLETS, OUTLET_INDEX);
+            int models = in.readInt();
+            for (int i = 0; i < models; i++) index(in.readUTF(), MODELS, MODEL_INDEX);
+            int days = in.readInt();
+            for (int i = 0; i < days; i++) {
+                long day = in.readLong();
+                int cells = in.readInt();
+                for (int j = 0; j < cells; j++) {
+                    int o = in.readInt();
+                    int m = in.readInt();
+                    long quantity = in.readLong();
+                    long cents = in.readLong();
+                    add(OUTLETS.get(o), MODELS.get(m), day, quantity, cents);
+                }
+            }
+            journalLength = journal;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Sales rollup file unreadable, rebuilding: " + e.getMessage());
+            clear();
+            return false;
+        }
+    }
+
+    private static void saveQuietly() {
+        synchronized (SalesJournal.BASE_LOCK) {
+            try {
+                save();
+            } catch (IOException e) {
+                System.err.println("Error saving sales rollup: " + e.getMessage());
+            }
+        }
+    }
+}
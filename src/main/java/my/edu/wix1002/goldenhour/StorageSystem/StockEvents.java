@@ -0,0 +1,58 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * StockEvents - in-process notifications when an in-memory stock counter changes.
+ *
+ * StockLedger publishes one event per change (reserve, release, stock edit, stock in/out) and
+ * Catalogue publishes a reload when it swaps in new Model objects. Listeners are called on the
+ * thread that made the change, so they should only note what changed and return (the stock
+ * view collects model ids and applies them on the next JavaFX frame).
+ */
+public final class StockEvents {
+
+    /** Receives stock changes; both methods must be quick and must not throw. */
+    public interface Listener {
+        /** The stock of a model at an outlet (OutletRegistry ordinal) changed. */
+        void stockChanged(String modelId, int outletOrdinal);
+
+        /** The catalogue was reloaded: every Model object was replaced. */
+        default void catalogueReloaded() { }
+    }
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private StockEvents() { }
+
+    public static void subscribe(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void unsubscribe(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    //PUBLISH
+
+    public static void stockChanged(String modelId, int outletOrdinal) {
+        for (Listener l : LISTENERS) {
+            try {
+                l.stockChanged(modelId, outletOrdinal);
+            } catch (RuntimeException e) {
+                System.err.println("Error in stock listener: " + e.getMessage());
+            }
+        }
+    }
+
+    public static void catalogueReloaded() {
+        for (Listener l : LISTENERS) {
+            try {
+                l.catalogueReloaded();
+            } catch (RuntimeException e) {
+                System.err.println("Error in stock listener: " + e.getMessage());
+            }
+        }
+    }
+}
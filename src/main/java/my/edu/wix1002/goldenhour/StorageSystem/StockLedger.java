@@ -0,0 +1,360 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import my.edu.wix1002.goldenhour.util.FlightEvents;
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * StockLedger - reserve / commit / release of stock, shared by every sale path.
+ *
+ * The stock counters are the per-outlet slots of the catalogue's Model objects, changed
+ * with compare-and-set (Model.tryTakeStock), so two cashiers selling the same model never
+ * take it below zero and nobody waits on a global lock.
+ * - reserve : takes the quantity off the counter straight away (or fails if there is not enough)
+ * - commit  : the sale went through; it is logged as one TransactionLog record
+ * - release : the sale was cancelled; the quantity goes back on the counter
+ * A stock-out reserves the same way and is made final with commitMovement(), which logs the
+ * deltas to the stock log instead of a sale record.
+ * A reservation that is neither committed nor released in time is released by a
+ * background sweeper, so an abandoned terminal cannot hold stock forever.
+ * Every change of a counter is published through StockEvents (open stock views follow it).
+ *
+ * Models are always looked up by id in the current catalogue snapshot, never taken from a
+ * list a caller loaded earlier. A catalogue reload copies the live counters onto the new
+ * Model objects and swaps the snapshot inside swapCatalogue(), which no reserve, release or
+ * adjust can overlap (they share the read side of one lock and still do not wait on each other).
+ */
+public class StockLedger {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int ACTIVE = 0;
+    private static final int COMMITTED = 1;
+    private static final int RELEASED = 2;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    // read: a counter change; write: a catalogue swap
+    private static final ReentrantReadWriteLock COUNTERS = new ReentrantReadWriteLock();
+    private static final Map<Long, Reservation> ACTIVE_RESERVATIONS = new ConcurrentHashMap<>();
+
+    private static final Metrics.Timer SALE_COMMIT = Metrics.timer("sale.commit");
+    private static final Metrics.Timer STOCK_ADJUST = Metrics.timer("stock.adjust");
+    private static final Metrics.Counter SALES_COMMITTED = Metrics.counter("sale.committed");
+    private static final Metrics.Counter SALES_EXPIRED = Metrics.counter("sale.expired");
+    private static final Metrics.Counter SALES_FAILED = Metrics.counter("sale.failed");
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stock-ledger-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        SWEEPER.scheduleWithFixedDelay(StockLedger::releaseExpired, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /** Stock held for one sale line until it is committed or released. */
+    public static final class Reservation {
+        private final long id;
+        private final String modelId;
+        private final String outletCode;
+        private final int outletOrdinal;
+        private final int quantity;
+        private final long expiresAt;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+        private Reservation(long id, String modelId, String outletCode, int outletOrdinal, int quantity, long expiresAt) {
+            this.id = id;
+            this.modelId = modelId;
+            this.outletCode = outletCode;
+            this.outletOrdinal = outletOrdinal;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getModelId() { return modelId; }
+        public String getOutletCode() { return outletCode; }
+        public int getQuantity() { return quantity; }
+        public boolean isActive() { return state.get() == ACTIVE; }
+    }
+
+    //RESERVE
+
+    public static Reservation reserve(Model model, String outletCode, int quantity) {
+        return reserve(model.getModelId(), outletCode, quantity, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public static Reservation reserve(String modelId, String outletCode, int quantity) {
+        return reserve(modelId, outletCode, quantity, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Take quantity off the model's stock at the outlet; null if there is not enough.
+     * IllegalArgumentException if the model is not in the catalogue.
+     */
+    public static Reservation reserve(String modelId, String outletCode, int quantity, long timeoutMillis) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        // the "validate" stage of a sale in flight recordings
+        FlightEvents.SaleStage event = new FlightEvents.SaleStage();
+        event.begin();
+        int ordinal = OutletRegistry.ordinal(outletCode);
+        Reservation r = null;
+        COUNTERS.readLock().lock();
+        try {
+            Model model = Catalogue.get().model(modelId);
+            if (model == null) {
+                throw new IllegalArgumentException("Model not found: " + modelId);
+            }
+            if (model.tryTakeStock(ordinal, quantity)) {
+                r = new Reservation(NEXT_ID.incrementAndGet(), model.getModelId(), outletCode, ordinal,
+                        quantity, System.currentTimeMillis() + timeoutMillis);
+                ACTIVE_RESERVATIONS.put(r.id, r);
+            }
+        } finally {
+            COUNTERS.readLock().unlock();
+        }
+        if (r != null) {
+            StockEvents.stockChanged(r.modelId, ordinal);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = "validate";
+            event.outlet = outletCode;
+            event.rows = 1;
+            event.succeeded = r != null;
+            event.commit();
+        }
+        return r;
+    }
+
+    //ADJUST
+
+    /**
+     * Change the stock of a model at an outlet outside of a sale (stock edit, stock in/out):
+     * the delta is written to the stock log first, then applied to the counter.
+     * Returns the bytes written to the stock log.
+     */
+    public static int adjust(Model model, String outletCode, int delta) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            if (delta == 0) return 0;
+            int ordinal = OutletRegistry.ordinal(outletCode);
+            int bytes;
+            COUNTERS.readLock().lock();
+            try {
+                bytes = StockLog.append(model.getModelId(), outletCode, delta);
+                current(model).adjustStock(ordinal, delta);
+            } finally {
+                COUNTERS.readLock().unlock();
+            }
+            StockEvents.stockChanged(model.getModelId(), ordinal);
+            return bytes;
+        } finally {
+            STOCK_ADJUST.since(t0);
+        }
+    }
+
+    /**
+     * Set the stock of a model at an outlet to an absolute quantity (stock edit). The counter is
+     * swapped atomically and the difference to the value it replaced is logged, so the stock log
+     * always ends at the quantity set, whatever other terminals changed since it was displayed.
+     * Returns the bytes written to the stock log.
+     */
+    public static int set(Model model, String outletCode, int quantity) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            int ordinal = OutletRegistry.ordinal(outletCode);
+            int bytes = 0;
+            COUNTERS.readLock().lock();
+            try {
+                Model m = current(model);
+                int delta = quantity - m.exchangeStock(ordinal, quantity);
+                if (delta != 0) {
+                    try {
+                        bytes = StockLog.append(model.getModelId(), outletCode, delta);
+                    } catch (IOException | RuntimeException e) {
+                        // not logged: undo by the same difference, keeping changes made since
+                        m.adjustStock(ordinal, -delta);
+                        throw e;
+                    }
+                }
+            } finally {
+                COUNTERS.readLock().unlock();
+            }
+            StockEvents.stockChanged(model.getModelId(), ordinal);
+            return bytes;
+        } finally {
+            STOCK_ADJUST.since(t0);
+        }
+    }
+
+    // the catalogue's Model object for the same id (the given one if the catalogue does not have it yet)
+    private static Model current(Model model) {
+        Model m = Catalogue.get().model(model.getModelId());
+        return m == null ? model : m;
+    }
+
+    //COMMIT
+
+    /**
+     * Make the reservations final and commit the sale with their stock deltas as one
+     * TransactionLog record (its applier then writes the sales rows, stock log and receipt).
+     * Returns false (and changes nothing) if any of them already expired or was released;
+     * the caller should then release the rest. The counters were already taken down by
+     * reserve(), so a commit does not touch them.
+     */
+    public static boolean commit(List<Reservation> reservations, TransactionLog.SaleRecord sale) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            // claimed before the record is logged, so the sweeper cannot release stock of a logged sale
+            List<Reservation> claimed = new ArrayList<>(reservations.size());
+            for (Reservation r : reservations) {
+                if (!r.state.compareAndSet(ACTIVE, COMMITTED)) {
+                    // lost to the sweeper or a release: hand back the ones already claimed
+                    for (Reservation c : claimed) {
+                        c.state.set(ACTIVE);
+                    }
+                    SALES_EXPIRED.increment();
+                    return false;
+                }
+                claimed.add(r);
+            }
+
+            List<StockLog.Delta> deltas = new ArrayList<>(claimed.size());
+            for (Reservation r : claimed) {
+                deltas.add(new StockLog.Delta(r.modelId, r.outletCode, -r.quantity));
+            }
+            try {
+                TransactionLog.commit(sale, deltas);
+            } catch (IOException e) {
+                for (Reservation c : claimed) {
+                    c.state.set(ACTIVE);
+                }
+                SALES_FAILED.increment();
+                throw e;
+            }
+            for (Reservation r : claimed) {
+                ACTIVE_RESERVATIONS.remove(r.id);
+            }
+            SALES_COMMITTED.increment();
+            return true;
+        } finally {
+            SALE_COMMIT.since(t0);
+        }
+    }
+
+    /**
+     * Make the reservations of a stock-out final: their deltas are written to the stock log in
+     * one append. If any of them already expired or was released, or the append fails, the rest
+     * are released and nothing is logged (IllegalStateException or the IOException).
+     * Returns the bytes written to the stock log.
+     */
+    public static int commitMovement(List<Reservation> reservations) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            List<Reservation> claimed = new ArrayList<>(reservations.size());
+            for (Reservation r : reservations) {
+                if (!r.state.compareAndSet(ACTIVE, COMMITTED)) {
+                    for (Reservation c : claimed) {
+                        c.state.set(ACTIVE);
+                    }
+                    release(reservations);
+                    throw new IllegalStateException("Stock reservation expired, nothing was moved.");
+                }
+                claimed.add(r);
+            }
+            List<StockLog.Delta> deltas = new ArrayList<>(claimed.size());
+            for (Reservation r : claimed) {
+                deltas.add(new StockLog.Delta(r.modelId, r.outletCode, -r.quantity));
+            }
+            int bytes;
+            try {
+                bytes = StockLog.append(deltas);
+            } catch (IOException | RuntimeException e) {
+                for (Reservation c : claimed) {
+                    c.state.set(ACTIVE);
+                }
+                release(claimed);
+                throw e;
+            }
+            for (Reservation r : claimed) {
+                ACTIVE_RESERVATIONS.remove(r.id);
+            }
+            return bytes;
+        } finally {
+            STOCK_ADJUST.since(t0);
+        }
+    }
+
+    //RELEASE
+
+    public static void release(List<Reservation> reservations) {
+        for (Reservation r : reservations) {
+            release(r);
+        }
+    }
+
+    /** Put the reserved quantity back. Releasing twice, or after a commit, does nothing. */
+    public static void release(Reservation r) {
+        if (r == null || !r.state.compareAndSet(ACTIVE, RELEASED)) {
+            return;
+        }
+        ACTIVE_RESERVATIONS.remove(r.id);
+        boolean returned = false;
+        COUNTERS.readLock().lock();
+        try {
+            // the model of the current snapshot: a reload carried the reserved counter over to it
+            Model model = Catalogue.get().model(r.modelId);
+            if (model != null) {
+                model.adjustStock(r.outletOrdinal, r.quantity);
+                returned = true;
+            }
+        } finally {
+            COUNTERS.readLock().unlock();
+        }
+        if (returned) {
+            StockEvents.stockChanged(r.modelId, r.outletOrdinal);
+        }
+    }
+
+    private static void releaseExpired() {
+        long now = System.currentTimeMillis();
+        for (Reservation r : ACTIVE_RESERVATIONS.values()) {
+            if (r.expiresAt <= now) {
+                release(r);
+            }
+        }
+    }
+
+    //RELOAD
+
+    /**
+     * Run a catalogue swap (Catalogue.refresh: copy the live counters onto the reloaded models,
+     * publish the new snapshot) while no reserve, release or adjust is changing a counter.
+     */
+    public static <T> T swapCatalogue(Supplier<T> swap) {
+        COUNTERS.writeLock().lock();
+        try {
+            return swap.get();
+        } finally {
+            COUNTERS.writeLock().unlock();
+        }
+    }
+}
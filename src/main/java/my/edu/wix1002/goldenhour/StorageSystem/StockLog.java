@@ -0,0 +1,423 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
+import my.edu.wix1002.goldenhour.util.CsvParser;
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * StockLog - append-only log of stock changes on top of data/model.csv.
+ *
+ * A sale or stock edit no longer rewrites model.csv. Each change is appended as a small
+ * delta record (model, outlet, +/- quantity), framed as [int length][int crc32][payload]
+ * like the sales journal. model.csv is the last checkpoint:
+ * - DataLoader.loadModels() reads model.csv and then replays this log on top of it
+ * - checkpoint() folds the log into model.csv (temp file forced + atomic rename) and empties it;
+ *   it runs in the background every few minutes or once the log grows past a threshold
+ *
+ * So the cost of a sale no longer depends on how many models are in the catalogue.
+ * Deltas of a sale carry its transaction id (see TransactionLog); a checkpoint first makes sure
+ * every logged sale is applied and marked, since the fold removes the tags.
+ */
+public class StockLog {
+
+    private static final Path LOG_PATH = Paths.get("data", "stock.log");
+    private static final Path MODEL_PATH = Paths.get("data", "model.csv");
+
+    private static final long CHECKPOINT_INTERVAL_MINUTES = 10;
+    private static final int CHECKPOINT_THRESHOLD = 500;
+
+    private static FileChannel channel;
+    private static int recordCount;
+
+    private static final Metrics.Timer APPEND = Metrics.timer("stocklog.append");
+    private static final Metrics.Timer CHECKPOINT = Metrics.timer("stocklog.checkpoint");
+
+    private static final ScheduledExecutorService CHECKPOINTER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stock-log-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        try {
+            open();
+        } catch (IOException e) {
+            System.err.println("Error opening stock log: " + e.getMessage());
+        }
+        Metrics.gauge("stocklog.records", () -> recordCount);
+        CHECKPOINTER.scheduleWithFixedDelay(StockLog::checkpointQuietly,
+                CHECKPOINT_INTERVAL_MINUTES, CHECKPOINT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /** One stock change: quantity added (positive) or removed (negative) for a model at an outlet. */
+    public static final class Delta {
+        public final String modelId;
+        public final String outletCode;
+        public final int quantity;
+        // sale that logged the change (TransactionLog), null for stock edits
+        final String transactionId;
+
+        public Delta(String modelId, String outletCode, int quantity) {
+            this(modelId, outletCode, quantity, null);
+        }
+
+        private Delta(String modelId, String outletCode, int quantity, String transactionId) {
+            this.modelId = modelId;
+            this.outletCode = outletCode;
+            this.quantity = quantity;
+            this.transactionId = transactionId;
+        }
+    }
+
+    // Open the log and cut off a torn record at the end (if any)
+    private static void open() throws IOException {
+        Path parent = LOG_PATH.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(LOG_PATH, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        List<Delta> deltas = new ArrayList<>();
+        long validLength = readDeltas(deltas);
+        if (validLength < channel.size()) {
+            System.err.println("Warning: stock log had an incomplete record, truncating it.");
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        recordCount = deltas.size();
+    }
+
+    //APPEND
+
+    /** Append one delta; returns the bytes written (as do the other appends). */
+    public static int append(String modelId, String outletCode, int quantity) throws IOException {
+        List<Delta> one = new ArrayList<>(1);
+        one.add(new Delta(modelId, outletCode, quantity));
+        return append(one);
+    }
+
+    /** Append several deltas with a single write and a single force (e.g. all items of one sale). */
+    public static int append(List<Delta> deltas) throws IOException {
+        return append(deltas, null);
+    }
+
+    /**
+     * Append the deltas of a logged sale, tagged with its transaction id so that
+     * TransactionLog can tell whether they were already written (see contains()).
+     */
+    static int append(List<Delta> deltas, String transactionId) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            if (deltas.isEmpty()) return 0;
+
+            ByteArrayOutputStream frames = new ByteArrayOutputStream(deltas.size() * 32);
+            for (Delta d : deltas) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(24);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeUTF(d.modelId);
+                out.writeUTF(d.outletCode);
+                out.writeInt(d.quantity);
+                if (transactionId != null) {
+                    out.writeUTF(transactionId);
+                }
+                byte[] payload = bytes.toByteArray();
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                DataOutputStream frame = new DataOutputStream(frames);
+                frame.writeInt(payload.length);
+                frame.writeInt((int) crc.getValue());
+                frame.write(payload);
+            }
+
+            boolean checkpointNow;
+            synchronized (StockLog.class) {
+                if (channel == null) {
+                    open();
+                }
+                ByteBuffer buf = ByteBuffer.wrap(frames.toByteArray());
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+                channel.force(false);
+                recordCount += deltas.size();
+                checkpointNow = recordCount >= CHECKPOINT_THRESHOLD;
+            }
+            if (checkpointNow) {
+                CHECKPOINTER.execute(StockLog::checkpointQuietly);
+            }
+            return frames.size();
+        } finally {
+            APPEND.since(t0);
+        }
+    }
+
+    //READ
+
+    // Read every complete delta from the start of the log; returns the byte length that was valid
+    private static long readDeltas(List<Delta> deltas) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (pos + 8 <= size) {
+            header.clear();
+            channel.read(header, pos);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || pos + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, pos + 8);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+            // records written before sales were logged end after the quantity
+            deltas.add(new Delta(in.readUTF(), in.readUTF(), in.readInt(), in.available() > 0 ? in.readUTF() : null));
+            pos += 8 + length;
+        }
+        return pos;
+    }
+
+    /** Whether the log holds the deltas of the given sale (only until the next checkpoint). */
+    static boolean contains(String transactionId) throws IOException {
+        List<Delta> deltas = new ArrayList<>();
+        synchronized (StockLog.class) {
+            if (channel == null) {
+                open();
+            }
+            readDeltas(deltas);
+        }
+        for (Delta d : deltas) {
+            if (transactionId.equals(d.transactionId)) return true;
+        }
+        return false;
+    }
+
+    // Sum of all logged changes, modelId (upper case) -> outletCode -> quantity
+    private static Map<String, Map<String, Integer>> pendingChanges() throws IOException {
+        List<Delta> deltas = new ArrayList<>();
+        synchronized (StockLog.class) {
+            if (channel == null) {
+                open();
+            }
+            readDeltas(deltas);
+        }
+        Map<String, Map<String, Integer>> changes = new HashMap<>();
+        for (Delta d : deltas) {
+            changes.computeIfAbsent(d.modelId.toUpperCase(), k -> new HashMap<>())
+                   .merge(d.outletCode, d.quantity, Integer::sum);
+        }
+        return changes;
+    }
+
+    /** Replay the log on top of models freshly loaded from model.csv. */
+    public static void replayInto(List<Model> models) {
+        Map<String, Map<String, Integer>> changes;
+        try {
+            changes = pendingChanges();
+        } catch (IOException e) {
+            System.err.println("Error reading stock log: " + e.getMessage());
+            return;
+        }
+        if (changes.isEmpty()) return;
+
+        for (Model m : models) {
+            Map<String, Integer> perOutlet = changes.get(m.getModelId().toUpperCase());
+            if (perOutlet == null) continue;
+            for (Map.Entry<String, Integer> e : perOutlet.entrySet()) {
+                m.adjustStock(OutletRegistry.ordinal(e.getKey()), e.getValue());
+            }
+        }
+    }
+
+    //CHECKPOINT
+
+    /**
+     * Fold the logged deltas into model.csv and empty the log.
+     * Only the stock columns are touched; header (with BOM), prices and row order stay as they are.
+     */
+    public static void checkpoint() throws IOException {
+        // logged sales have to be applied and marked before their deltas disappear from this log
+        synchronized (TransactionLog.class) {
+            TransactionLog.syncBeforeStockFold();
+            synchronized (StockLog.class) {
+                checkpointLocked();
+            }
+        }
+    }
+
+    private static void checkpointLocked() throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            if (channel == null) {
+                open();
+            }
+            if (channel.size() == 0) return;
+            if (!Files.exists(MODEL_PATH)) {
+                System.err.println("Model CSV not found, keeping stock log: " + MODEL_PATH);
+                return;
+            }
+
+            Map<String, Map<String, Integer>> changes = pendingChanges();
+            byte[] folded = fold(Files.readAllBytes(MODEL_PATH), changes);
+            if (folded == null) return;
+
+            Path tmp = Files.createTempFile(MODEL_PATH.getParent(), "model-", ".tmp");
+            Files.write(tmp, folded);
+            // model.csv has to be on disk before the deltas it now contains are dropped
+            FileSync.replace(tmp, MODEL_PATH);
+            clear();
+        } finally {
+            CHECKPOINT.since(t0);
+        }
+    }
+
+    /*
+     * model.csv with the changes added to its stock columns, or null when it has no header.
+     * Parsed with CsvParser, so both the quoted rows StoreManager writes ("C60") and hand-edited
+     * unquoted ones match. Rows without a change are copied byte for byte; changed rows keep the
+     * quoting of each field. A change that matches no row fails the checkpoint, so the log is kept.
+     */
+    private static byte[] fold(byte[] csv, Map<String, Map<String, Integer>> changes) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        List<boolean[]> quoted = new ArrayList<>();
+        List<long[]> spans = new ArrayList<>();
+        CsvParser.parse(ByteBuffer.wrap(csv), new CsvParser.RowHandler() {
+            private final List<String> fields = new ArrayList<>();
+            private final List<Boolean> quotes = new ArrayList<>();
+
+            @Override
+            public void field(CsvParser.Field f) {
+                fields.add(f.asString());
+                quotes.add(f.isQuoted());
+            }
+
+            @Override
+            public boolean endRow(int row, long rowStart, long rowEnd) {
+                boolean[] q = new boolean[quotes.size()];
+                for (int i = 0; i < q.length; i++) q[i] = quotes.get(i);
+                rows.add(fields.toArray(new String[0]));
+                quoted.add(q);
+                spans.add(new long[] {rowStart, rowEnd});
+                fields.clear();
+                quotes.clear();
+                return true;
+            }
+        });
+        if (rows.isEmpty()) return null;
+
+        String[] headers = rows.get(0);
+        Map<String, Integer> columnOf = new HashMap<>();
+        for (int i = 2; i < headers.length; i++) {
+            columnOf.put(headers[i], i);
+        }
+
+        Map<String, Map<String, Integer>> pending = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> e : changes.entrySet()) {
+            pending.put(e.getKey(), new HashMap<>(e.getValue()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(csv.length + 64);
+        int copied = 0;
+        for (int r = 1; r < rows.size(); r++) {
+            String[] cols = rows.get(r);
+            Map<String, Integer> perOutlet = pending.remove(cols[0].toUpperCase());
+            if (perOutlet == null) continue;
+
+            for (Map.Entry<String, Integer> e : perOutlet.entrySet()) {
+                Integer col = columnOf.get(e.getKey());
+                if (col == null || col >= cols.length) {
+                    if (e.getValue() != 0) {
+                        throw new IOException("Outlet " + e.getKey() + " of model " + cols[0] + " is not in model.csv, keeping stock log");
+                    }
+                    continue;
+                }
+                cols[col] = String.valueOf(Integer.parseInt(cols[col]) + e.getValue());
+            }
+
+            // bytes before the row (earlier rows, blank lines), then the row rebuilt with its own line break
+            int rowStart = (int) spans.get(r)[0];
+            int rowEnd = (int) spans.get(r)[1];
+            out.write(csv, copied, rowStart - copied);
+            out.write(row(cols, quoted.get(r)));
+            int lineBreak = rowEnd;
+            while (lineBreak > rowStart && (csv[lineBreak - 1] == '\n' || csv[lineBreak - 1] == '\r')) lineBreak--;
+            out.write(csv, lineBreak, rowEnd - lineBreak);
+            copied = rowEnd;
+        }
+        for (Map.Entry<String, Map<String, Integer>> e : pending.entrySet()) {
+            for (int quantity : e.getValue().values()) {
+                if (quantity != 0) {
+                    throw new IOException("Model " + e.getKey() + " is not in model.csv, keeping stock log");
+                }
+            }
+        }
+        out.write(csv, copied, csv.length - copied);
+        return out.toByteArray();
+    }
+
+    // one CSV row, each field quoted if it was quoted before
+    private static byte[] row(String[] cols, boolean[] quoted) {
+        StringBuilder sb = new StringBuilder(cols.length * 8);
+        for (int i = 0; i < cols.length; i++) {
+            if (i > 0) sb.append(',');
+            if (i < quoted.length && quoted[i]) {
+                sb.append('"').append(cols[i].replace("\"", "\"\"")).append('"');
+            } else {
+                sb.append(cols[i]);
+            }
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Empty the log. Only call this right after model.csv was written with every logged change in it
+     * (checkpoint, or StoreManager.saveModels writing the in-memory models), while holding the StockLog lock.
+     */
+    static synchronized void clear() throws IOException {
+        if (channel == null) {
+            open();
+        }
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        recordCount = 0;
+    }
+
+    private static void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error checkpointing stock log: " + e.getMessage());
+        }
+    }
+}
@@ -3,24 +3,44 @@ package my.edu.wix1002.goldenhour.StorageSystem;
 import my.edu.wix1002.goldenhour.model.Employee;
 import my.edu.wix1002.goldenhour.model.Model;
 import my.edu.wix1002.goldenhour.model.Outlet;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
 import my.edu.wix1002.goldenhour.model.Sales;
 
+import my.edu.wix1002.goldenhour.util.Metrics;
+import my.edu.wix1002.goldenhour.util.Money;
+
 import com.opencsv.CSVWriter;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 
 public class StoreManager {
 
     private static final String EMPLOYEE_FILE_PATH = "data/employee.csv";
-    private static final String SALES_FILE_PATH = "data/sales.csv";
     private static final String AUDIT_FILE_PATH = "data/audit_log.csv";
 
+    private static final Metrics.Timer SAVE_EMPLOYEES = Metrics.timer("store.saveEmployees");
+    private static final Metrics.Timer SAVE_MODELS = Metrics.timer("store.saveModels");
+    private static final Metrics.Timer SAVE_SALES = Metrics.timer("store.saveSales");
+    private static final Metrics.Timer APPEND_SALES_RECORD = Metrics.timer("store.appendSalesRecord");
+    private static final Metrics.Timer UPDATE_SALE = Metrics.timer("store.updateSale");
+    private static final Metrics.Timer DELETE_SALE = Metrics.timer("store.deleteSale");
+    private static final Metrics.Timer APPEND_MORNING_STOCK = Metrics.timer("store.appendMorningStock");
+    private static final Metrics.Timer APPEND_NIGHT_STOCK = Metrics.timer("store.appendNightStock");
+    private static final Metrics.Timer APPEND_STOCK_IN = Metrics.timer("store.appendStockIn");
+    private static final Metrics.Timer APPEND_STOCK_OUT = Metrics.timer("store.appendStockOut");
+
     //SAVE EMPLOYEES
     public static void saveEmployees(List<Employee> employees) {
+        SAVE_EMPLOYEES.time(() -> writeEmployeesFile(employees));
+    }
+
+    private static void writeEmployeesFile(List<Employee> employees) {
         try(CSVWriter writer = new CSVWriter(new FileWriter(EMPLOYEE_FILE_PATH))){
 
             //write header
@@ -43,9 +63,29 @@ public class StoreManager {
             System.err.println("Error saving employees: " + ex.getMessage());
         }
     }
-    //SAVE MODELS
+    //SAVE MODELS (full rewrite, single stock changes should go to StockLog instead)
     public static void saveModels(List<Model> models, List<Outlet> outlets) {
-        
+        SAVE_MODELS.time(() -> foldAndWriteModels(models, outlets));
+    }
+
+    private static void foldAndWriteModels(List<Model> models, List<Outlet> outlets) {
+        // the models in memory already include every logged delta, so the stock log
+        // has to be emptied together with the rewrite or the deltas would apply twice;
+        // logged sales are applied and marked first, as for a checkpoint
+        synchronized (TransactionLog.class) {
+            try {
+                TransactionLog.syncBeforeStockFold();
+            } catch (IOException e) {
+                System.err.println("Error syncing transaction log: " + e.getMessage());
+                return;
+            }
+            synchronized (StockLog.class) {
+                writeModelsFile(models, outlets);
+            }
+        }
+    }
+
+    private static void writeModelsFile(List<Model> models, List<Outlet> outlets) {
         try (CSVWriter writer = new CSVWriter(new FileWriter("data/model.csv"))) {
 
             //1. Create header : Model, Price, C60, C61, ...
@@ -59,209 +99,211 @@ public class StoreManager {
 
             writer.writeNext(header);
 
+            // look each outlet up once, rows then read the stock arrays directly
+            int[] ordinals = new int[outlets.size()];
+            for (int i = 0; i < outlets.size(); i++) {
+                ordinals[i] = OutletRegistry.ordinal(outlets.get(i).getOutletCode());
+            }
+
             //2. Write model rows
             for (Model model : models) {
                 String[] row = new String[outlets.size() + 2];
 
                 row[0] = model.getModelId();
-                row[1] = String.valueOf(model.getPrice());
+                row[1] = Money.format(model.getPrice());
 
-                for (int i = 0; i < outlets.size(); i++) {
-                    String outletCode = outlets.get(i).getOutletCode();
-                    row[i + 2] = String.valueOf(
-                        model.getStockByOutlet().getOrDefault(outletCode, 0)
-                    );
+                for (int i = 0; i < ordinals.length; i++) {
+                    row[i + 2] = String.valueOf(model.getStock(ordinals[i]));
                 }
 
                 writer.writeNext(row);
             }
 
-            System.out.println("Model data saved to model.csv");
-
-
         } catch (IOException e){
             System.err.println("Error saving model data: " + e.getMessage());
+            return;
         }
-        
-    }
-    //SAVE ATTENDANCES (clock in)
-    public static void appendAttendance(String[] record) { //receives record array from AttendanceSystem
-        try (CSVWriter writer = new CSVWriter(
-            new FileWriter("data/attendance.csv", true))) {
-
-                writer.writeNext(record);
 
-            } catch (IOException e) {
-                System.err.println("Error appending attendance record: " + e.getMessage());
-            }
+        // only once model.csv is complete and on disk, otherwise the logged deltas are kept
+        try {
+            FileSync.force(Paths.get("data", "model.csv"));
+            StockLog.clear();
+            System.out.println("Model data saved to model.csv");
+        } catch (IOException e) {
+            System.err.println("Error clearing stock log: " + e.getMessage());
+        }
     }
 
+    //SAVES SALES RECORD
+    public static void appendSalesRecord(String[] saleRecord) {
+        // goes to the partition of the sale's month (which also updates the sales rollup)
+        long t0 = System.nanoTime();
+        try {
+            SalesPartitions.append(Collections.singletonList(saleRecord));
+            System.out.println("Sale record saved.");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error saving sale record: " + e.getMessage());
+        } finally {
+            APPEND_SALES_RECORD.since(t0);
+        }
+    }
 
-    //clock out
-    public static void updateClockOut(String employeeID, String dateStr, String clockOutTime) {
-    String filePath = "data/attendance.csv";
-
-    try {
-        List<String> lines = Files.readAllLines(Paths.get(filePath));
-
-        boolean updated = false;
-
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i);
-
-            if (line.isEmpty()) continue;
-            String[] parts = line.split(",", -1);
-
-            String empId = parts[0].trim().replace("\"", "");
-            String recDate = parts[1].trim().replace("\"", "");
-
-            if (empId.equals(employeeID) && recDate.equals(dateStr)) {
-                parts[3] = clockOutTime;
-
-                lines.set(i, String.join(",", parts));
-                updated = true;
-                break;
+    //EDIT ONE SALES ROW (appends to the sales journal instead of rewriting the partition)
+    public static void updateSale(Sales sale) {
+        long t0 = System.nanoTime();
+        try {
+            synchronized (SalesJournal.BASE_LOCK) {
+                List<Sales> before = rowsBeforeEdit(sale.getSaleID(), sale.getDate());
+                SalesJournal.appendUpsert(sale);
+                if (before == null) {
+                    SalesRollup.invalidate();
+                } else {
+                    // only the row with the same line is replaced
+                    before.removeIf(s -> s.getLine() != sale.getLine());
+                    SalesRollup.applyEdit(before, Collections.singletonList(sale));
+                }
             }
+        } catch (IOException e) {
+            System.err.println("Error saving sales edit: " + e.getMessage());
+        } finally {
+            UPDATE_SALE.since(t0);
         }
+    }
 
-        Files.write(Paths.get(filePath), lines);
-
-        if (!updated) {
-            System.err.println("Warning: Clock out record not found or not updated.");
+    //REMOVE ALL ROWS OF ONE SALE (tombstone in the sales journal)
+    public static void deleteSale(String saleId, LocalDate date) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            synchronized (SalesJournal.BASE_LOCK) {
+                List<Sales> before = rowsBeforeEdit(saleId, date.toString());
+                SalesJournal.appendTombstone(saleId, date);
+                if (before == null) {
+                    SalesRollup.invalidate();
+                } else {
+                    SalesRollup.applyEdit(before, Collections.<Sales>emptyList());
+                }
+            }
+        } finally {
+            DELETE_SALE.since(t0);
         }
-
-    } catch (IOException e) {
-        System.err.println("Error updating clock out: " + e.getMessage());
     }
-}
-
-
-
-
-    //SAVES SALES RECORD
-    public static void appendSalesRecord(String[] saleRecord) {
-        try(CSVWriter writer = new CSVWriter(
-            new FileWriter("data/sales.csv", true))) {
-
-            writer.writeNext(saleRecord);
-            System.out.println("Sale record saved.");
 
-        } catch (IOException e) {
-            System.err.println("Error saving sale record: " + e.getMessage());
-        }   
+    // The rows of a sale before an edit, so the sales rollup can swap them for the new ones
+    // instead of being rebuilt; null if they cannot be read (the rollup is then rebuilt).
+    // Called with BASE_LOCK held, before the journal record is appended.
+    private static List<Sales> rowsBeforeEdit(String saleId, String date) {
+        try {
+            SalesRollup.catchUp();
+            return SalesJournal.rowsOf(saleId, LocalDate.parse(date.trim()));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
     }
 
     //SAVES STOCK STORAGE
+    // one long-lived group-commit writer per file: concurrent appends share a write (and a force, if enabled)
+
+    private static final GroupCommitWriter MORNING_STOCK = GroupCommitWriter.forFile(Paths.get("data", "morning_stock.csv"),
+            new String[]{"EmployeeID", "OutletCode", "Date", "ModelID", "CountedQty"});
+    private static final GroupCommitWriter NIGHT_STOCK = GroupCommitWriter.forFile(Paths.get("data", "night_stock.csv"),
+            new String[]{"EmployeeID", "OutletCode", "Date", "ModelID", "CountedQty"});
+    private static final GroupCommitWriter STOCK_IN = GroupCommitWriter.forFile(Paths.get("data", "stock_in.csv"),
+            new String[]{"EmployeeID", "OutletCode", "Date", "ModelID", "QuantityIn", "TransactionID"});
+    private static final GroupCommitWriter STOCK_OUT = GroupCommitWriter.forFile(Paths.get("data", "stock_out.csv"),
+            new String[]{"EmployeeID", "OutletCode", "Date", "ModelID", "QuantityOut", "Reason", "TransactionID"});
 
     //1. Save morning stock count
     public static void appendMorningStock(String[] record) {
-        String filePath = "data/morning_stock.csv";
-
-        try (CSVWriter writer = new CSVWriter(
-            new FileWriter(filePath, true))) {
-
-            //If file is new, write header
-            if (Files.size(Paths.get(filePath)) == 0) {
-                writer.writeNext(new String[]{
-                    "EmployeeID", "OutletCode", "Date", "ModelID", "CountedQty"
-                });
-            }
-
-            writer.writeNext(record);
-
-        } catch(IOException e){
-                System.err.println("Error saving morning stock count: " + e.getMessage());
+        long t0 = System.nanoTime();
+        try {
+            MORNING_STOCK.write(record);
+        } catch (IOException e) {
+            System.err.println("Error saving morning stock count: " + e.getMessage());
+        } finally {
+            APPEND_MORNING_STOCK.since(t0);
         }
     }
 
     //2. Save night stock count
     public static void appendNightStock(String[] record) {
-        String filePath = "data/night_stock.csv";
-
-        try (CSVWriter writer = new CSVWriter(
-            new FileWriter(filePath, true))) {
-
-            //header
-            if (Files.size (Paths.get(filePath)) == 0) {
-                writer.writeNext(new String[]{
-                    "EmployeeID" , "OutletCode", "Date", "ModelID", "CountedQty"
-                });
-            }
-
-            writer.writeNext(record);
-
+        long t0 = System.nanoTime();
+        try {
+            NIGHT_STOCK.write(record);
         } catch (IOException e) {
             System.err.println("Error saving night stock count: " + e.getMessage());
+        } finally {
+            APPEND_NIGHT_STOCK.since(t0);
         }
     }
 
     //3. Save stock-in transaction
     public static void appendStockIn(String[] record) {
-        String filePath = "data/stock_in.csv";
-
-        try (CSVWriter writer = new CSVWriter(
-                new FileWriter(filePath, true))) {
-
-            if (Files.size(Paths.get(filePath)) == 0) {
-                writer.writeNext(new String[]{
-                    "EmployeeID", "OutletCode", "Date", "ModelID", "QuantityIn"
-                });
-            }
-
-            writer.writeNext(record);
-
+        long t0 = System.nanoTime();
+        try {
+            STOCK_IN.write(record);
         } catch (IOException e) {
             System.err.println("Error saving stock-in: " + e.getMessage());
-        }  
+        } finally {
+            APPEND_STOCK_IN.since(t0);
+        }
     }
 
     //4. Save stock-out transaction
     public static void appendStockOut(String[] record) {
-        String filePath = "data/stock_out.csv";
-
-        try (CSVWriter writer = new CSVWriter(
-                new FileWriter(filePath, true))) {
-
-            if (Files.size(Paths.get(filePath)) == 0) {
-                writer.writeNext(new String[]{
-                        "EmployeeID", "OutletCode", "Date", "ModelID", "QuantityOut", "Reason" 
-                });
-            }
-
-            writer.writeNext(record);
-            
+        long t0 = System.nanoTime();
+        try {
+            STOCK_OUT.write(record);
         } catch (IOException e) {
             System.err.println("Error saving stock-out: " + e.getMessage());
+        } finally {
+            APPEND_STOCK_OUT.since(t0);
         }
     }
 
-    //SAVES SALES
+    //SAVES SALES (full rewrite, prefer updateSale for single edits)
     public static void saveSales(List<Sales> sales) {
-    try (CSVWriter writer = new CSVWriter(new FileWriter(SALES_FILE_PATH))) {
-
-        writer.writeNext(new String[]{"SaleID", "EmployeeID", "OutletCode", "CustomerName", "Model", "Quantity", "UnitPrice", "Subtotal", "PaymentMethod", "Date", "Time"});
-
-        //each sales record
-        for (Sales s : sales) {
-            writer.writeNext(new String[]{
-                s.getSaleID(),
-                s.getEmployeeID(),
-                s.getOutletCode(),
-                s.getCustomerName(), // Editable
-                s.getModel(),        // Editable
-                String.valueOf(s.getQuantity()), // Editable
-                String.valueOf(s.getUnitPrice()),
-                String.valueOf(s.getSubtotal()), // Editable
-                s.getTransactionMethod(),// Editable
-                s.getDate(),
-                s.getTime()
-            });
+        SAVE_SALES.time(() -> rewriteSales(sales));
+    }
+
+    private static void rewriteSales(List<Sales> sales) {
+        synchronized (SalesJournal.BASE_LOCK) {
+            try {
+                SalesPartitions.rewriteAll(sales);
+                SalesRollup.invalidate();
+                System.out.println("Sales data saved successfully!");
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("Error saving sales records: " + ex.getMessage());
+            }
+        }
+    }
+
+    // Write a complete sales CSV (header + every row) to the given file
+    static void writeSalesFile(Path path, List<Sales> sales) throws IOException {
+        try (CSVWriter writer = new CSVWriter(new FileWriter(path.toFile()))) {
+
+            writer.writeNext(new String[]{"SaleID", "EmployeeID", "OutletCode", "CustomerName", "Model", "Quantity", "UnitPrice", "Subtotal", "PaymentMethod", "Date", "Time"});
+
+            //each sales record
+            for (Sales s : sales) {
+                writer.writeNext(toSalesRow(s));
+            }
         }
-        System.out.println("Sales data saved successfully!");
+    }
 
-    } catch (IOException ex) {
-        System.err.println("Error saving sales records: " + ex.getMessage());
+    // One Sales object as the 11 columns of a sales partition
+    static String[] toSalesRow(Sales s) {
+        return new String[]{
+            s.getSaleID(),
+            s.getEmployeeID(),
+            s.getOutletCode(),
+            s.getCustomerName(), // Editable
+            s.getModel(),        // Editable
+            String.valueOf(s.getQuantity()), // Editable
+            Money.format(s.getUnitPrice()),
+            Money.format(s.getSubtotal()), // Editable
+            s.getTransactionMethod(),// Editable
+            s.getDate(),
+            s.getTime()
+        };
     }
 }
-}
-
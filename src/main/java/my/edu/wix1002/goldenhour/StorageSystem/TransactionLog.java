@@ -0,0 +1,477 @@
+package my.edu.wix1002.goldenhour.StorageSystem;
+
+import my.edu.wix1002.goldenhour.util.FlightEvents;
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * TransactionLog - write-ahead log that makes a sale one atomic record.
+ *
+ * A sale used to be three separate writes (sales partition, stock log, receipt) with hand-written
+ * compensation when a later one failed. Now the whole sale - its sales rows, stock deltas and
+ * receipt text - is appended to data/transactions.log as one CRC-framed record
+ * ([int length][int crc32][payload], like the stock log) and forced. That append is the commit.
+ *
+ * The sales partition, stock log and receipt file are derived from the record. They are not
+ * written on the commit path: a background thread applies committed sales one at a time, each
+ * followed by a small APPLIED record, and readers of those files call recover() first, which
+ * applies whatever is still pending. The derived writes are forced before their mark is written
+ * (the stock log forces every append anyway), so a mark that survives a power cut never vouches
+ * for a row or receipt that did not; the mark itself need not be forced, a lost one only means
+ * the parts are checked again. The live stock counters were already taken
+ * down by StockLedger.reserve, so nothing reads the stock log for them in between. Each part can be
+ * re-applied safely: the SaleID is looked up in its partition's id set, the stock deltas are tagged with
+ * the transaction id, and the receipt is looked up in its sidecar. A record without a complete
+ * APPLIED mark (crash, full disk, locked file) is applied again on the next pass or at start-up.
+ *
+ * The stock log checkpoint and StoreManager.saveModels fold stock deltas away, so they call
+ * syncBeforeStockFold() first: recovery runs and the APPLIED marks are forced, otherwise a delta
+ * could be folded into model.csv and later applied again. Once nothing is pending and the log is
+ * past a size limit it is emptied.
+ */
+public class TransactionLog {
+
+    private static final Path LOG_PATH = Paths.get("data", "transactions.log");
+    private static final long TRUNCATE_THRESHOLD_BYTES = 1024 * 1024;
+
+    private static final byte COMMIT = 1;
+    private static final byte APPLIED = 2;
+
+    // parts of a sale, recorded in the APPLIED mark
+    private static final int ROWS = 1;
+    private static final int STOCK = 2;
+    private static final int RECEIPT = 4;
+    private static final int ALL = ROWS | STOCK | RECEIPT;
+
+    private static final int OUTLET_COLUMN = 2;
+    private static final int DATE_COLUMN = 9;
+
+    private static FileChannel channel;
+    private static boolean loaded;
+    private static boolean applying;
+    private static boolean applyScheduled;
+
+    // committed sales whose derived files are not (known to be) complete, by transaction id
+    private static final Map<String, SaleRecord> PENDING = new LinkedHashMap<>();
+
+    private static final Metrics.Timer TX_COMMIT = Metrics.timer("txlog.commit");
+
+    private static final ExecutorService APPLIER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "transaction-applier");
+        t.setDaemon(true); // whatever is left is applied by recover() on the next start
+        return t;
+    });
+
+    static {
+        Metrics.gauge("txlog.pending", () -> {
+            synchronized (TransactionLog.class) {
+                return PENDING.size();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(TransactionLog::recover, "transaction-log-exit"));
+    }
+
+    /** One sale as it is logged: sales.csv rows, stock deltas and the receipt (file may be null). */
+    public static final class SaleRecord {
+        private final String transactionId;
+        private final List<String[]> rows;
+        private final Path receiptFile;
+        private final String receiptText;
+        private List<StockLog.Delta> stock = Collections.emptyList();
+        private int applied;
+        private boolean fresh; // committed by this process and not tried yet: known to be absent everywhere
+
+        public SaleRecord(String transactionId, List<String[]> rows, Path receiptFile, String receiptText) {
+            this.transactionId = transactionId;
+            this.rows = rows;
+            this.receiptFile = receiptFile;
+            this.receiptText = receiptText;
+        }
+
+        public String getTransactionId() { return transactionId; }
+    }
+
+    //COMMIT
+
+    /**
+     * Log the sale with the given stock deltas as one forced append; the derived files are written
+     * afterwards by the background applier. Throws only if the log append failed (nothing was
+     * committed).
+     */
+    public static synchronized void commit(SaleRecord sale, List<StockLog.Delta> stock) throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            load();
+            sale.stock = stock;
+            FlightEvents.SaleStage event = new FlightEvents.SaleStage();
+            event.begin();
+            int bytes = 0;
+            try {
+                bytes = appendRecord(encodeCommit(sale), true);
+            } finally {
+                endStage(event, "log", sale, sale.rows.size(), bytes, bytes > 0);
+            }
+            sale.fresh = true;
+            PENDING.put(sale.transactionId, sale);
+            if (!applyScheduled) {
+                applyScheduled = true;
+                APPLIER.execute(TransactionLog::applyInBackground);
+            }
+        } finally {
+            TX_COMMIT.since(t0);
+        }
+    }
+
+    //RECOVERY
+
+    /**
+     * Apply every committed sale that is not marked applied yet: left over from a crash, or still
+     * waiting for the background applier. Call it before reading the sales partitions, stock log or
+     * receipts, without holding any of their locks.
+     */
+    public static synchronized void recover() {
+        // a reader reached from inside apply() (same thread) must not apply the same sale twice
+        if (applying) return;
+        load();
+        if (PENDING.isEmpty()) return;
+        applyPending();
+        truncateIfDone();
+    }
+
+    // Read the log once: committed sales without a complete APPLIED mark become pending
+    private static void load() {
+        if (loaded) return;
+        loaded = true;
+        try {
+            open();
+            readPending();
+            if (PENDING.isEmpty()) {
+                if (channel.size() > 0) truncate();
+            } else {
+                System.out.println("Re-applying " + PENDING.size() + " logged sale(s) after an interrupted write.");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error recovering transaction log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called with the TransactionLog lock held, before stock deltas are folded into model.csv and the
+     * stock log is emptied: every logged sale is applied (as far as possible) and its mark is on disk.
+     */
+    static void syncBeforeStockFold() throws IOException {
+        recover();
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    //APPLY
+
+    // One pass over the sales pending when it starts, taking the lock per sale so commits wait for one sale at most
+    private static void applyInBackground() {
+        List<String> ids;
+        synchronized (TransactionLog.class) {
+            applyScheduled = false;
+            ids = new ArrayList<>(PENDING.keySet());
+        }
+        for (String id : ids) {
+            synchronized (TransactionLog.class) {
+                SaleRecord sale = PENDING.get(id);
+                if (sale != null) applyOne(sale);
+            }
+        }
+        synchronized (TransactionLog.class) {
+            truncateIfDone();
+        }
+    }
+
+    private static void applyPending() {
+        for (SaleRecord sale : new ArrayList<>(PENDING.values())) {
+            applyOne(sale);
+        }
+    }
+
+    // Apply what is missing of one sale and mark it; a fresh sale skips the "already there?" checks
+    private static void applyOne(SaleRecord sale) {
+        int before = sale.applied;
+        applying = true;
+        try {
+            apply(sale, !sale.fresh);
+        } finally {
+            applying = false;
+            // a failed part may have been written halfway: check from now on
+            sale.fresh = false;
+        }
+        if (sale.applied == before) return;
+        try {
+            // the parts were forced by apply(), so the mark may follow them unforced
+            appendRecord(encodeApplied(sale), false);
+        } catch (IOException e) {
+            // still pending: the parts are checked again on the next try
+            System.err.println("Error marking sale " + sale.transactionId + " applied: " + e.getMessage());
+            return;
+        }
+        if (sale.applied == ALL) {
+            PENDING.remove(sale.transactionId);
+        }
+    }
+
+    // Empty the log once nothing is pending and it is past the size limit
+    private static void truncateIfDone() {
+        try {
+            if (channel != null && PENDING.isEmpty() && channel.size() > TRUNCATE_THRESHOLD_BYTES) {
+                truncate();
+            }
+        } catch (IOException e) {
+            System.err.println("Error emptying transaction log: " + e.getMessage());
+        }
+    }
+
+    // Write the parts of the sale that are not done yet; a failing part is left for the next try
+    private static void apply(SaleRecord sale, boolean verify) {
+        if ((sale.applied & STOCK) == 0) {
+            FlightEvents.SaleStage event = new FlightEvents.SaleStage();
+            event.begin();
+            long bytes = 0;
+            try {
+                if (!verify || !StockLog.contains(sale.transactionId)) {
+                    bytes = StockLog.append(sale.stock, sale.transactionId);
+                }
+                sale.applied |= STOCK;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error applying stock changes of sale " + sale.transactionId + ": " + e.getMessage());
+            }
+            endStage(event, "stock", sale, sale.stock.size(), bytes, (sale.applied & STOCK) != 0);
+        }
+        if ((sale.applied & ROWS) == 0) {
+            FlightEvents.SaleStage event = new FlightEvents.SaleStage();
+            event.begin();
+            long bytes = 0;
+            try {
+                synchronized (SalesJournal.BASE_LOCK) {
+                    if (!verify || !SalesPartitions.contains(sale.transactionId, saleDate(sale))) {
+                        bytes = SalesPartitions.append(sale.rows, true);
+                    }
+                }
+                sale.applied |= ROWS;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error applying sales rows of sale " + sale.transactionId + ": " + e.getMessage());
+            }
+            endStage(event, "rows", sale, sale.rows.size(), bytes, (sale.applied & ROWS) != 0);
+        }
+        if ((sale.applied & RECEIPT) == 0) {
+            FlightEvents.SaleStage event = new FlightEvents.SaleStage();
+            event.begin();
+            long bytes = 0;
+            try {
+                if (sale.receiptFile != null
+                        && (!verify || ReceiptStore.find(sale.receiptFile, sale.transactionId) == null)) {
+                    bytes = ReceiptStore.append(sale.receiptFile, sale.transactionId, sale.receiptText, true);
+                    ReceiptIndex.catchUp(sale.receiptFile);
+                }
+                sale.applied |= RECEIPT;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error writing receipt of sale " + sale.transactionId + ": " + e.getMessage());
+            }
+            endStage(event, "receipt", sale, sale.rows.size(), bytes, (sale.applied & RECEIPT) != 0);
+        }
+    }
+
+    // Fill in and commit a sale stage event (nothing when no recording is running)
+    private static void endStage(FlightEvents.SaleStage event, String stage, SaleRecord sale, int rows, long bytes,
+                                 boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.transactionId = sale.transactionId;
+            event.outlet = sale.rows.isEmpty() ? null : sale.rows.get(0)[OUTLET_COLUMN];
+            event.rows = rows;
+            event.bytes = bytes;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    private static LocalDate saleDate(SaleRecord sale) {
+        return LocalDate.parse(sale.rows.get(0)[DATE_COLUMN].trim());
+    }
+
+    //LOG FILE
+
+    // Open the log and cut off a torn record at the end (if any)
+    private static void open() throws IOException {
+        if (channel != null) return;
+        Path parent = LOG_PATH.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(LOG_PATH, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    // Read every complete record: COMMITs become pending, APPLIED marks add their parts
+    private static void readPending() throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (pos + 8 <= size) {
+            header.clear();
+            channel.read(header, pos);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || pos + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, pos + 8);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+            byte type = in.readByte();
+            if (type == COMMIT) {
+                SaleRecord sale = decodeCommit(in);
+                PENDING.put(sale.transactionId, sale);
+            } else if (type == APPLIED) {
+                SaleRecord sale = PENDING.get(in.readUTF());
+                if (sale != null) {
+                    sale.applied |= in.readByte();
+                    if (sale.applied == ALL) PENDING.remove(sale.transactionId);
+                }
+            }
+            pos += 8 + length;
+        }
+        if (pos < size) {
+            System.err.println("Warning: transaction log had an incomplete record, truncating it.");
+            channel.truncate(pos);
+        }
+        channel.position(pos);
+    }
+
+    // Returns the bytes written
+    private static int appendRecord(byte[] payload, boolean force) throws IOException {
+        open();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buf = ByteBuffer.allocate(8 + payload.length);
+        buf.putInt(payload.length);
+        buf.putInt((int) crc.getValue());
+        buf.put(payload);
+        buf.flip();
+        long start = channel.position();
+        try {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // leave no half record behind for the next append to follow
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+        return 8 + payload.length;
+    }
+
+    private static void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    //ENCODING
+
+    private static byte[] encodeCommit(SaleRecord sale) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(COMMIT);
+        out.writeUTF(sale.transactionId);
+        out.writeInt(sale.rows.size());
+        for (String[] row : sale.rows) {
+            out.writeInt(row.length);
+            for (String field : row) {
+                out.writeUTF(field == null ? "" : field);
+            }
+        }
+        out.writeInt(sale.stock.size());
+        for (StockLog.Delta d : sale.stock) {
+            out.writeUTF(d.modelId);
+            out.writeUTF(d.outletCode);
+            out.writeInt(d.quantity);
+        }
+        out.writeBoolean(sale.receiptFile != null);
+        if (sale.receiptFile != null) {
+            out.writeUTF(sale.receiptFile.toString());
+            // receipts can be longer than writeUTF allows
+            byte[] text = sale.receiptText.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SaleRecord decodeCommit(DataInputStream in) throws IOException {
+        String transactionId = in.readUTF();
+        List<String[]> rows = new ArrayList<>();
+        for (int r = in.readInt(); r > 0; r--) {
+            String[] row = new String[in.readInt()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = in.readUTF();
+            }
+            rows.add(row);
+        }
+        List<StockLog.Delta> stock = new ArrayList<>();
+        for (int d = in.readInt(); d > 0; d--) {
+            stock.add(new StockLog.Delta(in.readUTF(), in.readUTF(), in.readInt()));
+        }
+        Path receiptFile = null;
+        String receiptText = null;
+        if (in.readBoolean()) {
+            receiptFile = Paths.get(in.readUTF());
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            receiptText = new String(text, StandardCharsets.UTF_8);
+        }
+        SaleRecord sale = new SaleRecord(transactionId, rows, receiptFile, receiptText);
+        sale.stock = stock;
+        return sale;
+    }
+
+    private static byte[] encodeApplied(SaleRecord sale) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(APPLIED);
+        out.writeUTF(sale.transactionId);
+        out.writeByte(sale.applied);
+        return bytes.toByteArray();
+    }
+}
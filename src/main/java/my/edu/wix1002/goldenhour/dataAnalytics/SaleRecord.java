@@ -0,0 +1,23 @@
+package my.edu.wix1002.goldenhour.dataAnalytics;
+
+import java.time.LocalDate;
+
+/** One line of sales.csv, reduced to what the analytics need. */
+public final class SaleRecord {
+    final LocalDate date;
+    final String model;
+    final int quantity;
+    final long subtotal; // cents
+
+    public SaleRecord(LocalDate date, String model, int quantity, long subtotal) {
+        this.date = date;
+        this.model = model;
+        this.quantity = quantity;
+        this.subtotal = subtotal;
+    }
+
+    public LocalDate getDate() { return date; }
+    public String getModel() { return model; }
+    public int getQuantity() { return quantity; }
+    public long getSubtotal() { return subtotal; }
+}
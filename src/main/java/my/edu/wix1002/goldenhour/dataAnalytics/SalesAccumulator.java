@@ -0,0 +1,9 @@
+package my.edu.wix1002.goldenhour.dataAnalytics;
+
+/**
+ * One aggregate computed by SalesAggregator. The aggregator scans the records once and
+ * hands every record inside the date range to each accumulator in turn.
+ */
+public interface SalesAccumulator {
+    void add(SaleRecord record);
+}
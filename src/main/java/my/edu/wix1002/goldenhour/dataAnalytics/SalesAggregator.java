@@ -0,0 +1,135 @@
+package my.edu.wix1002.goldenhour.dataAnalytics;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SalesAggregator - computes any number of sales aggregates in a single scan.
+ *
+ * Usage:
+ *   SalesSummary s = SalesAggregator.standard(start, end).run(records);
+ *   s.getDailyTotals(), s.getMostSoldModel(), ...
+ * Extra aggregates can be plugged in with with(accumulator) and read back from the
+ * summary with get(AccumulatorClass.class).
+ * Amounts are cents (see util.Money); running totals are long[1] cells updated in place,
+ * so a record costs a map lookup and an addition, no new objects.
+ */
+public class SalesAggregator {
+
+    private final LocalDate start;
+    private final LocalDate end;
+    private final List<SalesAccumulator> accumulators = new ArrayList<>();
+
+    public SalesAggregator(LocalDate start, LocalDate end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /** Aggregator with the daily, weekly, monthly and per-model accumulators already added. */
+    public static SalesAggregator standard(LocalDate start, LocalDate end) {
+        return new SalesAggregator(start, end)
+                .with(new DailyTotals())
+                .with(new WeeklyTotals())
+                .with(new MonthlyTotals())
+                .with(new ModelQuantities());
+    }
+
+    public SalesAggregator with(SalesAccumulator accumulator) {
+        accumulators.add(accumulator);
+        return this;
+    }
+
+    /** One pass over the records: the range is tested once per record, then every accumulator sees it. */
+    public SalesSummary run(List<SaleRecord> records) {
+        SalesAccumulator[] acc = accumulators.toArray(new SalesAccumulator[0]);
+        for (SaleRecord r : records) {
+            if (r.date.isBefore(start) || r.date.isAfter(end)) continue;
+            for (SalesAccumulator a : acc) {
+                a.add(r);
+            }
+        }
+        return new SalesSummary(start, end, accumulators);
+    }
+
+    //BUILT-IN ACCUMULATORS
+
+    /** Revenue per day, in date order. */
+    public static final class DailyTotals implements SalesAccumulator {
+        private final Map<LocalDate, long[]> totals = new TreeMap<>();
+
+        public void add(SaleRecord r) {
+            totals.computeIfAbsent(r.date, k -> new long[1])[0] += r.subtotal;
+        }
+
+        public Map<LocalDate, Long> totals() { return unwrap(totals, new TreeMap<>()); }
+    }
+
+    /** Revenue per ISO week; key is year * 100 + week so weeks sort in order (202552, 202601, ...). */
+    public static final class WeeklyTotals implements SalesAccumulator {
+        private final Map<Integer, long[]> totals = new TreeMap<>();
+        // rows come grouped by date, so the week (and its cell) of the previous row is usually reused
+        private LocalDate lastDate;
+        private long[] lastCell;
+
+        public void add(SaleRecord r) {
+            if (!r.date.equals(lastDate)) {
+                lastDate = r.date;
+                int key = r.date.get(IsoFields.WEEK_BASED_YEAR) * 100 + r.date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+                lastCell = totals.computeIfAbsent(key, k -> new long[1]);
+            }
+            lastCell[0] += r.subtotal;
+        }
+
+        public Map<Integer, Long> totals() { return unwrap(totals, new TreeMap<>()); }
+
+        // 202605 -> "2026-W5"
+        public static String label(int key) {
+            return (key / 100) + "-W" + (key % 100);
+        }
+    }
+
+    /** Revenue per calendar month. */
+    public static final class MonthlyTotals implements SalesAccumulator {
+        private final Map<YearMonth, long[]> totals = new TreeMap<>();
+        private LocalDate lastDate;
+        private long[] lastCell;
+
+        public void add(SaleRecord r) {
+            if (!r.date.equals(lastDate)) {
+                lastDate = r.date;
+                lastCell = totals.computeIfAbsent(YearMonth.from(r.date), k -> new long[1]);
+            }
+            lastCell[0] += r.subtotal;
+        }
+
+        public Map<YearMonth, Long> totals() { return unwrap(totals, new TreeMap<>()); }
+    }
+
+    /** Units sold per model. */
+    public static final class ModelQuantities implements SalesAccumulator {
+        private final Map<String, int[]> quantities = new HashMap<>();
+
+        public void add(SaleRecord r) {
+            quantities.computeIfAbsent(r.model, k -> new int[1])[0] += r.quantity;
+        }
+
+        public Map<String, Integer> quantities() {
+            Map<String, Integer> out = new HashMap<>();
+            quantities.forEach((k, v) -> out.put(k, v[0]));
+            return Collections.unmodifiableMap(out);
+        }
+    }
+
+    // copy the running cells into a read-only map of plain values (once per summary, not per record)
+    private static <K> Map<K, Long> unwrap(Map<K, long[]> cells, Map<K, Long> out) {
+        cells.forEach((k, v) -> out.put(k, v[0]));
+        return Collections.unmodifiableMap(out);
+    }
+}
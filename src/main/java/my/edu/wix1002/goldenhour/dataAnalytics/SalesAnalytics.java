@@ -1,10 +1,13 @@
 package my.edu.wix1002.goldenhour.dataAnalytics;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.StorageSystem.SalesColumns;
+import my.edu.wix1002.goldenhour.StorageSystem.SalesRollup;
+import my.edu.wix1002.goldenhour.StorageSystem.TransactionLog;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.util.Money;
+
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -18,17 +21,9 @@ import java.util.*;
 
 public class SalesAnalytics {
 
-    private static final String SALES_CSV = "data/sales.csv";
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public static void main(String[] args) {
-        //Load sales records from csv
-        List<SaleRecord> records = loadSalesRecords();
-        if (records.isEmpty()) {
-            System.out.println("No sales records found.");
-            return;
-        }
-
         Scanner sc = new Scanner(System.in);
         System.out.println("Enter start date (yyyy-MM-dd):");
         LocalDate starDate = LocalDate.parse(sc.nextLine(), DATE_FMT);
@@ -38,136 +33,117 @@ public class SalesAnalytics {
 
         System.out.println();
 
+        // pre-aggregated cells from the sales rollup instead of every sales row
+        List<SaleRecord> records = loadRollupRecords(starDate, endDate);
+        if (records.isEmpty()) {
+            System.out.println("No sales records found.");
+            sc.close();
+            return;
+        }
+
+        // every aggregate in one pass over the records
+        SalesSummary summary = summarize(records, starDate, endDate);
+
         System.out.println("=== Analytical Summary of Sales Records ===");
 
         System.out.println("\n=== Total Sales Per Day ===");
-        printTotalSalesPerDay(records, starDate, endDate);
+        summary.getDailyTotals().forEach((date, total) -> System.out.println(date + " : RM" + Money.format(total)));
 
         System.out.println("\n=== Total Sales Per Week ===");
-        printTotalSalesPerWeek(records, starDate, endDate);
+        summary.getWeeklyTotals().forEach((week, total) ->
+                System.out.println("Week " + SalesAggregator.WeeklyTotals.label(week) + " : RM" + Money.format(total)));
 
         System.out.println("\n=== Total Sales Per Month ===");
-        printTotalSalesPerMonth(records, starDate, endDate);
+        summary.getMonthlyTotals().forEach((month, total) -> System.out.println(month + " : RM" + Money.format(total)));
 
         System.out.println("\n=== Most Sold Product Model ===");
-        printMostSoldProduct(records, starDate, endDate);
+        System.out.println(summary.getMostSoldModel() + " : " + summary.getMostSoldQuantity() + " units sold");
 
-        printAverageDailyRevenue(records, starDate, endDate);
+        Long avg = summary.getAverageDailyRevenue();
+        if (avg != null) {
+            System.out.println("\n=== Average Daily Revenue ===");
+            System.out.println("RM" + Money.format(avg));
+        } else {
+            System.out.println("No sales in the selected range.");
+        }
         
         System.out.println();
         sc.close();
     }
 
-    /** Load sales.csv into list of SaleRecord */
-    private static List<SaleRecord> loadSalesRecords() {
-        List<SaleRecord> records = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(SALES_CSV))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = br.readLine()) != null) {
-                if (firstLine) { firstLine = false; continue; } //skip header
-                String[] cols = line.split(",", -1);
-                if (cols.length < 11) continue;
-
-                //since csv file have "2025-12-25", so we need to remove"""
-                String dateStr = cols[9].replace("\"", "").trim();
-                LocalDate date = LocalDate.parse(dateStr, DATE_FMT);
-
-                String model = cols[4].replace("\"", "").trim();
-                int quantity = Integer.parseInt(cols[5].replace("\"", "").trim());
-                BigDecimal subtotal = new BigDecimal(cols[7].replace("\"", "").trim());
-
-                records.add(new SaleRecord(date, model, quantity, subtotal));
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading sales.csv: " + e.getMessage());
-        }
-        return records;
+    /** Load every sales partition (with the edit journal applied) into list of SaleRecord */
+    public static List<SaleRecord> loadSalesRecords() {
+        return toRecords(DataLoader.loadSales());
     }
 
-    /** Total sales per day in date range */
-    private static void printTotalSalesPerDay(List<SaleRecord> records, LocalDate start, LocalDate end) {
-        Map<LocalDate, BigDecimal> map = new TreeMap<>();
-        for (SaleRecord r : records) {
-            if (!r.date.isBefore(start) && !r.date.isAfter(end)) {
-                map.put(r.date, map.getOrDefault(r.date, BigDecimal.ZERO).add(r.subtotal));
-            }
-        }
-        map.forEach((date, total) -> System.out.println(date + " : RM" + total));
-    }    
-
-    /*Total sales per week in a date range*/
-    private static void printTotalSalesPerWeek(List<SaleRecord> records, LocalDate start, LocalDate end) {
-        Map<String, BigDecimal> map = new TreeMap<>(); //week number -> total
-        for (SaleRecord r : records) {
-            if (!r.date.isBefore(start) && !r.date.isAfter(end)) {
-                int week = r.date.get(java.time.temporal.IsoFields.WEEK_OF_WEEK_BASED_YEAR);
-                String key = r.date.getYear() + "-W" + week;
-                map.put(key, map.getOrDefault(key, BigDecimal.ZERO).add(r.subtotal));
-            }
-        }
-        map.forEach((week, total) -> System.out.println("Week " + week + " : RM" + total ));
+    /** Same, but only the partitions overlapping start..end are read */
+    public static List<SaleRecord> loadSalesRecords(LocalDate start, LocalDate end) {
+        return toRecords(DataLoader.loadSales(start, end));
     }
 
-    /*Total sales per month in a date range */
-    private static void printTotalSalesPerMonth(List<SaleRecord> records, LocalDate start, LocalDate end) {
-        Map<String, BigDecimal> map = new TreeMap<>();  // yyyy-MM -> total
-        for (SaleRecord r : records) {
-            if (!r.date.isBefore(start) && !r.date.isAfter(end)) {
-                String month = r.date.format(DateTimeFormatter.ofPattern("yyyy-MM"));
-                map.put(month, map.getOrDefault(month, BigDecimal.ZERO).add(r.subtotal));
+    private static List<SaleRecord> toRecords(List<Sales> sales) {
+        List<SaleRecord> records = new ArrayList<>();
+        // go through DataLoader so edited and removed sales are reflected
+        for (Sales s : sales) {
+            try {
+                LocalDate date = LocalDate.parse(s.getDate().trim(), DATE_FMT);
+                records.add(new SaleRecord(date, s.getModel().trim(), s.getQuantity(), s.getSubtotal()));
+            } catch (RuntimeException e) {
+                System.err.println("Skipping unreadable sales record " + s.getSaleID() + ": " + e.getMessage());
             }
         }
-        map.forEach((month, total) -> System.out.println(month + " : RM" + total));
+        return records;
     }
 
-    /*most sold prodyct model( by total quantity) */
-    private static void printMostSoldProduct(List<SaleRecord> records, LocalDate start, LocalDate end) {
-        Map<String, Integer> map = new HashMap<>();
-        for (SaleRecord r : records) {
-            if (!r.date.isBefore(start) && !r.date.isAfter(end)) {
-                map.put(r.model, map.getOrDefault(r.model, 0) + r.quantity);
-            }
-        }
-        String topModel = map.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey).orElse("None");
-        int qty = map.getOrDefault(topModel, 0);
-        System.out.println(topModel + " : " + qty + " units sold");
+    /** One SaleRecord per (outlet, model, day) cell of the sales rollup in the range */
+    public static List<SaleRecord> loadRollupRecords(LocalDate start, LocalDate end) {
+        List<SaleRecord> records = new ArrayList<>();
+        // committed sales the background applier has not written yet
+        TransactionLog.recover();
+        SalesRollup.forEachCell(start, end, (epochDay, outletCode, modelId, quantity, cents) ->
+                records.add(new SaleRecord(LocalDate.ofEpochDay(epochDay), modelId, (int) quantity, cents)));
+        return records;
     }
 
-    /*Average daily Revenue in a date range */
-    private static void printAverageDailyRevenue(List<SaleRecord> records, LocalDate start, LocalDate end) {
-        Map<LocalDate, BigDecimal> dailySales = new HashMap<>();
-        for (SaleRecord r : records) {
-            if (!r.date.isBefore(start) && !r.date.isAfter(end)) {
-            dailySales.put(r.date, dailySales.getOrDefault(r.date, BigDecimal.ZERO).add(r.subtotal));
+    /**
+     * One SaleRecord per (model, day) in the range, summed straight from the mapped column files:
+     * the loop only touches int and long columns; records are created once per cell at the end.
+     */
+    public static List<SaleRecord> loadColumnRecords(LocalDate start, LocalDate end) {
+        List<SaleRecord> records = new ArrayList<>();
+        long first = start.toEpochDay();
+        long last = end.toEpochDay();
+        TransactionLog.recover();
+        try {
+            for (SalesColumns.Segment seg : SalesColumns.segments(start, end)) {
+                int from = seg.firstRowOnOrAfter(first);
+                int to = seg.firstRowOnOrAfter(last + 1);
+                if (from >= to) continue;
+                // rows are sorted by day: cells are [day - first day of segment range][model]
+                int baseDay = seg.day(from);
+                int days = seg.day(to - 1) - baseDay + 1;
+                int models = seg.modelCount();
+                long[] cents = new long[days * models];
+                int[] quantity = new int[days * models];
+                for (int r = from; r < to; r++) {
+                    int cell = (seg.day(r) - baseDay) * models + seg.model(r);
+                    cents[cell] += seg.cents(r);
+                    quantity[cell] += seg.quantity(r);
+                }
+                for (int cell = 0; cell < cents.length; cell++) {
+                    if (quantity[cell] == 0 && cents[cell] == 0) continue;
+                    records.add(new SaleRecord(LocalDate.ofEpochDay(baseDay + cell / models),
+                            seg.modelName(cell % models), quantity[cell], cents[cell]));
+                }
             }
+        } catch (IOException e) {
+            System.err.println("Error reading sales columns: " + e.getMessage());
         }
-        BigDecimal total = dailySales.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-        if (!dailySales.isEmpty()) {
-            BigDecimal avg = total.divide(BigDecimal.valueOf(dailySales.size()), 2, RoundingMode.HALF_UP);
-            System.out.println("\n=== Average Daily Revenue ===");
-            System.out.println("RM" + avg);
-        } else {
-            System.out.println("No sales in the selected range.");
-        }
+        return records;
     }
 
-    /** Inner class to represent one line of sales.csv */
-    private static final class SaleRecord {
-        LocalDate date;
-        String model;
-        int quantity;
-        BigDecimal subtotal;
-
-        SaleRecord(LocalDate date, String model, int quantity, BigDecimal subtotal) {
-            this.date = date;
-            this.model = model;
-            this.quantity = quantity;
-            this.subtotal = subtotal;
-
-        
-        }
+    /** All standard aggregates for a date range (shared by the CLI and the JavaFX screens) */
+    public static SalesSummary summarize(List<SaleRecord> records, LocalDate start, LocalDate end) {
+        return SalesAggregator.standard(start, end).run(records);
     }
 }
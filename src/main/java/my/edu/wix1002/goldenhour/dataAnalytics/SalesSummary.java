@@ -0,0 +1,87 @@
+package my.edu.wix1002.goldenhour.dataAnalytics;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import my.edu.wix1002.goldenhour.util.Money;
+
+/**
+ * SalesSummary - result of one SalesAggregator run.
+ * Nothing is printed here; the CLI (SalesAnalytics) and the JavaFX screens format it themselves.
+ * Every amount is in cents (format with util.Money).
+ */
+public class SalesSummary {
+
+    private final LocalDate start;
+    private final LocalDate end;
+    private final List<SalesAccumulator> accumulators;
+
+    SalesSummary(LocalDate start, LocalDate end, List<SalesAccumulator> accumulators) {
+        this.start = start;
+        this.end = end;
+        this.accumulators = accumulators;
+    }
+
+    public LocalDate getStart() { return start; }
+    public LocalDate getEnd() { return end; }
+
+    /** The accumulator of the given type that took part in the run, or null. */
+    public <A extends SalesAccumulator> A get(Class<A> type) {
+        for (SalesAccumulator a : accumulators) {
+            if (type.isInstance(a)) return type.cast(a);
+        }
+        return null;
+    }
+
+    public Map<LocalDate, Long> getDailyTotals() {
+        SalesAggregator.DailyTotals a = get(SalesAggregator.DailyTotals.class);
+        return a == null ? Collections.emptyMap() : a.totals();
+    }
+
+    // keys are year * 100 + ISO week, see SalesAggregator.WeeklyTotals.label
+    public Map<Integer, Long> getWeeklyTotals() {
+        SalesAggregator.WeeklyTotals a = get(SalesAggregator.WeeklyTotals.class);
+        return a == null ? Collections.emptyMap() : a.totals();
+    }
+
+    public Map<YearMonth, Long> getMonthlyTotals() {
+        SalesAggregator.MonthlyTotals a = get(SalesAggregator.MonthlyTotals.class);
+        return a == null ? Collections.emptyMap() : a.totals();
+    }
+
+    public Map<String, Integer> getModelQuantities() {
+        SalesAggregator.ModelQuantities a = get(SalesAggregator.ModelQuantities.class);
+        return a == null ? Collections.emptyMap() : a.quantities();
+    }
+
+    /** Model with the most units sold ("None" if nothing was sold). */
+    public String getMostSoldModel() {
+        String top = "None";
+        int best = Integer.MIN_VALUE;
+        for (Map.Entry<String, Integer> e : getModelQuantities().entrySet()) {
+            if (e.getValue() > best) {
+                best = e.getValue();
+                top = e.getKey();
+            }
+        }
+        return top;
+    }
+
+    public int getMostSoldQuantity() {
+        return getModelQuantities().getOrDefault(getMostSoldModel(), 0);
+    }
+
+    /** Revenue over the days that had sales, divided by that number of days; null if there were none. */
+    public Long getAverageDailyRevenue() {
+        Map<LocalDate, Long> daily = getDailyTotals();
+        if (daily.isEmpty()) return null;
+        long total = 0;
+        for (long d : daily.values()) {
+            total += d;
+        }
+        return Money.divide(total, daily.size());
+    }
+}
@@ -1,30 +1,230 @@
 package my.edu.wix1002.goldenhour.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class Model {
+    // marks an outlet this model has no stock column for (different from a stock of 0)
+    private static final int NO_STOCK = Integer.MIN_VALUE;
+    // left in a slot of the old array while it is copied into a bigger one; readers retry on the new array
+    private static final int MOVED = Integer.MIN_VALUE + 1;
+
+    // atomic access to single elements of the stock array (no lock per model or outlet)
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(int[].class);
+
     private String modelId;
-    private double price;
-    private Map<String, Integer> stockByOutlet;
+    private long price; // in cents, see util.Money
+    // stock per outlet, indexed by OutletRegistry ordinal
+    private volatile int[] stock;
+    private final Map<String, Integer> stockByOutlet = new StockView();
 
-    public Model(String modelId, double price) {
+    public Model(String modelId, long price) {
         this.modelId = modelId;
         this.price = price;
-        this.stockByOutlet = new HashMap<>();
+        int[] s = new int[OutletRegistry.size()];
+        Arrays.fill(s, NO_STOCK);
+        this.stock = s;
     }
 
     public void addStock(String outletCode, int quantity) {
-        stockByOutlet.put(outletCode, quantity);
+        setStock(OutletRegistry.ordinal(outletCode), quantity);
+    }
+
+    // stock at an outlet, 0 if the outlet has no stock column for this model
+    public int getStock(String outletCode) {
+        int ordinal = OutletRegistry.find(outletCode);
+        return ordinal < 0 ? 0 : getStock(ordinal);
+    }
+
+    public int getStock(int ordinal) {
+        int raw = raw(ordinal);
+        return raw == NO_STOCK ? 0 : raw;
+    }
+
+    public boolean hasStock(int ordinal) {
+        return raw(ordinal) != NO_STOCK;
+    }
+
+    public void setStock(int ordinal, int quantity) {
+        while (true) {
+            int[] s = slots(ordinal);
+            int raw = (int) SLOT.getVolatile(s, ordinal);
+            if (raw == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (SLOT.compareAndSet(s, ordinal, raw, quantity)) return;
+        }
+    }
+
+    // set the stock at an outlet and return what it was (0 if the outlet had no stock column)
+    public int exchangeStock(int ordinal, int quantity) {
+        while (true) {
+            int[] s = slots(ordinal);
+            int raw = (int) SLOT.getVolatile(s, ordinal);
+            if (raw == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (SLOT.compareAndSet(s, ordinal, raw, quantity)) return raw == NO_STOCK ? 0 : raw;
+        }
+    }
+
+    // add (or with a negative delta, remove) stock at an outlet
+    public void adjustStock(int ordinal, int delta) {
+        while (true) {
+            int[] s = slots(ordinal);
+            int raw = (int) SLOT.getVolatile(s, ordinal);
+            if (raw == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int current = raw == NO_STOCK ? 0 : raw;
+            if (SLOT.compareAndSet(s, ordinal, raw, current + delta)) return;
+        }
+    }
+
+    /**
+     * Take quantity out of the stock at an outlet only if that much is there.
+     * Lock-free: concurrent callers can never take the stock below zero together.
+     */
+    public boolean tryTakeStock(int ordinal, int quantity) {
+        while (true) {
+            int[] s = slots(ordinal);
+            int raw = (int) SLOT.getVolatile(s, ordinal);
+            if (raw == MOVED) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int current = raw == NO_STOCK ? 0 : raw;
+            if (current < quantity) return false;
+            if (SLOT.compareAndSet(s, ordinal, raw, current - quantity)) return true;
+        }
     }
 
     public String getModelId() { return modelId; }
-    public double getPrice() { return price; }
+    public long getPrice() { return price; }
+
+    // Map view over the stock array (outlet code -> quantity), kept for older callers; writes go to the array
     public Map<String, Integer> getStockByOutlet() { return stockByOutlet; }
 
+    // current value of a slot (NO_STOCK if the array is too short), waiting out a resize
+    private int raw(int ordinal) {
+        while (true) {
+            int[] s = stock;
+            if (ordinal >= s.length) return NO_STOCK;
+            int raw = (int) SLOT.getVolatile(s, ordinal);
+            if (raw != MOVED) return raw;
+            Thread.onSpinWait();
+        }
+    }
+
+    // the array to write ordinal into, grown first if it is too short
+    private int[] slots(int ordinal) {
+        int[] s = stock;
+        return ordinal < s.length ? s : grow(ordinal);
+    }
+
+    /*
+     * Copy into a bigger array. Each old slot is swapped to MOVED as it is copied, so a
+     * CAS still aimed at the old array fails and retries on the new one; nothing is lost.
+     */
+    private synchronized int[] grow(int ordinal) {
+        int[] old = stock;
+        if (ordinal < old.length) return old;
+        int[] grown = new int[Math.max(ordinal + 1, OutletRegistry.size())];
+        Arrays.fill(grown, NO_STOCK);
+        for (int i = 0; i < old.length; i++) {
+            grown[i] = (int) SLOT.getAndSet(old, i, MOVED);
+        }
+        stock = grown;
+        return grown;
+    }
+
+    private final class StockView extends AbstractMap<String, Integer> {
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) return null;
+            int ordinal = OutletRegistry.find((String) key);
+            if (ordinal < 0) return null;
+            int raw = raw(ordinal);
+            return raw == NO_STOCK ? null : raw;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer put(String key, Integer value) {
+            Integer old = get(key);
+            setStock(OutletRegistry.ordinal(key), value);
+            return old;
+        }
+
+        @Override
+        public Integer remove(Object key) {
+            Integer old = get(key);
+            if (old != null) {
+                setStock(OutletRegistry.find((String) key), NO_STOCK);
+            }
+            return old;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < stock.length && raw(from) == NO_STOCK) from++;
+                            return from;
+                        }
+
+                        public boolean hasNext() {
+                            return next < stock.length;
+                        }
+
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int ordinal = next;
+                            next = advance(next + 1);
+                            return new AbstractMap.SimpleEntry<String, Integer>(OutletRegistry.code(ordinal), getStock(ordinal)) {
+                                @Override
+                                public Integer setValue(Integer value) {
+                                    setStock(ordinal, value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int n = 0;
+                    for (int i = 0; i < stock.length; i++) {
+                        if (raw(i) != NO_STOCK) n++;
+                    }
+                    return n;
+                }
+            };
+        }
+    }
+
     @Override
     public String toString() {
         return "Model{" + modelId + ", price=" + price + ", stock=" + stockByOutlet + "}";
     }
 }
-
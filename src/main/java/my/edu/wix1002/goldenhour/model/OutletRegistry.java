@@ -0,0 +1,65 @@
+package my.edu.wix1002.goldenhour.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OutletRegistry - gives every outlet code a small dense number (0, 1, 2, ...).
+ *
+ * Model keeps its stock in an int[] indexed by these ordinals, so hot paths look an
+ * outlet up once (ordinal(code)) and then read/write stock without hashing strings or
+ * boxing Integers. Ordinals are handed out in first-seen order and never change while
+ * the program runs.
+ */
+public final class OutletRegistry {
+
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static volatile String[] codes = new String[0];
+
+    private OutletRegistry() { }
+
+    /** Ordinal of an outlet code, registering the code if it is new. */
+    public static int ordinal(String outletCode) {
+        // ConcurrentHashMap.get(null) would throw NullPointerException
+        if (outletCode == null) {
+            throw new IllegalArgumentException("Outlet code is null");
+        }
+        Integer ord = ORDINALS.get(outletCode);
+        if (ord != null) {
+            return ord;
+        }
+        return register(outletCode);
+    }
+
+    /** Ordinal of an outlet code, or -1 if it was never registered (does not register it). */
+    public static int find(String outletCode) {
+        if (outletCode == null) return -1;
+        Integer ord = ORDINALS.get(outletCode);
+        return ord == null ? -1 : ord;
+    }
+
+    /** Outlet code for an ordinal. */
+    public static String code(int ordinal) {
+        return codes[ordinal];
+    }
+
+    /** Number of registered outlets (ordinals are 0 .. size()-1). */
+    public static int size() {
+        return codes.length;
+    }
+
+    private static synchronized int register(String outletCode) {
+        Integer ord = ORDINALS.get(outletCode);
+        if (ord != null) {
+            return ord;
+        }
+        int next = codes.length;
+        String[] grown = Arrays.copyOf(codes, next + 1);
+        grown[next] = outletCode;
+        // publish the code before the ordinal so code(ordinal(x)) always works
+        codes = grown;
+        ORDINALS.put(outletCode, next);
+        return next;
+    }
+}
@@ -1,5 +1,7 @@
 package my.edu.wix1002.goldenhour.model;
 
+import my.edu.wix1002.goldenhour.util.Money;
+
 public class Sales {
     private String saleID;
     private String employeeID;
@@ -7,16 +9,17 @@ public class Sales {
     private String customerName;
     private String model;
     private int quantity;
-    private double unitPrice;
-    private double subtotal; //total price for the specific item line
+    private long unitPrice; //in cents, see util.Money
+    private long subtotal; //total price for the specific item line, in cents
     private String transactionMethod;
     private String date;
     private String time;
+    private int line; //position of this row inside its transaction (multi-item sales share one SaleID)
     
     //Total number of fields is 11
 
     public Sales(String saleID, String employeeID, String outletCode, String customerName, 
-                 String model, int quantity, double unitPrice, double subtotal, 
+                 String model, int quantity, long unitPrice, long subtotal, 
                  String transactionMethod, String date, String time) {
         this.saleID = saleID;
         this.employeeID = employeeID;
@@ -38,25 +41,29 @@ public class Sales {
     public String getCustomerName() { return customerName; }
     public String getModel() { return model; }
     public int getQuantity() { return quantity; }
-    public double getUnitPrice() { return unitPrice; }
-    public double getSubtotal() { return subtotal; }
+    public long getUnitPrice() { return unitPrice; }
+    public long getSubtotal() { return subtotal; }
     public String getTransactionMethod() { return transactionMethod; }
     public String getDate() { return date; }
     public String getTime() { return time; }
+    public int getLine() { return line; }
     
     //SETTERS FOR EDITABLE FIELDS
     public void setCustomerName(String customerName) { this.customerName = customerName; }
     public void setModel(String model) { this.model = model; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
-    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
+    public void setSubtotal(long subtotal) { this.subtotal = subtotal; }
     public void setTransactionMethod(String transactionMethod) { this.transactionMethod = transactionMethod; }  
 
+    //set by the loader, used as part of the journal key (SaleID + line)
+    public void setLine(int line) { this.line = line; }
+
     //Data Saving, for storesystem to use
     @Override
     public String toString() {
         return String.join(",", 
             saleID, employeeID, outletCode, customerName, model, 
-            String.valueOf(quantity), String.valueOf(unitPrice), 
-            String.valueOf(subtotal), transactionMethod, date, time);
+            String.valueOf(quantity), Money.format(unitPrice),
+            Money.format(subtotal), transactionMethod, date, time);
     }
 }
@@ -2,19 +2,17 @@ package my.edu.wix1002.goldenhour;
 
 import my.edu.wix1002.goldenhour.model.Employee;
 import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLedger;
+import my.edu.wix1002.goldenhour.StorageSystem.TransactionLog;
+import my.edu.wix1002.goldenhour.util.Catalogue;
 import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.util.IdGenerator;
+import my.edu.wix1002.goldenhour.util.Money;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.AtomicMoveNotSupportedException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -26,19 +24,19 @@ import javax.print.attribute.SetOfIntegerSyntax;
  * SalesSystem - handles interactive sale recording, stock update and receipt generation.
  *
  * Integration:
- * - Call SalesSystem.recordNewSale(scanner, loggedInEmployee, allModels)
+ * - Call SalesSystem.recordNewSale(scanner, loggedInEmployee)
  *   from Main.showEmployeeMenu when user selects "Record New Sale".
+ * - recordSale(employee, customer, items, method) records a whole sale at once (HTTP server).
  *
  * Notes:
- * - Adjust MODEL_CSV_PATH if your DataLoader exposes a public constant for the model CSV location.
+ * - Stock is reserved through StockLedger as items are entered. On confirm the sale (rows,
+ *   stock changes, receipt) is committed as one TransactionLog record and the sales partition,
+ *   stock log and receipt file are written from it; model.csv is updated by the stock log's checkpoint.
  * - Employee.getOutletCode() must be set (Employee constructor must assign outletCode).
  */
 public class salesSystem {
 
-    // Change this path if DataLoader.MODEL_FILE_PATH becomes public or you want a relative path.
-    private static final String MODEL_CSV_PATH = DataLoader.MODEL_FILE_PATH;
     private static final Path SALES_DIR = Paths.get("data", "sales");
-    private static final Path SALES_CSV = Paths.get("data", "sales.csv");
 
     /*ofPattern(): create DateTimeFormatter instance by specifying a custom date and/or time pattern.
      * converting a string to a date/time object and vice versa.　
@@ -46,9 +44,8 @@ public class salesSystem {
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     // a: AM/PM marker
     private static final DateTimeFormatter TIME_PRINT_FMT = DateTimeFormatter.ofPattern("hh:mm a");
-    private static final DateTimeFormatter TX_ID_FMT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
 
-    public static void recordNewSale(Scanner scanner, Employee loggedInEmployee, List<Model> allModels) {
+    public static void recordNewSale(Scanner scanner, Employee loggedInEmployee) {
         if (loggedInEmployee == null) {
             System.out.println("Error: no logged-in employee.");
             return;
@@ -59,13 +56,8 @@ public class salesSystem {
             return;
         }
 
-        // Quick lookup map modelId -> Model (uppercase keys)
-        Map<String, Model> modelMap = new HashMap<>();
-        for (Model m : allModels) {
-            if (m != null && m.getModelId() != null) {
-                modelMap.put(m.getModelId().toUpperCase(), m);
-            }
-        }
+        // stock is stored per outlet ordinal; look the outlet up once for the whole sale
+        int outletOrdinal = OutletRegistry.ordinal(outletCode);
 
         LocalDateTime now = LocalDateTime.now();
         System.out.println("\n=== Record New Sale ===");
@@ -76,6 +68,8 @@ public class salesSystem {
         System.out.println("Item(s) Purchased: ");
 
         List<SaleItem> items = new ArrayList<>();
+        // stock is held through the ledger as each item is entered, so another terminal cannot sell it meanwhile
+        List<StockLedger.Reservation> reservations = new ArrayList<>();
 
         while (true) {
             System.out.print("Enter Model: ");
@@ -84,15 +78,15 @@ public class salesSystem {
                 System.out.println("Model cannot be empty. Try again.");
                 continue;
             }
-            Model model = modelMap.get(modelInput);
+            // the current catalogue (it may have been reloaded while the sale is entered)
+            Model model = Catalogue.get().model(modelInput);
             if (model == null) {
                 System.out.println("Model not found: " + modelInput);
                 continue;
             }
 
-            // Show unit price and available stock at employee outlet
-            BigDecimal unitPrice = BigDecimal.valueOf(model.getPrice());
-            int currentStockVal = model.getStockByOutlet().getOrDefault(outletCode, 0);
+            // Show unit price at employee outlet
+            long unitPrice = model.getPrice();
             System.out.println("Unit Price: RM" + formatCurrency(unitPrice));
 
             System.out.print("Enter Quantity: ");
@@ -110,11 +104,13 @@ public class salesSystem {
                 continue;
             }
 
-            if (quantityInput > currentStockVal) {
-                System.out.println("Insufficient stock. Available: " + currentStockVal + ". Try again.");
+            StockLedger.Reservation reservation = StockLedger.reserve(model.getModelId(), outletCode, quantityInput);
+            if (reservation == null) {
+                System.out.println("Insufficient stock. Available: " + available(modelInput, outletOrdinal) + ". Try again.");
                 continue;
             }
 
+            reservations.add(reservation);
             items.add(new SaleItem(modelInput, unitPrice, quantityInput));
 
             System.out.print("Are there more items purchased? (Y/N): ");
@@ -128,9 +124,9 @@ public class salesSystem {
         }
 
 
-        BigDecimal subtotal = BigDecimal.ZERO;
+        long subtotal = 0;
         for (SaleItem it : items) {
-            subtotal = subtotal.add(it.unitPrice.multiply(BigDecimal.valueOf(it.quantity)));
+            subtotal += Money.times(it.unitPrice, it.quantity);
         }
 
         System.out.print("Enter transaction method (Cash, Debit Card, Credit Card, E-wallet, Other): ");
@@ -140,193 +136,110 @@ public class salesSystem {
         System.out.print("Confirm sale? (Y/N): ");
         String confirmPayment = scanner.nextLine().trim().toUpperCase();
         if (!confirmPayment.equals("Y")) {
+            StockLedger.release(reservations);
             System.out.println("Transaction cancelled.");
             return;
         }
 
-        // Backup quantities for rollback if needed
-        Map<String, Integer> backups = new HashMap<>();
-        for (SaleItem it : items) {
-            Model m = modelMap.get(it.modelId);
-            int curr = m.getStockByOutlet().getOrDefault(outletCode, 0);
-            backups.put(it.modelId, curr);
-            m.getStockByOutlet().put(outletCode, curr - it.quantity);
-        }
-
-        // Append receipt (transaction id to help tracing)
-        String txId = now.format(TX_ID_FMT) + "-" + (new Random().nextInt(900) + 100);
+        // one id for the rows, the receipt and the transaction log record
+        String txId = IdGenerator.next();
         Sale sale = new Sale(txId, now, loggedInEmployee, customerName, items, paymentMethod, subtotal);
+        Path receiptFile = SALES_DIR.resolve("sales_" + now.toLocalDate().format(DATE_FMT) + ".txt");
 
+        /*Rows, stock changes and receipt are logged as one transaction record; once that append
+        is on disk the sale is committed and the files are written from it (again after a crash).
+        Nothing has to be undone by hand: on failure only the reservations are given back.
+         */
+        TransactionLog.SaleRecord record = new TransactionLog.SaleRecord(txId, saleRows(sale), receiptFile, receiptText(sale));
         try {
-            appendSaleToCsv(sale);
+            if (!StockLedger.commit(reservations, record)) {
+                System.err.println("Stock reservation expired before the sale was confirmed.");
+                StockLedger.release(reservations);
+                System.out.println("Transaction aborted.");
+                return;
+            }
             //to catch error : A file doesn't exist or is inaccessible/Permission issues/loss o trnasfer
         } catch (IOException e) {
-            System.err.println("Failed to generate receipt: " + e.getMessage());
-            //undo in-memory changes
-            for (Map.Entry<String, Integer> e2 : backups.entrySet()) {
-                Model m = modelMap.get(e2.getKey());
-                if ( m != null) {
-                    m.getStockByOutlet().put(outletCode, e2.getValue());
-                }
-            }
+            System.err.println("Failed to record the sale: " + e.getMessage());
+            //give the reserved stock back
+            StockLedger.release(reservations);
             System.out.println("Transaction aborted.");
-            // Note: model.csv already updated; for strict atomicity you'd implement compensating actions or journaling.
-            return;
-        }
-
-        /*Persist model.csv with updated quantities for this outlet. If 
-        this fails, try to remove the previously appended CSV rows and rollback quantities
-         */ 
-        boolean persisted = persistModelCsv(allModels, outletCode);
-        if (!persisted) {
-            System.out.println("Failed to persist stock changes. Transaction aborted.");
-            try {
-                removeSaleFromCsv(sale.transactionId);
-            } catch (IOException ex) {
-                System.err.println("Failed to remove appended sale from sales.csv automatically. Manual cleanup may be required." + ex.getMessage());
-            }
-            // Undo in-memory changes
-            for (Map.Entry<String, Integer> e : backups.entrySet()) {
-                Model m = modelMap.get(e.getKey());
-                if (m != null) {
-                    m.getStockByOutlet().put(outletCode, e.getValue());
-                }
-            }
-            System.out.println("Transaction aborted. ");
             return;
         }
 
-        //3) Write human-readable receipt file (still useful even if CSV succeeded).
-        try {
-            appendReceipt(sale);
-        } catch (IOException e) {
-            System.err.println("Failed to generate receipt file: " + e.getMessage());
-            // The sale and model.csv are already updated; report to user.
-        }
-
         System.out.println("Transaction successful.");
         System.out.println("Sale recorded successfully.");
         System.out.println("Model quantities updated successfully.");
-        System.out.println("Receipt generated: sales_" + now.toLocalDate().format(DATE_FMT) + ".txt");
+        System.out.println("Receipt generated: " + receiptFile.getFileName());
     }
 
     /**
-     * Persist the model CSV by updating the column for the given outlet code.
-     * Returns true on success, false on error.
+     * Record a sale without the console (used by the HTTP server). items maps model id to quantity.
+     * Every item is reserved, then the sale is committed like a confirmed console sale.
+     * Returns the transaction id. IllegalArgumentException for an unknown model or a bad quantity,
+     * IllegalStateException when there is not enough stock; no stock stays reserved then.
      */
-    private static boolean persistModelCsv(List<Model> allModels, String outletCode) {
-        Path modelPath = Paths.get(MODEL_CSV_PATH);
-        if (!Files.exists(modelPath)) {
-            System.err.println("Model CSV not found: " + MODEL_CSV_PATH);
-            return false;
+    public static String recordSale(Employee employee, String customerName, Map<String, Integer> items,
+                                    String paymentMethod) throws IOException {
+        String outletCode = employee.getOutletCode();
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("No items purchased");
         }
+        int outletOrdinal = OutletRegistry.ordinal(outletCode);
+        Catalogue.Snapshot catalogue = Catalogue.get();
 
+        List<SaleItem> saleItems = new ArrayList<>();
+        List<StockLedger.Reservation> reservations = new ArrayList<>();
+        boolean committed = false;
         try {
-            //readAllLines(): read all lines from a file into a List<String>.Charset is used to decoding the bytes from the file into characters
-            //largefile use BufferedReader
-            List<String> lines = Files.readAllLines(modelPath, StandardCharsets.UTF_8);
-            if (lines.isEmpty()) {
-                System.err.println("Model CSV is empty: " + MODEL_CSV_PATH);
-                return false;
-            }
-
-            /*read the headder row (first line) of the CSV file, and split the headerRow into col 
-            using comma as separator
-            The second argument -1 ensures trailing empty columns are included (important if some rows end with commas).
-            Result: headers is an array of header strings, e.g. headers[0] = "Model", headers[2] = "C60".
-            */
-            String headerLine = lines.get(0);
-            String[] headers = headerLine.split(",", -1);
-            /*Remove BOM(Byte Order Mark- It is a Unicode code point U+FEFF used at the start of a text stream) if present on first header 
-            Microsoft Excel and some Windows tools prepend the three-byte UTF-8 BOM sequence (0xEF,0xBB,0xBF) at the start of files.*/ 
-            headers[0] = headers[0].replace("\uFEFF", "");
-
-            //for loop searches headers which equals the outletCode for updating stock
-            //outletIndex = -1 : sentinel value meaning "not found", valid col index return >=0
-            int outletIndex = -1;
-            for (int i = 0; i < headers.length; i++) {
-                if (headers[i].trim().equalsIgnoreCase(outletCode)) {
-                    outletIndex = i;
-                    break;
+            long subtotal = 0;
+            for (Map.Entry<String, Integer> item : items.entrySet()) {
+                Model model = catalogue.model(item.getKey());
+                if (model == null) {
+                    throw new IllegalArgumentException("Model not found: " + item.getKey());
                 }
-            }
-            //outletIndex == -1 tells the code the requested outlet column was not present in the CSV header
-            if (outletIndex == -1) {
-                System.err.println("Outlet code " + outletCode + " not found in model CSV header.");
-                return false;
-            }
-
-            // Build quick map modelId -> Model
-            Map<String, Model> map = new HashMap<>();
-            for (Model m : allModels) {
-                if (m != null && m.getModelId() != null) {
-                    map.put(m.getModelId().toUpperCase(), m);
-                }
-            }
-
-            //Creates a new list to hold the output CSV lines (in memory) that will write back to disk
-            List<String> outLines = new ArrayList<>();
-            // Preserve the header exactly as read (including BOM if present)
-            outLines.add(headerLine);
-
-            //iterate each CSV row,fetch the line and preserve blank lines
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i);
-                if (line == null || line.trim().isEmpty()) {
-                    outLines.add(line);
-                    continue;
+                int quantity = item.getValue();
+                if (quantity <= 0) {
+                    throw new IllegalArgumentException("Quantity of " + model.getModelId() + " must be greater than zero");
                 }
-                String[] cols = line.split(",", -1);
-                String modelId = cols[0].trim().toUpperCase();
-                Model m = map.get(modelId); //look up Model object by modelId
-                if (m != null) {
-                    Integer qty = m.getStockByOutlet().get(outletCode);
-                    //valueof(): convert Integer to String
-                    cols[outletIndex] = String.valueOf(qty == null ? 0 : qty);
+                StockLedger.Reservation reservation = StockLedger.reserve(model.getModelId(), outletCode, quantity);
+                if (reservation == null) {
+                    throw new IllegalStateException("Insufficient stock of " + model.getModelId()
+                            + ". Available: " + available(model.getModelId(), outletOrdinal));
                 }
-                //rebuild the CSV row from the cols array by joining columns with commas and add to outLines
-                outLines.add(String.join(",", cols));
+                reservations.add(reservation);
+                saleItems.add(new SaleItem(model.getModelId(), model.getPrice(), quantity));
+                subtotal += Money.times(model.getPrice(), quantity);
             }
 
-            /*Write to temp file in same directory then move atomically,getParent(): return the have original CSV file path
-            temp-file + move pattern prevents interrupted writes during midway crashes. Renaming ensure the ori. file remains intact 
-            AtomicMoveNotSupportedException ensure that supported move are ont eh same filesystem
-            UTF-8 supported by JVM (safer then JVM default sometimes) and other editors/Excel
-            Example output: modelPath = .../data/model.csv; outlines : 
-            "Model,Price,C60,C61"
-            "SW2500-1,845,3,2"
-            "DW2300-1,399,1,4"
-            then, tmp file created as .../data/model-1234567890.tmp,writes 3 lines (with the platform line separator between lines).
-            Files.move(tmp, modelPath, REPLACE_EXISTING, ATOMIC_MOVE) renames model-1234567890.tmp to model.csv
-            */ 
-            Path dir = modelPath.getParent();
-            Path tmp = Files.createTempFile(dir, "model-", ".tmp");
-            Files.write(tmp, outLines, StandardCharsets.UTF_8);
-
-            //Replace the ori. file atomically(to avoid partial writes if interrupted)
-            try {
-                Files.move(tmp, modelPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            } catch (AtomicMoveNotSupportedException amnse) {
-                // Fallback if atomic move not supported
-                Files.move(tmp, modelPath, StandardCopyOption.REPLACE_EXISTING);
+            LocalDateTime now = LocalDateTime.now();
+            String txId = IdGenerator.next();
+            Sale sale = new Sale(txId, now, employee, customerName, saleItems, paymentMethod, subtotal);
+            Path receiptFile = SALES_DIR.resolve("sales_" + now.toLocalDate().format(DATE_FMT) + ".txt");
+            TransactionLog.SaleRecord record = new TransactionLog.SaleRecord(txId, saleRows(sale), receiptFile, receiptText(sale));
+            if (!StockLedger.commit(reservations, record)) {
+                throw new IllegalStateException("Stock reservation expired before the sale was committed");
+            }
+            committed = true;
+            return txId;
+        } finally {
+            if (!committed) {
+                StockLedger.release(reservations);
             }
-
-            return true;
-        } catch (IOException e) {
-            System.err.println("Error persisting model CSV: " + e.getMessage());
-            return false;
         }
     }
 
+    // stock of a model at an outlet in the current catalogue
+    private static int available(String modelId, int outletOrdinal) {
+        Model model = Catalogue.get().model(modelId);
+        return model == null ? 0 : model.getStock(outletOrdinal);
+    }
+
     /**
-     * Append a receipt block to data/sales/sales_yyyy-MM-dd.txt
+     * The receipt block appended to data/sales/sales_yyyy-MM-dd.txt
      */
-    private static void appendReceipt(Sale sale) throws IOException {
-        if (!Files.exists(SALES_DIR)) {
-            Files.createDirectories(SALES_DIR);
-        }
+    private static String receiptText(Sale sale) {
         LocalDate date = sale.timestamp.toLocalDate();
-        Path receiptFile = SALES_DIR.resolve("sales_" + date.format(DATE_FMT) + ".txt");
 
         StringBuilder sb = new StringBuilder();
         sb.append("Date: ").append(date.format(DATE_FMT)).append(System.lineSeparator());
@@ -344,111 +257,41 @@ public class salesSystem {
         sb.append("Subtotal: RM").append(formatCurrency(sale.subtotal)).append(System.lineSeparator());
         sb.append("Transaction ID: ").append(sale.transactionId).append(System.lineSeparator());
         sb.append("-----------------------------------------------------").append(System.lineSeparator());
-
-        try (BufferedWriter writer = Files.newBufferedWriter(receiptFile, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            writer.write(sb.toString());
-        }
+        return sb.toString();
     }
 
     // Helper classes
-    private static void appendSaleToCsv(Sale sale) throws IOException {
-        Path parent = SALES_CSV.getParent();
-        if (parent != null && !Files.exists(parent)) {
-            Files.createDirectories(parent);
+    // One row per item, in the columns of the sales partitions
+    private static List<String[]> saleRows(Sale sale) {
+        String date = sale.timestamp.toLocalDate().format(DATE_FMT);
+        String time = sale.timestamp.format(TIME_PRINT_FMT);
+
+        List<String[]> rows = new ArrayList<>(sale.items.size());
+        for (SaleItem item : sale.items) {
+            long lineSubtotal = Money.times(item.unitPrice, item.quantity);
+            rows.add(new String[] {
+                    sale.transactionId,
+                    sale.employee.getEmployeeID(),
+                    sale.employee.getOutletCode(),
+                    sale.customerName,
+                    item.modelId,
+                    String.valueOf(item.quantity),
+                    Money.format(item.unitPrice),
+                    Money.format(lineSubtotal),
+                    sale.transactionMethod,
+                    date,
+                    time
+            });
         }
-
-        boolean needHeader = !Files.exists(SALES_CSV ) || Files.size(SALES_CSV) == 0;
-
-        //Detect if the existing file ends with a newline
-        boolean fileEndWithNewLine = true;
-        if (Files.exists(SALES_CSV) && Files.size(SALES_CSV) > 0) {
-            try (java.io.RandomAccessFile ref = new java.io.RandomAccessFile(SALES_CSV.toFile(), "r")) {
-                ref.seek(ref.length() - 1);
-                int last = ref.read();//read the last byte
-                fileEndWithNewLine = (last == '\n' || last == '\r');
-            }
-        } 
-
-        try (BufferedWriter writer = Files.newBufferedWriter(SALES_CSV, StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            if (needHeader) {
-                writer.write("SaleID,EmployeeID,OutletCode,CustomerName,Model,Quantity,UnitPrice,Subtotal,PaymentMethod,Date,Time");
-                writer.newLine();
-            } else {
-                if (!fileEndWithNewLine) {
-                    writer.newLine();
-                }
-            }
-
-            String date = sale.timestamp.toLocalDate().format(DATE_FMT);
-            String time = sale.timestamp.format(TIME_PRINT_FMT);
-
-            for (SaleItem item : sale.items) {
-                BigDecimal lineSubtotal = item.unitPrice.multiply(BigDecimal.valueOf(item.quantity));
-                String[] cols = new String[] {
-                        escapeCsv(sale.transactionId),
-                        escapeCsv(sale.employee.getEmployeeID()),
-                        escapeCsv(sale.employee.getOutletCode()),
-                        escapeCsv(sale.customerName),
-                        escapeCsv(item.modelId),
-                        String.valueOf(item.quantity),
-                        formatCurrency(item.unitPrice),
-                        formatCurrency(lineSubtotal),
-                        escapeCsv(sale.transactionMethod),
-                        date,
-                        time
-            };
-            writer.write(String.join(",", cols));
-            writer.newLine();
-        } 
-        writer.flush();
-    }
-}
-
-    private static void removeSaleFromCsv(String saleId) throws IOException {
-        if (!Files.exists(SALES_CSV)) return;
-        List<String> lines = Files.readAllLines(SALES_CSV, StandardCharsets.UTF_8);
-        if (lines.isEmpty()) return;
-
-        List<String> out = new ArrayList<>();
-
-        //keep header
-        out.add(lines.get(0));
-
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i);
-            if (line == null || line.trim().isEmpty()) {
-                out.add(line);
-                continue;
-            }
-
-            String trimmed = line.trim();
-            if (trimmed.startsWith(saleId + ",") || trimmed.startsWith("\"" + saleId + "\",") ) {
-                // skip this line (remove)
-                continue;
-            }
-            out.add(line);
-    }
-
-    // overwrite file with filtered content
-        Files.write(SALES_CSV, out, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-    }
-
-    // Simple CSV escape for fields that may contain commas or quotes.
-    private static String escapeCsv(String field) {
-        if (field == null) return "";
-        boolean needQuotes = field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r");
-        String escaped = field.replace("\"", "\"\"");
-        return needQuotes ? "\"" + escaped + "\"" : escaped;
+        return rows;
     }
 
     private static class SaleItem {
         String modelId;
-        BigDecimal unitPrice;
+        long unitPrice; // cents
         int quantity;
 
-        SaleItem(String modelId, BigDecimal unitPrice, int quantity) {
+        SaleItem(String modelId, long unitPrice, int quantity) {
             this.modelId = modelId;
             this.unitPrice = unitPrice;
             this.quantity = quantity;
@@ -462,10 +305,10 @@ public class salesSystem {
         String customerName;
         List<SaleItem> items;
         String transactionMethod;
-        BigDecimal subtotal;
+        long subtotal; // cents
 
         Sale(String transactionId, LocalDateTime timestamp, Employee employee, String customerName,
-             List<SaleItem> items, String transactionMethod, BigDecimal subtotal) {
+             List<SaleItem> items, String transactionMethod, long subtotal) {
             this.transactionId = transactionId;
             this.timestamp = timestamp;
             this.employee = employee;
@@ -476,12 +319,8 @@ public class salesSystem {
         }
     }
 
-    private static String formatCurrency(BigDecimal value) {
-        value = value.setScale(2, RoundingMode.HALF_UP);
-        if (value.stripTrailingZeros().scale() <= 0) {
-            return value.toBigInteger().toString();
-        } else {
-            return value.toPlainString();
-        }
+    // receipts show whole amounts without decimals ("RM349"), anything else with two ("RM349.50")
+    private static String formatCurrency(long cents) {
+        return cents % 100 == 0 ? String.valueOf(cents / 100) : Money.format(cents);
     }
 }
\ No newline at end of file
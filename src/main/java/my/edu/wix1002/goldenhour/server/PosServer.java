@@ -0,0 +1,490 @@
+package my.edu.wix1002.goldenhour.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import my.edu.wix1002.goldenhour.AttendanceSystem;
+import my.edu.wix1002.goldenhour.SearchInformation;
+import my.edu.wix1002.goldenhour.StockManagement;
+import my.edu.wix1002.goldenhour.salesSystem;
+import my.edu.wix1002.goldenhour.StorageSystem.TransactionLog;
+import my.edu.wix1002.goldenhour.dataAnalytics.SalesAggregator;
+import my.edu.wix1002.goldenhour.dataAnalytics.SalesAnalytics;
+import my.edu.wix1002.goldenhour.dataAnalytics.SalesSummary;
+import my.edu.wix1002.goldenhour.model.Employee;
+import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.util.Money;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PosServer - headless mode: one process owns data/ and every terminal talks to it over HTTP.
+ *
+ * Usage: java ... my.edu.wix1002.goldenhour.server.PosServer [--port 8080] [--bind 127.0.0.1]
+ * Only this machine can connect by default; pass --bind 0.0.0.0 (or one address) for terminals
+ * on the store network. Requests are plain HTTP, so keep it behind the store's own network.
+ *
+ * Every request runs on its own virtual thread. Requests that write (sale, stock in/out,
+ * clock in/out) are handed to one "data-owner" thread and run there one after another, so
+ * no two terminals' writes interleave; reads (search, analytics) run on the request thread
+ * against the same in-memory catalogue and indexes.
+ * The data-owner is not the only thread writing data/: the storage layer's own daemons also do
+ * (stock-log-checkpoint, sales-journal-compactor, stock-ledger-sweeper, sales-rollup-saver and
+ * transaction-applier). Each takes the same lock as the request writes to its files
+ * (TransactionLog.class, StockLog.class, SalesJournal.BASE_LOCK), so they run between writes,
+ * not inside them.
+ *
+ * Requests are form encoded (query string or POST body), responses are JSON. POST /api/login
+ * returns a token; every other call sends it as "Authorization: Bearer <token>". A token stops
+ * working after SESSION_IDLE without a call or SESSION_MAX after login, whichever comes first.
+ *   POST /api/login              employeeId, password
+ *   POST /api/logout
+ *   POST /api/sales              customer, method, items=MODEL:QTY,MODEL:QTY
+ *   POST /api/stock/in           from (HQ or outlet), to (default: own outlet), items
+ *   POST /api/stock/out          from (default: own outlet), to, items
+ *   POST /api/attendance/clock-in
+ *   POST /api/attendance/clock-out
+ *   GET  /api/search/stock       model
+ *   GET  /api/search/sales       q (date, customer, model, employee or transaction id)
+ *   GET  /api/analytics          start, end (yyyy-MM-dd)
+ * Errors come back as {"error": "..."}: 400 bad input, 401 not signed in or session expired,
+ * 404 unknown path, 405 wrong method, 409 refused by the store (stock, attendance), 500 file errors.
+ */
+public final class PosServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final String DEFAULT_BIND = "127.0.0.1";
+    public static final Duration SESSION_IDLE = Duration.ofMinutes(30);
+    public static final Duration SESSION_MAX = Duration.ofHours(12);
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+    private static final String USAGE = "Usage: PosServer [--port 8080] [--bind 127.0.0.1]";
+
+    private final HttpServer http;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService dataOwner = Executors.newSingleThreadExecutor(r -> new Thread(r, "data-owner"));
+
+    // signed-in terminals by token
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    /** One request handler; throws the exceptions that map to error statuses. */
+    private interface Handler {
+        Object handle(HttpExchange exchange, Map<String, String> params) throws Exception;
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /** One signed-in terminal; times are System.nanoTime() values. */
+    private static final class Session {
+        final Employee employee;
+        final long signedIn;
+        volatile long lastUsed;
+
+        Session(Employee employee, long now) {
+            this.employee = employee;
+            this.signedIn = now;
+            this.lastUsed = now;
+        }
+
+        boolean expired(long now) {
+            return now - lastUsed > SESSION_IDLE.toNanos() || now - signedIn > SESSION_MAX.toNanos();
+        }
+    }
+
+    public PosServer(InetSocketAddress address) throws IOException {
+        http = HttpServer.create(address, 0);
+        http.setExecutor(requests);
+
+        route("/api/login", "POST", this::login);
+        route("/api/logout", "POST", this::logout);
+        route("/api/sales", "POST", this::recordSale);
+        route("/api/stock/in", "POST", (ex, p) -> moveStock(ex, p, true));
+        route("/api/stock/out", "POST", (ex, p) -> moveStock(ex, p, false));
+        route("/api/attendance/clock-in", "POST", (ex, p) -> punch(ex, true));
+        route("/api/attendance/clock-out", "POST", (ex, p) -> punch(ex, false));
+        route("/api/search/stock", "GET", this::searchStock);
+        route("/api/search/sales", "GET", this::searchSales);
+        route("/api/analytics", "GET", this::analytics);
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        String bind = DEFAULT_BIND;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for " + args[i] + "\n" + USAGE);
+                return;
+            }
+            switch (args[i]) {
+                case "--port" -> {
+                    try {
+                        port = Integer.parseInt(args[i + 1]);
+                    } catch (NumberFormatException e) {
+                        port = -1;
+                    }
+                    if (port < 0 || port > 65535) {
+                        System.err.println("Invalid port " + args[i + 1] + "\n" + USAGE);
+                        return;
+                    }
+                }
+                case "--bind" -> bind = args[i + 1];
+                default -> {
+                    System.err.println("Unknown option " + args[i] + "\n" + USAGE);
+                    return;
+                }
+            }
+        }
+        try {
+            PosServer server = new PosServer(new InetSocketAddress(bind, port));
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "pos-server-stop"));
+            System.out.println("Store server listening on " + bind + ":" + port + " (Ctrl+C to stop)");
+        } catch (IOException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+        }
+    }
+
+    /** Load the store (and finish any interrupted sale) on the data-owner thread, then accept requests. */
+    public void start() throws IOException {
+        owned(() -> {
+            TransactionLog.recover();
+            Catalogue.get();
+            return null;
+        });
+        http.start();
+    }
+
+    /**
+     * Stop accepting requests and wait (up to STOP_TIMEOUT_SECONDS) for the writes already queued
+     * to finish; as a shutdown hook it has to wait, the JVM halts once the hooks return.
+     */
+    public void stop() {
+        http.stop(1);
+        dataOwner.shutdown();
+        requests.shutdown();
+        try {
+            if (!dataOwner.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Store server stopped with writes still running.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    //ROUTES
+
+    private void route(String path, String method, Handler handler) {
+        http.createContext(path, exchange -> {
+            int status = 200;
+            Object body;
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    throw new HttpError(404, "Not found: " + exchange.getRequestURI().getPath());
+                }
+                if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    throw new HttpError(405, "Use " + method + " for " + path);
+                }
+                body = handler.handle(exchange, params(exchange));
+            } catch (HttpError e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                status = 400;
+                body = error(e.getMessage());
+            } catch (IllegalStateException e) {
+                status = 409;
+                body = error(e.getMessage());
+            } catch (Exception e) {
+                System.err.println("Error handling " + method + " " + path + ": " + e.getMessage());
+                status = 500;
+                body = error(e.getMessage());
+            }
+            respond(exchange, status, body);
+        });
+    }
+
+    //HANDLERS
+
+    private Object login(HttpExchange exchange, Map<String, String> params) {
+        String id = required(params, "employeeId");
+        String password = required(params, "password");
+        Employee employee = null;
+        for (Employee e : DataLoader.loadEmployees()) {
+            if (e.getEmployeeID().equals(id) && e.getPassword().equals(password)) {
+                employee = e;
+                break;
+            }
+        }
+        if (employee == null) {
+            throw new HttpError(401, "Invalid credentials.");
+        }
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        long now = System.nanoTime();
+        // tokens of terminals that never signed out are dropped here
+        sessions.values().removeIf(s -> s.expired(now));
+        sessions.put(token, new Session(employee, now));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("token", token);
+        out.put("employeeId", employee.getEmployeeID());
+        out.put("name", employee.getName());
+        out.put("role", employee.getRole());
+        out.put("outlet", employee.getOutletCode());
+        out.put("manager", employee.isManager());
+        return out;
+    }
+
+    private Object logout(HttpExchange exchange, Map<String, String> params) {
+        sessions.remove(token(exchange));
+        return Map.of("signedOut", true);
+    }
+
+    private Object recordSale(HttpExchange exchange, Map<String, String> params) throws Exception {
+        Employee employee = employee(exchange);
+        Map<String, Integer> items = new LinkedHashMap<>();
+        List<String> models = new ArrayList<>();
+        int[] quantities = items(required(params, "items"), models);
+        for (int i = 0; i < quantities.length; i++) {
+            items.merge(models.get(i).toUpperCase(), quantities[i], Integer::sum);
+        }
+        String customer = params.getOrDefault("customer", "");
+        String method = params.getOrDefault("method", "Cash");
+        String transactionId = owned(() -> salesSystem.recordSale(employee, customer, items, method));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("transactionId", transactionId);
+        out.put("outlet", employee.getOutletCode());
+        return out;
+    }
+
+    private Object moveStock(HttpExchange exchange, Map<String, String> params, boolean in) throws Exception {
+        Employee employee = employee(exchange);
+        List<String> models = new ArrayList<>();
+        int[] quantities = items(required(params, "items"), models);
+        String[] modelCodes = models.toArray(new String[0]);
+        String from = in ? required(params, "from") : params.getOrDefault("from", employee.getOutletCode());
+        String to = in ? params.getOrDefault("to", employee.getOutletCode()) : required(params, "to");
+        String transactionId = owned(() -> in
+                ? StockManagement.recordStockIn(employee.getEmployeeID(), employee.getName(), from, to, modelCodes, quantities)
+                : StockManagement.recordStockOut(employee.getEmployeeID(), employee.getName(), from, to, modelCodes, quantities));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("transactionId", transactionId);
+        out.put("from", from);
+        out.put("to", to);
+        return out;
+    }
+
+    private Object punch(HttpExchange exchange, boolean in) throws Exception {
+        Employee employee = employee(exchange);
+        LocalDate date = LocalDate.now();
+        LocalTime time = LocalTime.now();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("employeeId", employee.getEmployeeID());
+        out.put("date", date.toString());
+        out.put("time", time.withNano(0).toString());
+        if (in) {
+            owned(() -> {
+                AttendanceSystem.recordClockIn(employee, date, time);
+                return null;
+            });
+        } else {
+            double hours = owned(() -> AttendanceSystem.recordClockOut(employee, date, time));
+            out.put("hoursWorked", hours);
+        }
+        return out;
+    }
+
+    private Object searchStock(HttpExchange exchange, Map<String, String> params) {
+        employee(exchange);
+        Catalogue.Snapshot catalogue = Catalogue.get();
+        Model model = catalogue.model(required(params, "model"));
+        if (model == null) {
+            throw new HttpError(404, "Model \"" + params.get("model") + "\" not found.");
+        }
+        Map<String, Object> stock = new LinkedHashMap<>();
+        for (String outletCode : catalogue.stockOutletCodes()) {
+            stock.put(outletCode, model.getStock(outletCode));
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("model", model.getModelId());
+        out.put("price", Money.format(model.getPrice()));
+        out.put("stock", stock);
+        return out;
+    }
+
+    private Object searchSales(HttpExchange exchange, Map<String, String> params) {
+        employee(exchange);
+        return Map.of("receipts", SearchInformation.findReceipts(required(params, "q")));
+    }
+
+    private Object analytics(HttpExchange exchange, Map<String, String> params) {
+        employee(exchange);
+        LocalDate start = LocalDate.parse(required(params, "start"));
+        LocalDate end = LocalDate.parse(required(params, "end"));
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end is before start");
+        }
+        // pre-aggregated cells from the sales rollup, like the CLI
+        SalesSummary summary = SalesAnalytics.summarize(SalesAnalytics.loadRollupRecords(start, end), start, end);
+
+        Map<String, Object> daily = new LinkedHashMap<>();
+        summary.getDailyTotals().forEach((date, total) -> daily.put(date.toString(), Money.format(total)));
+        Map<String, Object> weekly = new LinkedHashMap<>();
+        summary.getWeeklyTotals().forEach((week, total) -> weekly.put(SalesAggregator.WeeklyTotals.label(week), Money.format(total)));
+        Map<String, Object> monthly = new LinkedHashMap<>();
+        summary.getMonthlyTotals().forEach((month, total) -> monthly.put(month.toString(), Money.format(total)));
+        Long average = summary.getAverageDailyRevenue();
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("start", start.toString());
+        out.put("end", end.toString());
+        out.put("daily", daily);
+        out.put("weekly", weekly);
+        out.put("monthly", monthly);
+        out.put("mostSoldModel", summary.getMostSoldModel());
+        out.put("mostSoldQuantity", summary.getMostSoldQuantity());
+        out.put("averageDailyRevenue", average == null ? null : Money.format(average));
+        return out;
+    }
+
+    //DATA OWNER
+
+    // Run a write on the data-owner thread and wait for it (the request's virtual thread just parks)
+    private <T> T owned(Callable<T> write) throws IOException {
+        try {
+            return dataOwner.submit(write).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the data owner", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof IOException io) throw io;
+            throw new IOException(cause);
+        }
+    }
+
+    //REQUESTS
+
+    private Employee employee(HttpExchange exchange) {
+        String token = token(exchange);
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            throw new HttpError(401, "Sign in first (POST /api/login).");
+        }
+        long now = System.nanoTime();
+        if (session.expired(now)) {
+            sessions.remove(token, session);
+            throw new HttpError(401, "Session expired, sign in again (POST /api/login).");
+        }
+        session.lastUsed = now;
+        return session.employee;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return null;
+        return header.substring(7).trim();
+    }
+
+    // query string and (for POST) form body, decoded; a body field wins over the query
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new LinkedHashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> into) {
+        if (form == null || form.isEmpty()) return;
+        for (String pair : form.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            into.put(key, value.trim());
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    // "DW2300-1:2,DW2400-1:1" -> models in order, quantities returned
+    private static int[] items(String text, List<String> models) {
+        String[] parts = text.split(",");
+        int[] quantities = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            int colon = parts[i].lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Items are MODEL:QUANTITY separated by commas, got \"" + parts[i] + "\"");
+            }
+            models.add(parts[i].substring(0, colon).trim());
+            try {
+                quantities[i] = Integer.parseInt(parts[i].substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid quantity in \"" + parts[i] + "\"");
+            }
+        }
+        return quantities;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", message == null ? "Unknown error" : message);
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package my.edu.wix1002.goldenhour.ui;
+
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * BackgroundTasks - runs the controllers' file access off the JavaFX application thread.
+ *
+ * Every load or save is wrapped in a javafx.concurrent.Task and handed to one shared executor
+ * that starts a virtual thread per task, so a slow disk only blocks a cheap virtual thread and
+ * never the UI. JavaFX calls succeeded()/failed()/cancelled() on the FX thread, so the result
+ * handlers may touch controls directly.
+ *
+ * Usage (from the FX thread):
+ *   statusLabel.setText("Loading...");
+ *   BackgroundTasks.run(progress -> DataLoader.loadEmployees(),
+ *           employees -> ...show them...,
+ *           error -> statusLabel.setText("Failed: " + error.getMessage()),
+ *           loginButton);
+ * The nodes passed last are disabled while the task runs. The returned Task can be cancelled;
+ * its handlers are then not called (the nodes are still enabled again).
+ */
+public final class BackgroundTasks {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fx-io-", 0).factory());
+
+    private BackgroundTasks() { }
+
+    /** The work of a task; runs on a virtual thread and must not touch controls. */
+    public interface Work<T> {
+        T call(Progress progress) throws Exception;
+    }
+
+    /** Lets long work report progress and notice cancellation. */
+    public interface Progress {
+        void update(long done, long total);
+        void message(String message);
+        boolean isCancelled();
+    }
+
+    /**
+     * Run work in the background. onSuccess / onFailure run on the FX thread; onFailure may be
+     * null (the error is then only printed). busy nodes are disabled until the task ends.
+     */
+    public static <T> Task<T> run(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure, Node... busy) {
+        BackgroundTask<T> task = new BackgroundTask<>(work, onSuccess, onFailure, busy);
+        setBusy(busy, true);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    /** Cancel a task that may still be running (null and finished tasks are ignored). */
+    public static void cancel(Task<?> task) {
+        if (task != null && !task.isDone()) {
+            task.cancel(true);
+        }
+    }
+
+    // the Task is its own Progress: isCancelled() comes from Task
+    private static final class BackgroundTask<T> extends Task<T> implements Progress {
+        private final Work<T> work;
+        private final Consumer<T> onSuccess;
+        private final Consumer<Throwable> onFailure;
+        private final Node[] busy;
+
+        BackgroundTask(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure, Node[] busy) {
+            this.work = work;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+            this.busy = busy;
+        }
+
+        @Override
+        protected T call() throws Exception {
+            return work.call(this);
+        }
+
+        public void update(long done, long total) {
+            updateProgress(done, total);
+        }
+
+        public void message(String message) {
+            updateMessage(message);
+        }
+
+        @Override
+        protected void succeeded() {
+            setBusy(busy, false);
+            if (onSuccess != null) onSuccess.accept(getValue());
+        }
+
+        @Override
+        protected void failed() {
+            setBusy(busy, false);
+            Throwable error = getException();
+            System.err.println("Background task failed: " + error);
+            if (onFailure != null) onFailure.accept(error);
+        }
+
+        @Override
+        protected void cancelled() {
+            setBusy(busy, false);
+        }
+    }
+
+    private static void setBusy(Node[] nodes, boolean busy) {
+        for (Node n : nodes) {
+            if (n != null) n.setDisable(busy);
+        }
+    }
+}
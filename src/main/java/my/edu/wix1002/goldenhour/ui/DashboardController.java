@@ -9,7 +9,7 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import my.edu.wix1002.goldenhour.model.Employee;
-import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
+import my.edu.wix1002.goldenhour.AttendanceSystem;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -30,6 +30,7 @@ public class DashboardController {
     // Manager buttons and container
     @FXML private VBox managerButtonsBox;
     @FXML private Button registerEmployeeBtn;
+    @FXML private Button diagnosticsBtn;
     @FXML private Button exitBtn;
 
     private Employee loggedIn;
@@ -52,36 +53,42 @@ public class DashboardController {
         }
     }
 
+    // attendance is appended to a file: run it in the background, with the same rules as the console
     @FXML
     private void onClockIn() {
-        try {
-            String outletCode = loggedIn.getEmployeeID().substring(0,3);
-            String[] record = new String[] {
-                    loggedIn.getEmployeeID(),
-                    LocalDate.now().toString(),
-                    LocalTime.now().toString(),
-                    "",
-                    outletCode
-            };
-            StoreManager.appendAttendance(record);
-            statusLabel.setText("Clock In saved at " + LocalTime.now().toString());
-        } catch (Exception ex) {
-            statusLabel.setText("Failed to clock in: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+        Employee employee = loggedIn;
+        LocalTime time = LocalTime.now().withNano(0);
+        statusLabel.setText("Saving clock in...");
+        BackgroundTasks.run(progress -> {
+                    try {
+                        AttendanceSystem.recordClockIn(employee, LocalDate.now(), time);
+                    } catch (IllegalStateException refused) {
+                        return refused.getMessage();
+                    }
+                    return "Clock In saved at " + time;
+                },
+                statusLabel::setText,
+                error -> statusLabel.setText("Failed to clock in: " + error.getMessage()),
+                clockInBtn, clockOutBtn);
     }
 
     @FXML
     private void onClockOut() {
-        try {
-            String dateStr = LocalDate.now().toString();
-            String timeStr = LocalTime.now().toString();
-            StoreManager.updateClockOut(loggedIn.getEmployeeID(), dateStr, timeStr);
-            statusLabel.setText("Clock Out saved at " + timeStr);
-        } catch (Exception ex) {
-            statusLabel.setText("Failed to clock out: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+        Employee employee = loggedIn;
+        LocalTime time = LocalTime.now().withNano(0);
+        statusLabel.setText("Saving clock out...");
+        BackgroundTasks.run(progress -> {
+                    double hours;
+                    try {
+                        hours = AttendanceSystem.recordClockOut(employee, LocalDate.now(), time);
+                    } catch (IllegalStateException refused) {
+                        return refused.getMessage();
+                    }
+                    return "Clock Out saved at " + time + " (" + hours + " hours worked)";
+                },
+                statusLabel::setText,
+                error -> statusLabel.setText("Failed to clock out: " + error.getMessage()),
+                clockInBtn, clockOutBtn);
     }
 
     @FXML
@@ -90,13 +97,15 @@ public class DashboardController {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/StockView.fxml"));
             Scene scene = new Scene(loader.load());
             
-            // This is the line that was failing before
+            // loads in the background, the window opens straight away with a placeholder
             StockController controller = loader.getController();
             controller.loadData();
 
             Stage stage = new Stage();
             stage.setTitle("Current Stock");
             stage.setScene(scene);
+            // the view follows stock changes while it is open
+            stage.setOnHidden(e -> controller.dispose());
             stage.show();
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -154,6 +163,25 @@ public class DashboardController {
         }
     }
 
+    @FXML
+    private void onDiagnostics() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/DiagnosticsView.fxml"));
+            Scene scene = new Scene(loader.load());
+            DiagnosticsController controller = loader.getController();
+
+            Stage stage = new Stage();
+            stage.setTitle("Diagnostics");
+            stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
+            stage.show();
+        } catch (Exception ex) {
+            statusLabel.setStyle("-fx-text-fill: red;");
+            statusLabel.setText("Failed to open diagnostics: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
     @FXML 
     private void onExit() {
         Stage stage = (Stage) welcomeLabel.getScene().getWindow();
@@ -0,0 +1,76 @@
+package my.edu.wix1002.goldenhour.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+import my.edu.wix1002.goldenhour.util.Metrics;
+
+import java.util.function.Function;
+
+/**
+ * DiagnosticsController - live view of the Metrics registry (manager only).
+ *
+ * Once a second the table is replaced with a fresh Metrics.snapshot(): counters and gauges show
+ * their value, timers their call count, mean and p50/p99/p999/max in microseconds.
+ */
+public class DiagnosticsController {
+
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    @FXML private TableView<Metrics.Reading> table;
+    @FXML private TableColumn<Metrics.Reading, String> colName;
+    @FXML private TableColumn<Metrics.Reading, String> colType;
+    @FXML private TableColumn<Metrics.Reading, String> colCount;
+    @FXML private TableColumn<Metrics.Reading, String> colValue;
+    @FXML private TableColumn<Metrics.Reading, String> colP50;
+    @FXML private TableColumn<Metrics.Reading, String> colP99;
+    @FXML private TableColumn<Metrics.Reading, String> colP999;
+    @FXML private TableColumn<Metrics.Reading, String> colMax;
+
+    private final AnimationTimer pulse = new AnimationTimer() {
+        private long last;
+
+        @Override
+        public void handle(long now) {
+            if (now - last >= REFRESH_NANOS) {
+                last = now;
+                refresh();
+            }
+        }
+    };
+
+    @FXML
+    public void initialize() {
+        bind(colName, Metrics.Reading::getName);
+        bind(colType, Metrics.Reading::getType);
+        bind(colCount, r -> r.getType().equals("gauge") ? "" : String.valueOf(r.getCount()));
+        bind(colValue, r -> r.isTimer() ? Metrics.micros(r.getValue()) : String.valueOf(r.getValue()));
+        bind(colP50, r -> timing(r, r.getP50()));
+        bind(colP99, r -> timing(r, r.getP99()));
+        bind(colP999, r -> timing(r, r.getP999()));
+        bind(colMax, r -> timing(r, r.getMax()));
+        table.setPlaceholder(new Label("No metrics recorded yet"));
+        refresh();
+        pulse.start();
+    }
+
+    /** Stop refreshing; called when the window is closed. */
+    public void dispose() {
+        pulse.stop();
+    }
+
+    private void refresh() {
+        table.setItems(FXCollections.observableArrayList(Metrics.snapshot()));
+    }
+
+    private static String timing(Metrics.Reading r, long nanos) {
+        return r.isTimer() ? Metrics.micros(nanos) : "";
+    }
+
+    private static void bind(TableColumn<Metrics.Reading, String> col, Function<Metrics.Reading, String> text) {
+        col.setCellValueFactory(c -> new ReadOnlyStringWrapper(text.apply(c.getValue())));
+    }
+}
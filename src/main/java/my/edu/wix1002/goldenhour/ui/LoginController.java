@@ -16,6 +16,7 @@ public class LoginController {
     @FXML private TextField employeeIdField;
     @FXML private PasswordField passwordField;
     @FXML private Label messageLabel;
+    @FXML private Button loginButton;
 
     @FXML
     private void onLogin() {
@@ -27,11 +28,22 @@ public class LoginController {
             return;
         }
 
+        // employee.csv is read in the background; the fields stay locked meanwhile
+        messageLabel.setText("Signing in...");
+        BackgroundTasks.run(progress -> findEmployee(id, pw),
+                this::openDashboard,
+                error -> messageLabel.setText("Failed to read employees: " + error.getMessage()),
+                employeeIdField, passwordField, loginButton);
+    }
+
+    private static Employee findEmployee(String id, String pw) {
         List<Employee> employees = DataLoader.loadEmployees();
-        Employee matched = employees.stream()
+        return employees.stream()
                 .filter(e -> e.getEmployeeID().equals(id) && e.getPassword().equals(pw))
                 .findFirst().orElse(null);
+    }
 
+    private void openDashboard(Employee matched) {
         if (matched == null) {
             messageLabel.setText("Invalid credentials.");
             return;
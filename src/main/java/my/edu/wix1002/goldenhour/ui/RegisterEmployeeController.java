@@ -21,6 +21,7 @@ public class RegisterEmployeeController {
     @FXML private Label outletCodeHint;
     @FXML private VBox successBox;
     @FXML private Label successLabel;
+    @FXML private Button registerButton;
 
     private Employee loggedInManager;
     private String outletCode;
@@ -54,33 +55,43 @@ public class RegisterEmployeeController {
             return;
         }
 
+        String role = fullTimeRadio.isSelected() ? "Full-Time" : "Part-Time";
+
+        // reading and rewriting employee.csv happens in the background; the form is locked meanwhile
+        messageLabel.setText("Saving...");
+        BackgroundTasks.run(progress -> register(employedId, name, role, password),
+                problem -> {
+                    if (problem != null) {
+                        messageLabel.setText(problem);
+                        return;
+                    }
+                    messageLabel.setText("");
+                    successBox.setVisible(true);
+                    successBox.setManaged(true);
+                    successLabel.setText("Employee successfully registered!\nID: " + employedId + " | Name: " + name + " | Role: " + role);
+
+                    clearForm();
+                },
+                e -> messageLabel.setText("Error saving employee: " + e.getMessage()),
+                nameField, employeeIdField, passwordField, registerButton);
+    }
+
+    // Runs in the background; returns an error message, or null once the employee is saved
+    private String register(String employedId, String name, String role, String password) {
         List<Employee> employees = DataLoader.loadEmployees();
         boolean isDuplicate = employees.stream()
             .anyMatch(e -> e.getEmployeeID().equals(employedId));
 
         if (isDuplicate) {
-            messageLabel.setText("Error : Employee ID already exists.");
-            return;
+            return "Error : Employee ID already exists.";
         }
 
-        String role = fullTimeRadio.isSelected() ? "Full-Time" : "Part-Time";
-
-        try {
-            Employee newEmployee = new Employee(employedId, name, role, password, outletCode);
-            employees.add(newEmployee);
-
-            //save to csv 
-            StoreManager.saveEmployees(employees);
+        Employee newEmployee = new Employee(employedId, name, role, password, outletCode);
+        employees.add(newEmployee);
 
-            successBox.setVisible(true);
-            successBox.setManaged(true);
-            successLabel.setText("Employee successfully registered!\nID: " + employedId + " | Name: " + name + " | Role: " + role);
-
-            clearForm();
-        } catch (Exception e) {
-            messageLabel.setText("Error saving employee: " + e.getMessage());
-            e.printStackTrace();
-        }
+        //save to csv 
+        StoreManager.saveEmployees(employees);
+        return null;
     }
 
     @FXML
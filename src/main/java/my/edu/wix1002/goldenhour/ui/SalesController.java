@@ -5,9 +5,14 @@ import javafx.scene.control.*;
 
 import my.edu.wix1002.goldenhour.model.Model;
 import my.edu.wix1002.goldenhour.model.Employee;
-import my.edu.wix1002.goldenhour.StorageSystem.StoreManager;
-import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLedger;
+import my.edu.wix1002.goldenhour.StorageSystem.TransactionLog;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import my.edu.wix1002.goldenhour.util.IdGenerator;
+import my.edu.wix1002.goldenhour.util.Money;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 public class SalesController {
@@ -18,24 +23,31 @@ public class SalesController {
     @FXML private TextField qtyField;
     @FXML private TextField payMethodField;
     @FXML private Label statusLabel;
+    @FXML private Button saveButton;
 
     private Employee loggedIn;
     private List<Model> allModels;
 
     public void initialize() {
-        allModels = DataLoader.loadModels();
-        if(allModels != null) {
-            for (Model m : allModels) {
-                modelCombo.getItems().add(m.getModelId());
-            }
-        }
+        // the first Catalogue access reads model.csv and the stock log, keep it off the FX thread
+        statusLabel.setText("Loading models...");
+        BackgroundTasks.run(progress -> Catalogue.get().models(),
+                models -> {
+                    allModels = models;
+                    for (Model m : models) {
+                        modelCombo.getItems().add(m.getModelId());
+                    }
+                    statusLabel.setText("");
+                },
+                error -> statusLabel.setText("Failed to load models: " + error.getMessage()),
+                modelCombo);
         
         modelCombo.setOnAction(e -> {
             String id = modelCombo.getValue();
             if (id != null && allModels != null) {
-                Model m = allModels.stream().filter(x -> x.getModelId().equalsIgnoreCase(id)).findFirst().orElse(null);
+                Model m = Catalogue.get().model(id);
                 if (m != null) {
-                    unitPriceLabel.setText("RM " + String.format("%.2f", m.getPrice()));
+                    unitPriceLabel.setText("RM " + Money.format(m.getPrice()));
                 }
             }
         });
@@ -47,48 +59,71 @@ public class SalesController {
 
     @FXML
     private void onSave() {
+        String customer = customerField.getText().trim();
+        String modelId = modelCombo.getValue();
+        String payment = payMethodField.getText().trim();
+        int qty;
         try {
-            String customer = customerField.getText().trim();
-            String modelId = modelCombo.getValue();
-            int qty = Integer.parseInt(qtyField.getText().trim());
-            String payment = payMethodField.getText().trim();
+            qty = Integer.parseInt(qtyField.getText().trim());
+        } catch (NumberFormatException ex) {
+            statusLabel.setText("Quantity must be a whole number.");
+            return;
+        }
 
-            if (customer.isEmpty() || modelId == null || qty <= 0 || payment.isEmpty()) {
-                statusLabel.setText("Please fill all fields correctly.");
-                return;
-            }
+        if (customer.isEmpty() || modelId == null || qty <= 0 || payment.isEmpty()) {
+            statusLabel.setText("Please fill all fields correctly.");
+            return;
+        }
 
-            String saleId = "TX" + System.currentTimeMillis();
-            Model selected = allModels.stream().filter(x -> x.getModelId().equalsIgnoreCase(modelId)).findFirst().orElse(null);
-            
-            if (selected == null) {
-                 statusLabel.setText("Selected model not found.");
-                 return;
-            }
+        // the commit forces the transaction log to disk; the form stays locked until it is done
+        statusLabel.setText("Saving sale...");
+        BackgroundTasks.run(progress -> recordSale(customer, modelId, qty, payment),
+                statusLabel::setText,
+                error -> statusLabel.setText("Failed to save sale: " + error.getMessage()),
+                saveButton, modelCombo, qtyField);
+    }
 
-            double unitPrice = selected.getPrice();
-            double subtotal = unitPrice * qty;
-            String[] row = new String[] {
-                    saleId,
-                    loggedIn.getEmployeeID(),
-                    loggedIn.getOutletCode(),
-                    customer,
-                    modelId,
-                    String.valueOf(qty),
-                    String.valueOf(unitPrice),
-                    String.valueOf(subtotal),
-                    payment,
-                    java.time.LocalDate.now().toString(),
-                    java.time.LocalTime.now().toString()
-            };
+    // Runs in the background; returns the status line to show
+    private String recordSale(String customer, String modelId, int qty, String payment) throws IOException {
+        String saleId = IdGenerator.next();
+        Model selected = Catalogue.get().model(modelId);
+        
+        if (selected == null) {
+             return "Selected model not found.";
+        }
 
-            StoreManager.appendSalesRecord(row);
-            statusLabel.setText("Sale recorded: " + saleId);
-        } catch (NumberFormatException ex) {
-            statusLabel.setText("Quantity must be a whole number.");
-        } catch (Exception ex) {
-            statusLabel.setText("Failed to save sale: " + ex.getMessage());
-            ex.printStackTrace();
+        // hold the stock first so two terminals cannot both sell the last unit
+        StockLedger.Reservation reservation = StockLedger.reserve(modelId, loggedIn.getOutletCode(), qty);
+        if (reservation == null) {
+            return "Insufficient stock. Available: " + selected.getStock(loggedIn.getOutletCode());
+        }
+
+        long unitPrice = selected.getPrice();
+        long subtotal = Money.times(unitPrice, qty);
+        String[] row = new String[] {
+                saleId,
+                loggedIn.getEmployeeID(),
+                loggedIn.getOutletCode(),
+                customer,
+                modelId,
+                String.valueOf(qty),
+                Money.format(unitPrice),
+                Money.format(subtotal),
+                payment,
+                java.time.LocalDate.now().toString(),
+                java.time.LocalTime.now().toString()
+        };
+
+        try {
+            // the row and the stock change are logged as one record, nothing to undo on failure
+            TransactionLog.SaleRecord sale = new TransactionLog.SaleRecord(saleId, Collections.singletonList(row), null, null);
+            if (!StockLedger.commit(List.of(reservation), sale)) {
+                return "Stock reservation expired, please save again.";
+            }
+        } finally {
+            // no-op once committed
+            StockLedger.release(reservation);
         }
+        return "Sale recorded: " + saleId;
     }
-}
\ No newline at end of file
+}
@@ -1,44 +1,256 @@
 package my.edu.wix1002.goldenhour.ui;
 
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.collections.*;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 
+import my.edu.wix1002.goldenhour.StorageSystem.StockEvents;
 import my.edu.wix1002.goldenhour.model.Model;
-import my.edu.wix1002.goldenhour.util.DataLoader;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
+import my.edu.wix1002.goldenhour.util.Catalogue;
+import my.edu.wix1002.goldenhour.util.Money;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+/**
+ * StockController - read-only stock table with one numeric column per outlet.
+ *
+ * The outlet columns are built from the stock columns of model.csv when the catalogue has
+ * loaded. Every model becomes a StockRow holding its counts in an int[] (read once from the
+ * model's per-outlet slots), its total and its upper-case id, so:
+ * - a cell only formats one int when it scrolls into view (small numbers come from a cache)
+ * - sorting compares the ints / cents / ids directly
+ * - the filter box matches against the precomputed id
+ * TableView only creates cells for the visible rows and reuses them while scrolling.
+ *
+ * While the window is open the view follows StockEvents instead of reloading: changed model ids
+ * are collected from any thread, and an AnimationTimer applies them once per JavaFX frame by
+ * re-reading just those rows and replacing them in the list (only their cells redraw, and the
+ * sort order follows). A catalogue reload rebuilds the rows from memory, not from model.csv.
+ */
 public class StockController {
 
-    @FXML private TableView<Model> table;
-    @FXML private TableColumn<Model, String> colModel;
-    @FXML private TableColumn<Model, Double> colPrice;
-    @FXML private TableColumn<Model, String> colStock;
+    @FXML private TableView<StockRow> table;
+    @FXML private TableColumn<StockRow, StockRow> colModel;
+    @FXML private TableColumn<StockRow, StockRow> colPrice;
+    @FXML private TextField filterField;
+    @FXML private Label countLabel;
+
+    // "0" .. "999", so most stock cells do not build a new string
+    private static final String[] SMALL_NUMBERS = new String[1000];
+
+    static {
+        for (int i = 0; i < SMALL_NUMBERS.length; i++) {
+            SMALL_NUMBERS[i] = String.valueOf(i);
+        }
+    }
+
+    /** One table row: a model and its stock per outlet column, copied into primitives. */
+    static final class StockRow {
+        final Model model;
+        final String id;
+        final String key;
+        final String price;
+        final int[] stock;
+        long total;
+        // the cell value of every column; created once instead of once per cell update
+        final ReadOnlyObjectWrapper<StockRow> self = new ReadOnlyObjectWrapper<>(this);
+
+        StockRow(Model model, int[] ordinals) {
+            this.model = model;
+            this.id = model.getModelId();
+            this.key = id.toUpperCase(Locale.ROOT);
+            this.price = Money.format(model.getPrice());
+            this.stock = new int[ordinals.length];
+            refresh(ordinals);
+        }
+
+        /** Copy the current counts from the model. */
+        void refresh(int[] ordinals) {
+            long sum = 0;
+            for (int i = 0; i < ordinals.length; i++) {
+                stock[i] = model.getStock(ordinals[i]);
+                sum += stock[i];
+            }
+            total = sum;
+        }
+    }
+
+    private final ObservableList<StockRow> rows = FXCollections.observableArrayList();
+    private final FilteredList<StockRow> filtered = new FilteredList<>(rows);
+    private Task<Catalogue.Snapshot> loading;
+
+    // stock ordinals of the outlet columns, and row position by upper-case model id
+    private int[] ordinals = new int[0];
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+
+    // filled by StockEvents on any thread, emptied once per frame on the FX thread
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloaded;
+
+    private final StockEvents.Listener listener = new StockEvents.Listener() {
+        public void stockChanged(String modelId, int outletOrdinal) {
+            changed.add(modelId.toUpperCase(Locale.ROOT));
+        }
+
+        public void catalogueReloaded() {
+            reloaded = true;
+        }
+    };
+
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyChanges();
+        }
+    };
 
     public void initialize() {
-        colModel.setCellValueFactory(new PropertyValueFactory<>("modelId"));
-        colPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        SortedList<StockRow> sorted = new SortedList<>(filtered);
+        // the table's column sort order drives the sorted view
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sorted);
+
+        setUp(colModel, r -> r.id, Comparator.comparing((StockRow r) -> r.key));
+        setUp(colPrice, r -> r.price, Comparator.comparingLong((StockRow r) -> r.model.getPrice()));
+        colPrice.setStyle("-fx-alignment: CENTER-RIGHT;");
+
+        filterField.textProperty().addListener((obs, old, text) -> applyFilter(text));
+
+        // once per window, not in show(): that runs again on every catalogue reload
+        StockEvents.subscribe(listener);
     }
 
+    /** Load the catalogue in the background; the table shows a placeholder until it arrives. */
     public void loadData() {
-        List<Model> models = DataLoader.loadModels();
-        ObservableList<Model> obs = FXCollections.observableArrayList(models);
-
-        // create string summary for stock per model
-        colStock.setCellValueFactory(cellData -> {
-            Model m = cellData.getValue();
-            Map<String, Integer> stockMap = m.getStockByOutlet();
-            String summary = stockMap.entrySet().stream()
-                    .map(e -> e.getKey() + ":" + e.getValue())
-                    .collect(Collectors.joining(" | "));
-            return new ReadOnlyStringWrapper(summary);
+        BackgroundTasks.cancel(loading);
+        table.setPlaceholder(new Label("Loading stock..."));
+        loading = BackgroundTasks.run(progress -> Catalogue.get(),
+                this::show,
+                error -> table.setPlaceholder(new Label("Failed to load stock: " + error.getMessage())));
+    }
+
+    /** Stop following stock changes (call when the window closes). */
+    public void dispose() {
+        BackgroundTasks.cancel(loading);
+        StockEvents.unsubscribe(listener);
+        pulse.stop();
+    }
+
+    private void show(Catalogue.Snapshot snapshot) {
+        // changes from here on are applied on the next frame
+        pulse.start();
+        changed.clear();
+        reloaded = false;
+
+        List<String> outletCodes = snapshot.stockOutletCodes();
+        ordinals = new int[outletCodes.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = OutletRegistry.ordinal(outletCodes.get(i));
+        }
+
+        // model, price, then one column per outlet and the total
+        table.getColumns().subList(2, table.getColumns().size()).clear();
+        for (int i = 0; i < ordinals.length; i++) {
+            table.getColumns().add(countColumn(outletCodes.get(i), i));
+        }
+        table.getColumns().add(countColumn("Total", -1));
+
+        List<StockRow> built = new ArrayList<>(snapshot.models().size());
+        rowIndex.clear();
+        for (Model m : snapshot.models()) {
+            StockRow row = new StockRow(m, ordinals);
+            rowIndex.putIfAbsent(row.key, built.size());
+            built.add(row);
+        }
+        rows.setAll(built);
+        applyFilter(filterField.getText());
+        table.setPlaceholder(new Label("No models match the filter."));
+    }
+
+    // Runs once per frame: re-read only the rows whose model changed since the last frame
+    private void applyChanges() {
+        if (reloaded) {
+            reloaded = false;
+            show(Catalogue.get());
+            return;
+        }
+        if (changed.isEmpty()) return;
+        Iterator<String> it = changed.iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            it.remove();
+            Integer i = rowIndex.get(key);
+            if (i == null) continue;
+            StockRow row = rows.get(i);
+            row.refresh(ordinals);
+            // replacing the element with itself redraws its cells and re-sorts it
+            rows.set(i, row);
+        }
+    }
+
+    private void applyFilter(String text) {
+        String needle = text == null ? "" : text.trim().toUpperCase(Locale.ROOT);
+        filtered.setPredicate(needle.isEmpty() ? null : r -> r.key.contains(needle));
+        countLabel.setText(filtered.size() + " of " + rows.size() + " models");
+    }
+
+    //COLUMNS
+
+    // column index -1 = the total
+    private static TableColumn<StockRow, StockRow> countColumn(String title, int column) {
+        TableColumn<StockRow, StockRow> col = new TableColumn<>(title);
+        col.setPrefWidth(70);
+        col.setStyle("-fx-alignment: CENTER-RIGHT;");
+        col.setCellValueFactory(c -> c.getValue().self);
+        col.setCellFactory(c -> new CountCell(column));
+        col.setComparator(column < 0
+                ? Comparator.comparingLong((StockRow r) -> r.total)
+                : Comparator.comparingInt((StockRow r) -> r.stock[column]));
+        return col;
+    }
+
+    private static void setUp(TableColumn<StockRow, StockRow> col, Function<StockRow, String> text, Comparator<StockRow> order) {
+        col.setCellValueFactory(c -> c.getValue().self);
+        col.setCellFactory(c -> new TableCell<StockRow, StockRow>() {
+            @Override
+            protected void updateItem(StockRow row, boolean empty) {
+                super.updateItem(row, empty);
+                setText(empty || row == null ? null : text.apply(row));
+            }
         });
+        col.setComparator(order);
+    }
+
+    private static final class CountCell extends TableCell<StockRow, StockRow> {
+        private final int column;
+
+        CountCell(int column) {
+            this.column = column;
+        }
+
+        @Override
+        protected void updateItem(StockRow row, boolean empty) {
+            super.updateItem(row, empty);
+            setText(empty || row == null ? null : number(column < 0 ? row.total : row.stock[column]));
+        }
+    }
 
-        table.setItems(obs);
+    private static String number(long value) {
+        return value >= 0 && value < SMALL_NUMBERS.length ? SMALL_NUMBERS[(int) value] : String.valueOf(value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+package my.edu.wix1002.goldenhour.util;
+
+import my.edu.wix1002.goldenhour.model.Model;
+import my.edu.wix1002.goldenhour.model.Outlet;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
+import my.edu.wix1002.goldenhour.StorageSystem.StockEvents;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLedger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalogue - process-wide reference data (models and outlets), loaded once.
+ *
+ * Every module reads models and outlets from Catalogue.get() instead of scanning
+ * model.csv/outlet.csv itself. A snapshot is never changed after it is built: when
+ * model.csv or outlet.csv changes on disk, a background WatchService thread loads a
+ * new snapshot and swaps it in with one volatile write, so readers see either the old
+ * or the new catalogue, never a mix.
+ *
+ * The lists and lookup maps of a snapshot are read-only. The stock counts on the Model
+ * objects are the in-memory stock of this process; sales and stock edits update them
+ * in place through StockLedger (and log the change through StockLog). A reload therefore
+ * only brings in new models, outlets and prices: models that were already loaded keep their
+ * live counters, copied over by model id while StockLedger holds every counter still.
+ */
+public final class Catalogue {
+
+    private static final Path DATA_DIR = Paths.get("data");
+    private static final String MODEL_FILE = "model.csv";
+    private static final String OUTLET_FILE = "outlet.csv";
+
+    // several change events arrive for one save (write + rename); wait for them to settle
+    private static final long SETTLE_MILLIS = 200;
+
+    private static final Metrics.Timer REFRESH = Metrics.timer("catalogue.refresh");
+
+    private static volatile Snapshot current;
+    private static Thread watcher;
+
+    private Catalogue() { }
+
+    /** One consistent view of model.csv (+ stock log) and outlet.csv. */
+    public static final class Snapshot {
+        private final List<Model> models;
+        private final List<Outlet> outlets;
+        private final List<String> stockOutletCodes;
+        private final Map<String, Model> modelsById;
+        private final Map<String, Outlet> outletsByCode;
+
+        Snapshot(List<Model> models, List<Outlet> outlets, List<String> stockOutletCodes) {
+            this.models = Collections.unmodifiableList(new ArrayList<>(models));
+            this.outlets = Collections.unmodifiableList(new ArrayList<>(outlets));
+            this.stockOutletCodes = Collections.unmodifiableList(new ArrayList<>(stockOutletCodes));
+
+            Map<String, Model> byId = new HashMap<>();
+            for (Model m : models) {
+                byId.putIfAbsent(m.getModelId().toUpperCase(), m);
+            }
+            Map<String, Outlet> byCode = new LinkedHashMap<>();
+            for (Outlet o : outlets) {
+                byCode.putIfAbsent(o.getOutletCode(), o);
+            }
+            this.modelsById = Collections.unmodifiableMap(byId);
+            this.outletsByCode = Collections.unmodifiableMap(byCode);
+        }
+
+        public List<Model> models() { return models; }
+        public List<Outlet> outlets() { return outlets; }
+
+        // outlet codes of the stock columns in model.csv, in file order
+        public List<String> stockOutletCodes() { return stockOutletCodes; }
+
+        // model by id, ignoring case (null if unknown)
+        public Model model(String modelId) {
+            return modelId == null ? null : modelsById.get(modelId.trim().toUpperCase());
+        }
+
+        // outlet by code (null if unknown)
+        public Outlet outlet(String outletCode) {
+            return outletCode == null ? null : outletsByCode.get(outletCode.trim());
+        }
+
+        public String outletName(String outletCode) {
+            Outlet o = outlet(outletCode);
+            return o == null ? "Unknown Outlet" : o.getOutletName();
+        }
+    }
+
+    /** The current snapshot; the first call loads it and starts watching the data folder. */
+    public static Snapshot get() {
+        Snapshot s = current;
+        if (s == null) {
+            synchronized (Catalogue.class) {
+                s = current;
+                if (s == null) {
+                    s = load();
+                    current = s;
+                    startWatcher();
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Reload both files now and swap the new snapshot in. */
+    public static Snapshot refresh() {
+        long t0 = System.nanoTime();
+        try {
+            Snapshot loaded = load();
+            Snapshot s = StockLedger.swapCatalogue(() -> {
+                carryCounters(current, loaded);
+                current = loaded;
+                return loaded;
+            });
+            // views holding the old Model objects have to pick up the new ones
+            StockEvents.catalogueReloaded();
+            return s;
+        } finally {
+            REFRESH.since(t0);
+        }
+    }
+
+    private static Snapshot load() {
+        List<Outlet> outlets;
+        try {
+            outlets = DataLoader.loadOutlets();
+        } catch (Exception e) {
+            System.err.println("Error loading outlet data: " + e.getMessage());
+            outlets = new ArrayList<>();
+        }
+        List<Model> models = DataLoader.loadModels();
+        return new Snapshot(models, outlets, DataLoader.loadModelOutletCodes());
+    }
+
+    /*
+     * Copy the live stock counters of the old snapshot onto the reloaded models. The files lag
+     * behind them (open reservations, sales not yet applied to the stock log), so the files only
+     * count for models and outlet columns the old snapshot did not have.
+     */
+    private static void carryCounters(Snapshot old, Snapshot loaded) {
+        if (old == null) return;
+        int outlets = OutletRegistry.size();
+        for (Model m : loaded.models()) {
+            Model live = old.model(m.getModelId());
+            if (live == null) continue;
+            for (int ordinal = 0; ordinal < outlets; ordinal++) {
+                if (live.hasStock(ordinal)) {
+                    m.setStock(ordinal, live.getStock(ordinal));
+                }
+            }
+        }
+    }
+
+    //WATCH
+
+    private static void startWatcher() {
+        if (watcher != null) return;
+        WatchService ws;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+            DATA_DIR.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            // still usable, just without automatic refresh
+            System.err.println("Error watching data folder: " + e.getMessage());
+            return;
+        }
+        watcher = new Thread(() -> watch(ws), "catalogue-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static void watch(WatchService ws) {
+        try {
+            while (true) {
+                WatchKey key = ws.take();
+                boolean changed = drain(key);
+
+                // collect the rest of the burst before reloading once
+                WatchKey more;
+                while ((more = ws.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(more);
+                }
+                if (changed) {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        // keep the current catalogue and keep watching: the next save (fixed file) reloads it
+                        System.err.println("Error reloading catalogue: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutting down
+        } catch (RuntimeException e) {
+            System.err.println("Error in catalogue watcher: " + e.getMessage());
+        }
+    }
+
+    // true if one of the events was about model.csv or outlet.csv
+    private static boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object ctx = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else if (ctx instanceof Path) {
+                String name = ((Path) ctx).getFileName().toString();
+                relevant |= name.equals(MODEL_FILE) || name.equals(OUTLET_FILE);
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
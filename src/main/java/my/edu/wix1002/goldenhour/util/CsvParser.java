@@ -0,0 +1,446 @@
+package my.edu.wix1002.goldenhour.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+
+/**
+ * CsvParser - one streaming CSV parser for every data file of the system.
+ *
+ * - works directly on bytes (a ByteBuffer, files are read into one in windows), no Reader / String per line
+ * - quoted ("C60") and unquoted (C60) fields, "" inside quotes, CRLF or LF line ends
+ * - skips the UTF-8 BOM that Excel puts in front of model.csv / outlet.csv
+ * - skips completely blank lines (attendance.csv has one after the header)
+ * - fields are handed to a RowHandler through one reused Field object, so parsing a row
+ *   allocates nothing unless the handler asks for a String
+ *
+ * Field also knows the date/time formats found in our files (yyyy-MM-dd, "09:03 PM",
+ * "14:48:37", "02:13:12.478931500", "12:49 p.m.") and turns them into numbers without
+ * going through DateTimeFormatter.
+ */
+public final class CsvParser {
+
+    // files are read in windows of this size. Data files are not memory-mapped: model.csv and the
+    // sales partitions are replaced by rename, which a live mapping blocks on Windows.
+    private static final int WINDOW = 8 * 1024 * 1024;
+
+    private CsvParser() { }
+
+    /** Receives the fields of each row in order. */
+    public interface RowHandler {
+        // called once per field; f is reused, copy what you need before returning
+        void field(Field f);
+
+        // called at the end of each row; rowStart/rowEnd are byte offsets in the file
+        // (rowEnd includes the line break). Return false to stop parsing early.
+        default boolean endRow(int row, long rowStart, long rowEnd) {
+            return true;
+        }
+    }
+
+    //ENTRY POINTS
+
+    /** Parse a whole file, read through one heap buffer. */
+    public static void parseFile(Path path, RowHandler handler) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return;
+
+            // a file bigger than the window is read one window at a time; a row cut by the window end
+            // is parsed again from the start of the next one
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(WINDOW, size));
+            long base = 0;
+            int row = 0;
+            State state = new State();
+            while (base < size) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), size - base));
+                int read = read(ch, buf, base);
+                buf.flip();
+                boolean last = read == 0 || base + read >= size;
+                state.rows = row;
+                int consumed = parse(buf, base, row, last, handler, state);
+                if (state.stopped || last) return;
+                if (consumed == 0) {
+                    throw new IOException("CSV row longer than " + WINDOW + " bytes in " + path);
+                }
+                row = state.rows;
+                base += consumed;
+            }
+        }
+    }
+
+    // Fill buf from the file position on; returns the bytes read (less at the end of the file)
+    private static int read(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    /** Parse a complete CSV document held in the buffer (from its position to its limit). */
+    public static void parse(ByteBuffer buf, RowHandler handler) {
+        parse(buf, 0, 0, true, handler);
+    }
+
+    private static int parse(ByteBuffer buf, long base, int firstRow, boolean last, RowHandler handler) {
+        State state = new State();
+        state.rows = firstRow;
+        return parse(buf, base, firstRow, last, handler, state);
+    }
+
+    private static final class State {
+        int rows;
+        boolean stopped;
+    }
+
+    /*
+     * Core loop. Returns how many bytes were consumed: everything when last is true,
+     * otherwise up to the end of the last complete row in the buffer.
+     */
+    private static int parse(ByteBuffer buf, long base, int firstRow, boolean last, RowHandler handler, State state) {
+        int start = buf.position();
+        int end = buf.limit();
+        int p = start;
+
+        // UTF-8 BOM at the very beginning of the file
+        if (base == 0 && p == 0 && end - p >= 3
+                && (buf.get(p) & 0xFF) == 0xEF && (buf.get(p + 1) & 0xFF) == 0xBB && (buf.get(p + 2) & 0xFF) == 0xBF) {
+            p += 3;
+        }
+
+        Field f = new Field(buf);
+        int row = firstRow;
+        int consumed = p - start;
+
+        while (p < end) {
+            int rowStart = p;
+
+            // blank line
+            byte b = buf.get(p);
+            if (b == '\n' || b == '\r') {
+                p++;
+                if (b == '\r' && p < end && buf.get(p) == '\n') p++;
+                consumed = p - start;
+                continue;
+            }
+
+            // in a window (not the end of the file) only parse rows that end inside the window,
+            // the cut-off row is parsed again from the start of the next window
+            if (!last && findRowEnd(buf, p, end) < 0) {
+                break;
+            }
+
+            int col = 0;
+            boolean rowDone = false;
+            while (!rowDone) {
+                boolean quoted = false;
+                boolean escapes = false;
+                int valueStart;
+                int valueEnd;
+
+                if (p < end && buf.get(p) == '"') {
+                    quoted = true;
+                    p++;
+                    valueStart = p;
+                    while (p < end) {
+                        if (buf.get(p) == '"') {
+                            if (p + 1 < end && buf.get(p + 1) == '"') {
+                                escapes = true;
+                                p += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        p++;
+                    }
+                    valueEnd = p; // at the closing quote, or at the end for an unclosed quote
+                    if (p < end) p++;
+                    // tolerate junk between the closing quote and the separator (e.g. "a" ,b)
+                    while (p < end && buf.get(p) != ',' && buf.get(p) != '\n' && buf.get(p) != '\r') p++;
+                } else {
+                    valueStart = p;
+                    while (p < end && buf.get(p) != ',' && buf.get(p) != '\n' && buf.get(p) != '\r') p++;
+                    valueEnd = p;
+                }
+
+                f.set(row, col, valueStart, valueEnd, quoted, escapes);
+                handler.field(f);
+                col++;
+
+                if (p >= end) {
+                    rowDone = true;
+                } else if (buf.get(p) == ',') {
+                    p++;
+                    if (p >= end) {
+                        // trailing comma at end of file: one more empty field
+                        f.set(row, col, p, p, false, false);
+                        handler.field(f);
+                        rowDone = true;
+                    }
+                } else {
+                    // line break
+                    if (buf.get(p) == '\r') p++;
+                    if (p < end && buf.get(p) == '\n') p++;
+                    rowDone = true;
+                }
+            }
+
+            boolean go = handler.endRow(row, base + rowStart, base + p);
+            row++;
+            consumed = p - start;
+            if (!go) {
+                state.stopped = true;
+                break;
+            }
+        }
+        state.rows = row;
+        return consumed;
+    }
+
+    // Index just after the line break ending the row that starts at p, or -1 if the row is cut off
+    private static int findRowEnd(ByteBuffer buf, int p, int end) {
+        boolean inQuotes = false;
+        for (; p < end; p++) {
+            byte b = buf.get(p);
+            if (b == '"') {
+                inQuotes = !inQuotes; // "" flips twice, which is what we want
+            } else if (!inQuotes && (b == '\n' || b == '\r')) {
+                if (b == '\r') {
+                    if (p + 1 >= end) return -1; // cannot tell yet whether \n follows
+                    if (buf.get(p + 1) == '\n') p++;
+                }
+                return p + 1;
+            }
+        }
+        return -1;
+    }
+
+    //FIELD
+
+    /**
+     * Flyweight view of the current field. Valid only inside RowHandler.field().
+     */
+    public static final class Field {
+        private final ByteBuffer buf;
+        private int row;
+        private int col;
+        private int start;
+        private int end;
+        private boolean quoted;
+        private boolean escapes;
+
+        Field(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        void set(int row, int col, int start, int end, boolean quoted, boolean escapes) {
+            this.row = row;
+            this.col = col;
+            this.start = start;
+            this.end = end;
+            this.quoted = quoted;
+            this.escapes = escapes;
+        }
+
+        public int row() { return row; }
+        public int column() { return col; }
+        public int length() { return end - start; }
+        public boolean isQuoted() { return quoted; }
+
+        public boolean isBlank() {
+            return firstNonSpace() >= lastNonSpace();
+        }
+
+        private int firstNonSpace() {
+            int s = start;
+            while (s < end && buf.get(s) == ' ') s++;
+            return s;
+        }
+
+        private int lastNonSpace() {
+            int e = end;
+            while (e > start && buf.get(e - 1) == ' ') e--;
+            return e;
+        }
+
+        /** The field as a String (trimmed, "" unescaped). */
+        public String asString() {
+            int s = firstNonSpace();
+            int e = lastNonSpace();
+            if (s >= e) return "";
+            byte[] bytes = new byte[e - s];
+            int n = 0;
+            for (int i = s; i < e; i++) {
+                byte b = buf.get(i);
+                bytes[n++] = b;
+                if (escapes && b == '"' && i + 1 < e && buf.get(i + 1) == '"') i++;
+            }
+            return new String(bytes, 0, n, StandardCharsets.UTF_8);
+        }
+
+        /** Compare with an ASCII string without creating a String. */
+        public boolean contentEquals(String s) {
+            int a = firstNonSpace();
+            int e = lastNonSpace();
+            if (escapes) return asString().equals(s);
+            if (e - a != s.length()) return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (buf.get(a + i) != (byte) s.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        /** Integer value, e.g. quantities and stock counts. Throws NumberFormatException when not a number. */
+        public int asInt() {
+            long v = asLong();
+            if (v > Integer.MAX_VALUE || v < Integer.MIN_VALUE) throw new NumberFormatException("int overflow: " + asString());
+            return (int) v;
+        }
+
+        public long asLong() {
+            int p = firstNonSpace();
+            int e = lastNonSpace();
+            if (p >= e) throw new NumberFormatException("empty field");
+            boolean neg = false;
+            if (buf.get(p) == '-' || buf.get(p) == '+') {
+                neg = buf.get(p) == '-';
+                p++;
+            }
+            long v = 0;
+            int digits = 0;
+            for (; p < e; p++) {
+                byte b = buf.get(p);
+                if (b == '.') {
+                    // "349.0" style whole numbers are accepted, real fractions are not
+                    for (p++; p < e; p++) {
+                        if (buf.get(p) != '0') throw new NumberFormatException("not a whole number: " + asString());
+                    }
+                    break;
+                }
+                if (b < '0' || b > '9') throw new NumberFormatException("not a number: " + asString());
+                v = v * 10 + (b - '0');
+                digits++;
+            }
+            if (digits == 0) throw new NumberFormatException("not a number: " + asString());
+            return neg ? -v : v;
+        }
+
+        public double asDouble() {
+            return Double.parseDouble(asString());
+        }
+
+        /** Money amount in cents ("349", "349.0", "349.50"), see Money. Throws NumberFormatException when not an amount. */
+        public long asCents() {
+            int p = firstNonSpace();
+            int e = lastNonSpace();
+            if (p >= e) throw new NumberFormatException("empty field");
+            return Money.parse(buf, p, e);
+        }
+
+        /**
+         * yyyy-MM-dd as epoch day (days since 1970-01-01), or Long.MIN_VALUE when the field is not a date
+         * (including days past the end of the month, like 2025-02-30).
+         */
+        public long asEpochDay() {
+            int p = firstNonSpace();
+            if (lastNonSpace() - p != 10 || buf.get(p + 4) != '-' || buf.get(p + 7) != '-') return Long.MIN_VALUE;
+            int y = digits(p, 4);
+            int m = digits(p + 5, 2);
+            int d = digits(p + 8, 2);
+            if (y < 0 || m < 1 || m > 12 || d < 1 || d > YearMonth.of(y, m).lengthOfMonth()) return Long.MIN_VALUE;
+            return epochDay(y, m, d);
+        }
+
+        /**
+         * Time of day in nanoseconds, or -1 when the field is not a time. Accepts every format found in
+         * our files: "14:48:37", "02:13:12.478931500", "09:03 PM", "12:49 p.m.".
+         */
+        public long asNanoOfDay() {
+            int p = firstNonSpace();
+            int e = lastNonSpace();
+            int h = 0;
+            int hLen = 0;
+            while (p < e && buf.get(p) >= '0' && buf.get(p) <= '9' && hLen < 2) {
+                h = h * 10 + (buf.get(p) - '0');
+                p++;
+                hLen++;
+            }
+            if (hLen == 0 || p >= e || buf.get(p) != ':') return -1;
+            int min = digits(p + 1, 2);
+            if (min < 0) return -1;
+            p += 3;
+
+            int sec = 0;
+            long nanos = 0;
+            if (p < e && buf.get(p) == ':') {
+                sec = digits(p + 1, 2);
+                if (sec < 0) return -1;
+                p += 3;
+                if (p < e && buf.get(p) == '.') {
+                    p++;
+                    long scale = 100_000_000L;
+                    while (p < e && buf.get(p) >= '0' && buf.get(p) <= '9') {
+                        nanos += (buf.get(p) - '0') * scale;
+                        scale /= 10;
+                        p++;
+                    }
+                }
+            }
+
+            // optional AM/PM marker: "AM", "PM", "a.m.", "p.m." (any case)
+            while (p < e && buf.get(p) == ' ') p++;
+            if (p < e) {
+                byte marker = (byte) (buf.get(p) | 0x20);
+                if (marker == 'p' && h < 12) {
+                    h += 12;
+                } else if (marker == 'a' && h == 12) {
+                    h = 0;
+                } else if (marker != 'p' && marker != 'a') {
+                    return -1;
+                }
+            }
+            if (h > 23 || min > 59 || sec > 59) return -1;
+            return ((h * 60L + min) * 60L + sec) * 1_000_000_000L + nanos;
+        }
+
+        private int digits(int p, int count) {
+            if (p + count > end) return -1;
+            int v = 0;
+            for (int i = 0; i < count; i++) {
+                byte b = buf.get(p + i);
+                if (b < '0' || b > '9') return -1;
+                v = v * 10 + (b - '0');
+            }
+            return v;
+        }
+
+        @Override
+        public String toString() {
+            return asString();
+        }
+    }
+
+    // days from civil (proleptic Gregorian), same result as LocalDate.of(y, m, d).toEpochDay()
+    static long epochDay(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** Convenience for small files: read the whole file into a heap buffer at once. */
+    public static void parseSmallFile(Path path, RowHandler handler) throws IOException {
+        parse(ByteBuffer.wrap(Files.readAllBytes(path)), handler);
+    }
+}
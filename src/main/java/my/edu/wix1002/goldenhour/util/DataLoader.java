@@ -3,15 +3,23 @@ package my.edu.wix1002.goldenhour.util;
 import my.edu.wix1002.goldenhour.model.Employee;
 import my.edu.wix1002.goldenhour.model.Model;
 import my.edu.wix1002.goldenhour.model.Outlet;
+import my.edu.wix1002.goldenhour.model.OutletRegistry;
 import my.edu.wix1002.goldenhour.model.Sales;
+import my.edu.wix1002.goldenhour.StorageSystem.SalesJournal;
+import my.edu.wix1002.goldenhour.StorageSystem.SalesPartitions;
+import my.edu.wix1002.goldenhour.StorageSystem.StockLog;
+import my.edu.wix1002.goldenhour.StorageSystem.TransactionLog;
 
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DataLoader {
 
@@ -19,33 +27,45 @@ public class DataLoader {
     public static final String EMPLOYEE_FILE_PATH = "data/employee.csv"; 
     private static final String OUTLET_FILE_PATH = "data/outlet.csv";
     public static final String MODEL_FILE_PATH = "data/model.csv";
-    private static final String SALES_FILE_PATH = "data/sales.csv";
+
+    private static final Metrics.Timer LOAD_EMPLOYEES = Metrics.timer("load.employees");
+    private static final Metrics.Timer LOAD_OUTLETS = Metrics.timer("load.outlets");
+    private static final Metrics.Timer LOAD_MODELS = Metrics.timer("load.models");
+    private static final Metrics.Timer LOAD_MODEL_OUTLETS = Metrics.timer("load.modelOutletCodes");
+    private static final Metrics.Timer LOAD_SALES = Metrics.timer("load.sales");
+    private static final Metrics.Timer LOAD_SALES_RANGE = Metrics.timer("load.salesRange");
 
     public static List<Employee> loadEmployees() {
+        return LOAD_EMPLOYEES.time(DataLoader::readEmployees);
+    }
+
+    private static List<Employee> readEmployees() {
         List<Employee> employeeList = new ArrayList<>();
-        // Use try-with-resources to ensure the file reader is closed properly
-        try (CSVReader reader = new CSVReader(new FileReader(EMPLOYEE_FILE_PATH))) {
-
-            // 1. Skip the header line
-            reader.readNext(); 
-
-            // 2. Read all remaining lines
-            String[] nextRecord;
-            while ((nextRecord = reader.readNext()) != null) {
-                // nextRecord is an array of strings representing one row in the CSV
-
-                // Basic check to ensure the row has enough columns
-                if (nextRecord.length >= 4) {
-                    Employee employee = new Employee(
-                        nextRecord[0],  // EmployeeID
-                        nextRecord[1],  // EmployeeName
-                        nextRecord[2],  // Role
-                        nextRecord[3],  // Password
-                        nextRecord[0].substring(0, 3)          // Default outlet code
-                    );
-                    employeeList.add(employee);
+        String[] cols = new String[5]; // reused for every row
+        try {
+            parse(EMPLOYEE_FILE_PATH, new CsvParser.RowHandler() {
+                int count;
+
+                public void field(CsvParser.Field f) {
+                    // 1. Skip the header line
+                    if (f.row() > 0 && f.column() < cols.length) cols[f.column()] = f.asString();
+                    count = f.column() + 1;
                 }
-            }
+
+                public boolean endRow(int row, long start, long end) {
+                    // Basic check to ensure the row has enough columns
+                    if (row > 0 && count >= 4) {
+                        employeeList.add(new Employee(
+                            cols[0],  // EmployeeID
+                            cols[1],  // EmployeeName
+                            cols[2],  // Role
+                            cols[3],  // Password
+                            cols[0].substring(0, 3)          // Default outlet code
+                        ));
+                    }
+                    return true;
+                }
+            });
             // System.out.println("Successfully loaded " + employeeList.size() + " employees.");
 
         } catch (IOException e) {
@@ -59,21 +79,33 @@ public class DataLoader {
     }
 
     public static List<Outlet> loadOutlets() throws CsvValidationException {
+        return LOAD_OUTLETS.time(DataLoader::readOutlets);
+    }
+
+    private static List<Outlet> readOutlets() {
         List<Outlet> outletList = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(OUTLET_FILE_PATH))) {
-            // Skip header
-            reader.readNext(); 
-            
-            String[] nextRecord;
-            while ((nextRecord = reader.readNext()) != null) {
-                if (nextRecord.length >= 2) {
-                    Outlet outlet = new Outlet(
-                        nextRecord[0],  // OutletCode
-                        nextRecord[1]   // OutletName
-                    );
-                    outletList.add(outlet);
+        String[] cols = new String[2];
+        try {
+            parse(OUTLET_FILE_PATH, new CsvParser.RowHandler() {
+                int count;
+
+                public void field(CsvParser.Field f) {
+                    if (f.row() > 0 && f.column() < cols.length) cols[f.column()] = f.asString();
+                    count = f.column() + 1;
                 }
-            }
+
+                public boolean endRow(int row, long start, long end) {
+                    if (row > 0 && count >= 2) {
+                        // outlets get their stock ordinals in outlet.csv order
+                        OutletRegistry.ordinal(cols[0]);
+                        outletList.add(new Outlet(
+                            cols[0],  // OutletCode
+                            cols[1]   // OutletName
+                        ));
+                    }
+                    return true;
+                }
+            });
             // System.out.println("Successfully loaded " + outletList.size() + " outlets.");
         } catch (IOException e) {
             System.err.println("Error loading outlet data: " + e.getMessage());
@@ -82,61 +114,245 @@ public class DataLoader {
     }
 
     public static List<Model> loadModels() {
+        long t0 = System.nanoTime();
+        try {
+            // a committed sale may still be missing from the stock log (crash, or not applied yet)
+            TransactionLog.recover();
+            // a checkpoint between reading model.csv and replaying the log would lose (or double) changes
+            synchronized (StockLog.class) {
+                return loadModelsCheckpointAndLog();
+            }
+        } finally {
+            LOAD_MODELS.since(t0);
+        }
+    }
+
+    private static List<Model> loadModelsCheckpointAndLog() {
         List<Model> modelList = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(MODEL_FILE_PATH))) {
-            // Read header to get outlet codes
-            String[] header = reader.readNext();
-            List<String> outletCodes = Arrays.asList(header).subList(2, header.length);
-
-            String[] nextRecord;
-            while ((nextRecord = reader.readNext()) != null) {
-                String modelId = nextRecord[0];
-                double price = Double.parseDouble(nextRecord[1]);
-                Model model = new Model(modelId, price);
-
-                // Add stock quantities for each outlet
-                for (int i = 0; i < outletCodes.size(); i++) {
-                    int stock = Integer.parseInt(nextRecord[i + 2]);
-                    model.addStock(outletCodes.get(i), stock);
+        List<Integer> outletOrdinals = new ArrayList<>();
+        try {
+            parse(MODEL_FILE_PATH, new CsvParser.RowHandler() {
+                String modelId;
+                Model model;
+
+                public void field(CsvParser.Field f) {
+                    int col = f.column();
+                    if (f.row() == 0) {
+                        // Read header to get outlet codes (looked up once, rows then use the ordinals)
+                        if (col >= 2) outletOrdinals.add(OutletRegistry.ordinal(f.asString()));
+                    } else if (col == 0) {
+                        modelId = f.isBlank() ? null : f.asString();
+                    } else if (modelId != null && col == 1) {
+                        model = new Model(modelId, f.asCents());
+                    } else if (model != null && col - 2 < outletOrdinals.size()) {
+                        // Add stock quantities for each outlet
+                        model.setStock(outletOrdinals.get(col - 2), f.asInt());
+                    }
                 }
-                modelList.add(model);
-            }
+
+                public boolean endRow(int row, long start, long end) {
+                    if (row > 0 && model != null) modelList.add(model);
+                    modelId = null;
+                    model = null;
+                    return true;
+                }
+            });
             // System.out.println("Successfully loaded " + modelList.size() + " models.");
-        } catch (IOException | CsvValidationException e) {
+        } catch (IOException | RuntimeException e) {
             System.err.println("Error loading model data: " + e.getMessage());
         }
+        // model.csv is only the last checkpoint, apply the stock changes logged since then
+        StockLog.replayInto(modelList);
         return modelList;
     }
 
+    // Outlet codes of the stock columns in model.csv, in file order (only the title line is read)
+    public static List<String> loadModelOutletCodes() {
+        return LOAD_MODEL_OUTLETS.time(DataLoader::readModelOutletCodes);
+    }
+
+    private static List<String> readModelOutletCodes() {
+        List<String> outletCodes = new ArrayList<>();
+        try {
+            parse(MODEL_FILE_PATH, new CsvParser.RowHandler() {
+                public void field(CsvParser.Field f) {
+                    if (f.column() >= 2) outletCodes.add(f.asString());
+                }
+
+                public boolean endRow(int row, long start, long end) {
+                    return false;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error loading model data: " + e.getMessage());
+        }
+        return outletCodes;
+    }
+
+    // Sales rows as they are now: every monthly partition with the edit journal applied on top
     public static List<Sales> loadSales() {
+        long t0 = System.nanoTime();
+        try {
+            return readSales();
+        } finally {
+            LOAD_SALES.since(t0);
+        }
+    }
+
+    private static List<Sales> readSales() {
+        // committed sales the background applier has not written yet
+        TransactionLog.recover();
+        List<Sales> base = new ArrayList<>();
+        for (SalesPartitions.Partition p : SalesPartitions.all()) {
+            base.addAll(loadSalesFile(p.getPath().toString()));
+        }
+        return SalesJournal.applyTo(base);
+    }
+
+    // Sales between from and to (inclusive); only the partitions overlapping the range are read
+    public static List<Sales> loadSales(LocalDate from, LocalDate to) {
+        long t0 = System.nanoTime();
+        try {
+            return readSales(from, to);
+        } finally {
+            LOAD_SALES_RANGE.since(t0);
+        }
+    }
+
+    private static List<Sales> readSales(LocalDate from, LocalDate to) {
+        TransactionLog.recover();
+        List<Sales> base = new ArrayList<>();
+        for (SalesPartitions.Partition p : SalesPartitions.overlapping(from, to)) {
+            base.addAll(loadSalesFile(p.getPath().toString()));
+        }
+        String first = from.toString();
+        String last = to.toString();
+        List<Sales> inRange = new ArrayList<>(base.size());
+        for (Sales s : SalesJournal.applyTo(base)) {
+            // yyyy-MM-dd compares like the date it is
+            String date = s.getDate() == null ? "" : s.getDate().trim();
+            if (date.compareTo(first) >= 0 && date.compareTo(last) <= 0) {
+                inRange.add(s);
+            }
+        }
+        return inRange;
+    }
+
+    // Raw rows of one sales CSV file, without the edit journal
+    public static List<Sales> loadSalesFile(String path) {
         List<Sales> salesList = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(SALES_FILE_PATH))) {
-            // Skip header
-            reader.readNext(); 
-            
-            String[] nextRecord;
-            while ((nextRecord = reader.readNext()) != null) {
-                if (nextRecord.length >= 11) {
-                    Sales sale = new Sales(
-                        nextRecord[0],  // SaleID
-                        nextRecord[1],  // EmployeeID
-                        nextRecord[2],  // OutletCode
-                        nextRecord[3],  // CustomerName
-                        nextRecord[4],  // Model
-                        Integer.parseInt(nextRecord[5]),  // Quantity
-                        Double.parseDouble(nextRecord[6]), // UnitPrice
-                        Double.parseDouble(nextRecord[7]), // Subtotal
-                        nextRecord[8],  // TransactionMethod
-                        nextRecord[9],  // Date
-                        nextRecord[10]  // Time
-                    );
-                    salesList.add(sale);
+        Map<String, Integer> linesPerSale = new HashMap<>();
+        String[] cols = new String[11];
+        try {
+            parse(path, new CsvParser.RowHandler() {
+                int count;
+                int quantity;
+                long unitPrice;
+                long subtotal;
+                boolean bad;
+
+                public void field(CsvParser.Field f) {
+                    // Skip header
+                    if (f.row() == 0) return;
+                    int col = f.column();
+                    count = col + 1;
+                    try {
+                        switch (col) {
+                            case 5: quantity = f.asInt(); break;       // Quantity
+                            case 6: unitPrice = f.asCents(); break;    // UnitPrice
+                            case 7: subtotal = f.asCents(); break;     // Subtotal
+                            default: if (col < cols.length) cols[col] = f.asString();
+                        }
+                    } catch (NumberFormatException e) {
+                        bad = true;
+                    }
                 }
-            }
+
+                public boolean endRow(int row, long start, long end) {
+                    if (row > 0 && count >= 11 && !bad) {
+                        Sales sale = new Sales(
+                            cols[0],  // SaleID
+                            cols[1],  // EmployeeID
+                            cols[2],  // OutletCode
+                            cols[3],  // CustomerName
+                            cols[4],  // Model
+                            quantity,
+                            unitPrice,
+                            subtotal,
+                            cols[8],  // TransactionMethod
+                            cols[9],  // Date
+                            cols[10]  // Time
+                        );
+                        // rows of a multi-item sale share the SaleID, number them in file order
+                        sale.setLine(linesPerSale.merge(sale.getSaleID(), 1, Integer::sum) - 1);
+                        salesList.add(sale);
+                    } else if (row > 0 && bad) {
+                        System.err.println("Skipping unreadable sales row " + row + " in " + path);
+                    }
+                    count = 0;
+                    bad = false;
+                    return true;
+                }
+            });
             // System.out.println("Successfully loaded " + salesList.size() + " sales records.");
-        } catch (IOException | com.opencsv.exceptions.CsvValidationException e) {
+        } catch (IOException e) {
             System.err.println("Error loading sales data: " + e.getMessage());
         }
         return salesList;
     }
+
+    // Build one Sales object from the 11 CSV columns (null if the row is too short)
+    public static Sales toSales(String[] nextRecord) {
+        if (nextRecord.length < 11) {
+            return null;
+        }
+        return new Sales(
+            nextRecord[0],  // SaleID
+            nextRecord[1],  // EmployeeID
+            nextRecord[2],  // OutletCode
+            nextRecord[3],  // CustomerName
+            nextRecord[4],  // Model
+            Integer.parseInt(nextRecord[5]),  // Quantity
+            Money.parse(nextRecord[6]), // UnitPrice
+            Money.parse(nextRecord[7]), // Subtotal
+            nextRecord[8],  // TransactionMethod
+            nextRecord[9],  // Date
+            nextRecord[10]  // Time
+        );
+    }
+
+    // All loaders share the same streaming parser (read in windows, fields handed to a callback)
+    private static void parse(String path, CsvParser.RowHandler handler) throws IOException {
+        Path file = Paths.get(path);
+        if (!Files.exists(file)) {
+            throw new IOException(path + " (No such file or directory)");
+        }
+        FlightEvents.DataLoad event = new FlightEvents.DataLoad();
+        if (!event.isEnabled()) {
+            CsvParser.parseFile(file, handler);
+            return;
+        }
+        // a flight recording is running: count the rows and bytes on the way through
+        long[] read = new long[2];
+        event.begin();
+        try {
+            CsvParser.parseFile(file, new CsvParser.RowHandler() {
+                public void field(CsvParser.Field f) {
+                    handler.field(f);
+                }
+
+                public boolean endRow(int row, long start, long end) {
+                    read[0] = row + 1;
+                    read[1] = end;
+                    return handler.endRow(row, start, end);
+                }
+            });
+        } finally {
+            event.end();
+            event.file = path;
+            event.rows = (int) read[0];
+            event.bytes = read[1];
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package my.edu.wix1002.goldenhour.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * FlightEvents - Java Flight Recorder events of the store operations.
+ *
+ * Record a terminal with
+ *   java -XX:StartFlightRecording=filename=checkout.jfr,settings=profile ...
+ * and open the file in JDK Mission Control (Event Browser, "Golden Hour") or print it with
+ *   jfr print --events goldenhour.SaleStage checkout.jfr
+ *
+ * Every event has a duration, so a slow checkout shows which stage (and which file) took the time.
+ * When no recording is running the events are disabled: callers check isEnabled() before they
+ * count bytes, and begin()/commit() do nothing.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() { }
+
+    /**
+     * One stage of a sale:
+     * - validate : stock check and reservation of one item (StockLedger.reserve)
+     * - log      : forced append of the sale to data/transactions.log (the commit point)
+     * - stock    : stock deltas appended to data/stock.log (model.csv is rewritten from it at checkpoints)
+     * - rows     : sales rows appended to the monthly sales partition
+     * - receipt  : receipt appended to data/sales/sales_yyyy-MM-dd.txt and its index
+     */
+    @Name("goldenhour.SaleStage")
+    @Label("Sale Stage")
+    @Category({"Golden Hour", "Sales"})
+    public static final class SaleStage extends Event {
+        @Label("Stage")
+        public String stage;
+
+        @Label("Transaction ID")
+        public String transactionId;
+
+        @Label("Outlet")
+        public String outlet;
+
+        @Label("Rows")
+        @Description("Sale lines handled by the stage")
+        public int rows;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    /** A stock-in or stock-out: CSV rows and stock log deltas of all its models. */
+    @Name("goldenhour.StockMove")
+    @Label("Stock Movement")
+    @Category({"Golden Hour", "Stock"})
+    public static final class StockMove extends Event {
+        @Label("Direction")
+        @Description("in or out")
+        public String direction;
+
+        @Label("Transaction ID")
+        public String transactionId;
+
+        @Label("Outlet")
+        @Description("Receiving outlet of a stock-in, sending outlet of a stock-out")
+        public String outlet;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Units")
+        public int units;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+    }
+
+    /** A clock-in or clock-out appended to data/attendance.csv. */
+    @Name("goldenhour.AttendancePunch")
+    @Label("Attendance Punch")
+    @Category({"Golden Hour", "Attendance"})
+    public static final class AttendancePunch extends Event {
+        @Label("Punch")
+        @Description("in or out")
+        public String punch;
+
+        @Label("Employee ID")
+        public String employeeId;
+
+        @Label("Outlet")
+        public String outlet;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    /** One data file read by DataLoader; the stack trace shows which loader read it. */
+    @Name("goldenhour.DataLoad")
+    @Label("Data Load")
+    @Category({"Golden Hour", "Loading"})
+    @StackTrace(true)
+    public static final class DataLoad extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Rows")
+        @Description("Lines parsed, header included")
+        public int rows;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytes;
+    }
+}
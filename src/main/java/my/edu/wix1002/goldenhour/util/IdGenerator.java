@@ -0,0 +1,196 @@
+package my.edu.wix1002.goldenhour.util;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdGenerator - unique, time-ordered transaction ids for sales and stock movements.
+ *
+ * An id is one positive long (Snowflake layout):
+ *   [41 bits milliseconds since 2025-01-01 UTC][10 bits node][12 bits sequence]
+ * - node     : the terminal, from -Dgoldenhour.node=0..1023; otherwise the lowest free lease
+ *              data/nodes/<n>.lease, held with a file lock for as long as the program runs (the
+ *              OS drops the lock when it ends), so programs sharing a data folder never collide.
+ *              Only if neither works is it derived from the host name and process id, with a warning
+ * - sequence : counts ids within the same millisecond
+ * The time and sequence are kept together in one AtomicLong and advanced with compare-and-set,
+ * so no lock and no Random are involved. When 4096 ids are taken in one millisecond, or the clock
+ * goes backwards, the counter simply runs ahead of the clock; ids never repeat or go down.
+ *
+ * As text an id is 13 characters of Crockford base32 (0-9, A-Z without I, L, O, U), fixed width,
+ * so sorting the strings sorts by time, like the receipt sidecars and journals expect.
+ */
+public final class IdGenerator {
+
+    private static final long EPOCH_MILLIS = 1735689600000L; // 2025-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final Path LEASE_DIR = Paths.get("data", "nodes");
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TEXT_LENGTH = 13;
+
+    // the lease lock (and its channel) is held until the program ends
+    private static FileLock lease;
+
+    private static final long NODE = nodeId();
+
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private IdGenerator() { }
+
+    //NEXT
+
+    /** A new id. */
+    public static long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long last = LAST.get();
+            // a new millisecond starts at sequence 0, otherwise take the next one after the last id
+            long next = now > last ? now : last + 1;
+            if (LAST.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (NODE << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** A new id as its 13-character text, e.g. "06JXNC3B23800". */
+    public static String next() {
+        return encode(nextId());
+    }
+
+    /**
+     * The id a node would have made at a given time, for generated or imported history
+     * (not unique by itself: the caller picks distinct sequence numbers within a millisecond).
+     */
+    public static long compose(Instant time, int node, int sequence) {
+        long millis = time.toEpochMilli() - EPOCH_MILLIS;
+        if (millis < 0 || node < 0 || node > MAX_NODE || sequence < 0 || sequence > SEQUENCE_MASK) {
+            throw new IllegalArgumentException("Cannot make an id for " + time + ", node " + node + ", sequence " + sequence);
+        }
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | ((long) node << SEQUENCE_BITS) | sequence;
+    }
+
+    //TEXT
+
+    public static String encode(long id) {
+        char[] out = new char[TEXT_LENGTH];
+        for (int i = TEXT_LENGTH - 1; i >= 0; i--) {
+            out[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    /** The id of a text made by encode(); IllegalArgumentException for anything else. */
+    public static long decode(String text) {
+        if (text == null || text.length() != TEXT_LENGTH) {
+            throw new IllegalArgumentException("Not a transaction id: " + text);
+        }
+        long id = 0;
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            int digit = digit(Character.toUpperCase(text.charAt(i)));
+            if (digit < 0 || (i == 0 && digit > 7)) {
+                throw new IllegalArgumentException("Not a transaction id: " + text);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    /** When the id was made (to the millisecond). */
+    public static Instant timeOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    /** Node (terminal) that made the id. */
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE);
+    }
+
+    private static int digit(char c) {
+        for (int d = 0; d < DIGITS.length; d++) {
+            if (DIGITS[d] == c) return d;
+        }
+        return -1;
+    }
+
+    //NODE
+
+    private static long nodeId() {
+        String value = System.getProperty("goldenhour.node");
+        if (value != null) {
+            try {
+                long node = Long.parseLong(value.trim());
+                if (node >= 0 && node <= MAX_NODE) return node;
+            } catch (NumberFormatException e) {
+                // fall through to the message below
+            }
+            System.err.println("goldenhour.node must be 0.." + MAX_NODE + ", got \"" + value + "\"; leasing a node instead.");
+        }
+        String owner = hostName() + "/" + ProcessHandle.current().pid();
+        try {
+            long node = leaseNode(owner);
+            if (node >= 0) return node;
+            System.err.println("All " + (MAX_NODE + 1) + " node leases in " + LEASE_DIR + " are taken.");
+        } catch (IOException e) {
+            System.err.println("Could not lease a node in " + LEASE_DIR + ": " + e.getMessage());
+        }
+        long node = (owner.hashCode() & 0x7fffffff) % (MAX_NODE + 1);
+        System.err.println("**********************************************************************");
+        System.err.println("WARNING: transaction ids use node " + node + ", derived from " + owner + ".");
+        System.err.println("Another terminal may derive the same node and make the same ids.");
+        System.err.println("Start every terminal with its own -Dgoldenhour.node=0.." + MAX_NODE + ".");
+        System.err.println("**********************************************************************");
+        return node;
+    }
+
+    // Lock the lowest free data/nodes/<n>.lease; -1 if all are held
+    private static long leaseNode(String owner) throws IOException {
+        Files.createDirectories(LEASE_DIR);
+        for (long node = 0; node <= MAX_NODE; node++) {
+            FileChannel ch = FileChannel.open(LEASE_DIR.resolve(node + ".lease"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = ch.tryLock();
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+            if (lock == null) {
+                ch.close();
+                continue;
+            }
+            // who holds it, for whoever looks at the folder
+            ch.truncate(0);
+            ch.write(ByteBuffer.wrap((owner + "\n").getBytes(StandardCharsets.UTF_8)), 0);
+            lease = lock;
+            return node;
+        }
+        return -1;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package my.edu.wix1002.goldenhour.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics - in-process counters, gauges and latency histograms.
+ *
+ * Classes create their metrics once, as static fields, and update them on the hot path:
+ *   private static final Metrics.Timer LOAD = Metrics.timer("dataloader.loadSales");
+ *   long t0 = System.nanoTime();
+ *   try { ... } finally { LOAD.since(t0); }
+ * Updating is a few atomic adds into arrays made up front, so it allocates nothing.
+ * Timer.time(body) is shorter for rare calls (full saves, loads through a method reference), but
+ * a lambda that captures arguments is a new object on every call, so hot paths use since().
+ *
+ * A Timer keeps a log-bucketed histogram of nanoseconds: every power of two is split into 8
+ * buckets, so a percentile is within about 6% of the real value whatever the range (50 ns to minutes)
+ * while the whole histogram is 488 longs. snapshot() reads everything as Readings (count,
+ * p50/p99/p999, max); the diagnostics window shows them and a daemon thread rewrites
+ * data/metrics.csv with them every goldenhour.metrics.interval seconds (default 60, 0 = off).
+ */
+public final class Metrics {
+
+    private static final Path EXPORT_PATH = Paths.get("data", "metrics.csv");
+    private static final long EXPORT_SECONDS = Long.getLong("goldenhour.metrics.interval", 60);
+
+    // by name, so snapshots come out sorted
+    private static final Map<String, Metric> METRICS = new ConcurrentSkipListMap<>();
+
+    private static final ScheduledExecutorService EXPORTER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "metrics-export");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        gauge("jvm.heap.used.bytes", () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        if (EXPORT_SECONDS > 0) {
+            EXPORTER.scheduleWithFixedDelay(Metrics::exportQuietly, EXPORT_SECONDS, EXPORT_SECONDS, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::exportQuietly, "metrics-export-final"));
+        }
+    }
+
+    private Metrics() { }
+
+    //REGISTER
+
+    /** The counter with this name (created on first use). */
+    public static Counter counter(String name) {
+        return register(name, new Counter(name), Counter.class);
+    }
+
+    /** The timer with this name (created on first use). */
+    public static Timer timer(String name) {
+        return register(name, new Timer(name), Timer.class);
+    }
+
+    /** A value read when a snapshot is taken, e.g. a queue length or a file size. */
+    public static void gauge(String name, LongSupplier value) {
+        METRICS.put(name, new Gauge(name, value));
+    }
+
+    private static <M extends Metric> M register(String name, M fresh, Class<M> type) {
+        Metric existing = METRICS.putIfAbsent(name, fresh);
+        if (existing == null) return fresh;
+        if (!type.isInstance(existing)) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + existing.type());
+        }
+        return type.cast(existing);
+    }
+
+    //METRICS
+
+    private abstract static class Metric {
+        final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        abstract String type();
+
+        abstract Reading read();
+    }
+
+    /** Counts events (sales committed, failures, ...). */
+    public static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            super(name);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        String type() { return "counter"; }
+
+        Reading read() {
+            long n = count.sum();
+            return new Reading(name, type(), n, n, 0, 0, 0, 0);
+        }
+    }
+
+    private static final class Gauge extends Metric {
+        private final LongSupplier value;
+
+        Gauge(String name, LongSupplier value) {
+            super(name);
+            this.value = value;
+        }
+
+        String type() { return "gauge"; }
+
+        Reading read() {
+            long v;
+            try {
+                v = value.getAsLong();
+            } catch (RuntimeException e) {
+                v = -1;
+            }
+            return new Reading(name, type(), 0, v, 0, 0, 0, 0);
+        }
+    }
+
+    /** Latency histogram of an operation, in nanoseconds. */
+    public static final class Timer extends Metric {
+        // values below 8 ns get a bucket each, above that 8 buckets per power of two
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Timer(String name) {
+            super(name);
+        }
+
+        /** Record the time since startNanos (a System.nanoTime() value). */
+        public void since(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /** Run body and record how long it took, also when it throws. */
+        public <T, E extends Exception> T time(Call<T, E> body) throws E {
+            long t0 = System.nanoTime();
+            try {
+                return body.call();
+            } finally {
+                since(t0);
+            }
+        }
+
+        /** Same for a body without a result. */
+        public <E extends Exception> void time(Run<E> body) throws E {
+            long t0 = System.nanoTime();
+            try {
+                body.run();
+            } finally {
+                since(t0);
+            }
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            total.add(nanos);
+            if (nanos > max.get()) {
+                max.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        static int bucket(long v) {
+            if (v < SUB_BUCKETS) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        // the middle of a bucket's range
+        static long value(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - SUB_BITS);
+            return low + (1L << (exp - SUB_BITS)) / 2;
+        }
+
+        String type() { return "timer"; }
+
+        Reading read() {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            long calls = count.sum();
+            long mean = calls == 0 ? 0 : total.sum() / calls;
+            // a bucket reports its middle, which can lie above the slowest call actually seen
+            long slowest = max.get();
+            return new Reading(name, type(), n, mean, Math.min(percentile(counts, n, 0.50), slowest),
+                    Math.min(percentile(counts, n, 0.99), slowest), Math.min(percentile(counts, n, 0.999), slowest), slowest);
+        }
+
+        private static long percentile(long[] counts, long n, double q) {
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return value(i);
+            }
+            return value(counts.length - 1);
+        }
+    }
+
+    /** A timed body with a result; E is the checked exception it may throw. */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /** A timed body without a result. */
+    @FunctionalInterface
+    public interface Run<E extends Exception> {
+        void run() throws E;
+    }
+
+    //SNAPSHOT
+
+    /**
+     * One metric at the time of the snapshot. Counters: count (= value). Gauges: value.
+     * Timers: count, value = mean, percentiles and max, all in nanoseconds.
+     */
+    public static final class Reading {
+        private final String name;
+        private final String type;
+        private final long count;
+        private final long value;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Reading(String name, String type, long count, long value, long p50, long p99, long p999, long max) {
+            this.name = name;
+            this.type = type;
+            this.count = count;
+            this.value = value;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public long getCount() { return count; }
+        public long getValue() { return value; }
+        public long getP50() { return p50; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+        public long getMax() { return max; }
+        public boolean isTimer() { return "timer".equals(type); }
+    }
+
+    /** Every metric, sorted by name. */
+    public static List<Reading> snapshot() {
+        List<Reading> readings = new ArrayList<>(METRICS.size());
+        for (Metric m : METRICS.values()) {
+            readings.add(m.read());
+        }
+        return readings;
+    }
+
+    //EXPORT
+
+    /** Rewrite data/metrics.csv with a snapshot (times in microseconds). */
+    public static void export() throws IOException {
+        Path parent = EXPORT_PATH.getParent();
+        if (parent != null && !Files.isDirectory(parent)) return; // not started from the project folder
+        StringBuilder sb = new StringBuilder("Name,Type,Count,Value,P50Micros,P99Micros,P999Micros,MaxMicros\n");
+        for (Reading r : snapshot()) {
+            sb.append(r.name).append(',').append(r.type).append(',').append(r.count).append(',');
+            if (r.isTimer()) {
+                sb.append(micros(r.value)).append(',').append(micros(r.p50)).append(',').append(micros(r.p99)).append(',')
+                        .append(micros(r.p999)).append(',').append(micros(r.max));
+            } else {
+                sb.append(r.value).append(",,,,");
+            }
+            sb.append('\n');
+        }
+        Path tmp = EXPORT_PATH.resolveSibling(EXPORT_PATH.getFileName() + ".tmp");
+        Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, EXPORT_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Nanoseconds as microseconds with one decimal, e.g. "1234.5". */
+    public static String micros(long nanos) {
+        return (nanos / 1000) + "." + (nanos % 1000) / 100;
+    }
+
+    private static void exportQuietly() {
+        try {
+            export();
+        } catch (IOException e) {
+            System.err.println("Error exporting metrics: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package my.edu.wix1002.goldenhour.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Money - ringgit amounts as a long number of sen (cents).
+ *
+ * Prices, subtotals and totals are plain longs everywhere (Model, Sales, the loaders,
+ * sales.csv and analytics), so adding and multiplying is exact and allocates nothing.
+ * This class only holds the parsing, arithmetic and formatting rules for those longs.
+ * - parse  : "349", "349.0", "349.50", "RM 1,047.5" -> 34900, 34900, 34950, 104750
+ * - format : 34900 -> "349.00"
+ * More than two decimals are rounded half-up to the nearest sen.
+ */
+public final class Money {
+
+    private Money() { }
+
+    //ARITHMETIC
+
+    /** price x quantity; throws ArithmeticException instead of silently overflowing. */
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, (long) quantity);
+    }
+
+    /** cents / divisor rounded half-up (used for averages). */
+    public static long divide(long cents, long divisor) {
+        if (divisor == 0) throw new ArithmeticException("Division by zero");
+        long q = cents / divisor;
+        long r = cents % divisor;
+        if (Math.abs(r) * 2 >= Math.abs(divisor)) {
+            q += (cents < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return q;
+    }
+
+    /** For older code and UI fields that still hold a double amount. */
+    public static long ofDouble(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    //PARSE
+
+    /**
+     * Amount as written by a person or found in our files. Accepts an optional "RM" prefix,
+     * a sign, thousands separators and any number of decimals.
+     * @throws NumberFormatException if the text is not an amount
+     */
+    public static long parse(CharSequence text) {
+        int p = 0;
+        int e = text.length();
+        while (p < e && text.charAt(p) <= ' ') p++;
+        while (e > p && text.charAt(e - 1) <= ' ') e--;
+        if (e - p >= 2 && (text.charAt(p) | 0x20) == 'r' && (text.charAt(p + 1) | 0x20) == 'm') {
+            p += 2;
+            while (p < e && text.charAt(p) == ' ') p++;
+        }
+
+        boolean negative = false;
+        if (p < e && (text.charAt(p) == '-' || text.charAt(p) == '+')) {
+            negative = text.charAt(p) == '-';
+            p++;
+        }
+
+        long units = 0;
+        int decimals = 0;
+        long fraction = 0;
+        boolean roundUp = false;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        for (; p < e; p++) {
+            char c = text.charAt(p);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (!seenDot) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                } else if (decimals < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals == 2) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else if (c == ',' && !seenDot) {
+                // thousands separator
+            } else {
+                throw new NumberFormatException("Not an amount: \"" + text + "\"");
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+        if (decimals == 1) fraction *= 10;
+        long cents = Math.addExact(Math.multiplyExact(units, 100), fraction + (roundUp ? 1 : 0));
+        return negative ? -cents : cents;
+    }
+
+    // Same rules on raw CSV bytes (no String created); used by CsvParser.Field.asCents
+    static long parse(ByteBuffer buf, int start, int end) {
+        int p = start;
+        boolean negative = false;
+        if (p < end && (buf.get(p) == '-' || buf.get(p) == '+')) {
+            negative = buf.get(p) == '-';
+            p++;
+        }
+        long units = 0;
+        int decimals = 0;
+        long fraction = 0;
+        boolean roundUp = false;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        for (; p < end; p++) {
+            byte b = buf.get(p);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (!seenDot) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), b - '0');
+                } else if (decimals < 2) {
+                    fraction = fraction * 10 + (b - '0');
+                    decimals++;
+                } else if (decimals == 2) {
+                    roundUp = b >= '5';
+                    decimals++;
+                }
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else if (b == ',' && !seenDot) {
+                // thousands separator
+            } else {
+                return parseSlow(buf, start, end);
+            }
+        }
+        if (!seenDigit) {
+            return parseSlow(buf, start, end);
+        }
+        if (decimals == 1) fraction *= 10;
+        long cents = Math.addExact(Math.multiplyExact(units, 100), fraction + (roundUp ? 1 : 0));
+        return negative ? -cents : cents;
+    }
+
+    // odd input ("RM" prefix, exponent from a double): go through the text version
+    private static long parseSlow(ByteBuffer buf, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append((char) (buf.get(i) & 0xFF));
+        }
+        String s = sb.toString().trim();
+        if (s.indexOf('e') >= 0 || s.indexOf('E') >= 0) {
+            return ofDouble(Double.parseDouble(s));
+        }
+        return parse(s);
+    }
+
+    //FORMAT
+
+    /** 34950 -> "349.50" (always two decimals, no currency prefix, no separators). */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(16), cents).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            // Long.MIN_VALUE has no positive counterpart; not a real amount anyway
+            cents = cents == Long.MIN_VALUE ? Long.MAX_VALUE : -cents;
+        }
+        long frac = cents % 100;
+        sb.append(cents / 100).append('.');
+        if (frac < 10) sb.append('0');
+        return sb.append(frac);
+    }
+}
@@ -0,0 +1,529 @@
+package my.edu.wix1002.goldenhour.util;
+
+import my.edu.wix1002.goldenhour.StorageSystem.ReceiptStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * SyntheticDataGenerator - writes a complete, realistic data/ folder of any size.
+ *
+ * Usage: java ... my.edu.wix1002.goldenhour.util.SyntheticDataGenerator [--name value ...]
+ *   --out           folder to create (default generated/data); must be empty or missing
+ *   --seed          the same seed and sizes always give the same files (default 1)
+ *   --sales         sales rows, one per item sold (default 100000)
+ *   --models        product models (default 200)
+ *   --outlets       outlets (default 10)
+ *   --employees     employees per outlet (default 6)
+ *   --start, --days first day (default 2025-01-01, not earlier: ids count from 2025) and number
+ *                   of days (default 365)
+ *   --zipf          skew of model popularity, 0 = uniform (default 1.1)
+ *   --receipt-days  write receipt files for the last n days only (default: every day)
+ *
+ * Written, in the schemas the application reads and writes (all fields quoted, like the writers):
+ * outlet.csv, employee.csv, model.csv, sales.csv (split into monthly partitions by the first
+ * load), attendance.csv, stock_in.csv / stock_out.csv and data/sales/sales_yyyy-MM-dd.txt
+ * receipts with their .idx sidecars.
+ * - daily volume follows the week (weekends busiest) and the year (festive months, year-end)
+ * - models are picked with Zipf popularity, outlets with a milder skew; a sale has 1-3 items
+ * - times fall in opening hours with an evening peak; transaction ids are IdGenerator ids for
+ *   the time of the sale, so they sort and search like real ones
+ * - ids are made as if the local times were UTC and AM/PM is always English, so the files do
+ *   not depend on the time zone or locale of the machine
+ * Point the application at the result by running it from the folder that contains the data/.
+ */
+public class SyntheticDataGenerator {
+
+    /** What to generate; main() fills it from the command line. */
+    public static final class Options {
+        public Path out = Paths.get("generated", "data");
+        public long seed = 1;
+        public long sales = 100_000;
+        public int models = 200;
+        public int outlets = 10;
+        public int employeesPerOutlet = 6;
+        public LocalDate start = LocalDate.of(2025, 1, 1);
+        public int days = 365;
+        public double zipf = 1.1;
+        public int receiptDays = Integer.MAX_VALUE;
+    }
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_PRINT_FMT = DateTimeFormatter.ofPattern("hh:mm a", Locale.ROOT);
+    private static final DateTimeFormatter PUNCH_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter STOCK_TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String[] PLACES = {"Kuala Lumpur City Centre", "MidValley", "Sunway Pyramid", "Pavilion",
+            "1 Utama", "IOI City Mall", "Gurney Plaza", "Johor Bahru City Square", "Ipoh Parade", "Mahkota Parade",
+            "Imago Kota Kinabalu", "Vivacity Kuching", "Queensbay Mall", "Aeon Seremban", "Setia City Mall"};
+    private static final String[] FIRST_NAMES = {"Aina", "Adam", "Mei Ling", "Ravi", "Siti", "Jason", "Nurul", "Kumar",
+            "Hui Min", "Farah", "Daniel", "Priya", "Wei Jie", "Aisyah", "Marcus", "Syafiq", "Chloe", "Arjun"};
+    private static final String[] LAST_NAMES = {"Tan", "Lim", "Abdullah", "Wong", "Raj", "Ismail", "Lee", "Chong",
+            "Hassan", "Ng", "Muthu", "Ong", "Rahman", "Goh", "Yusof", "Teo"};
+    private static final String[] FAMILIES = {"DW", "SW", "MW", "CW", "LW"};
+    private static final String[] PAYMENTS = {"Cash", "Credit Card", "Debit Card", "E-Wallet"};
+    private static final double[] PAYMENT_SHARE = {0.30, 0.30, 0.20, 0.20};
+
+    // relative volume per weekday (Monday first), per month, and per opening hour (10:00 - 21:00)
+    private static final double[] WEEKDAY = {0.85, 0.80, 0.85, 0.90, 1.10, 1.45, 1.35};
+    private static final double[] MONTH = {1.10, 1.05, 0.90, 0.95, 1.00, 1.05, 0.90, 0.95, 0.90, 0.95, 1.15, 1.40};
+    private static final int OPENING_HOUR = 10;
+    private static final double[] HOUR = {0.5, 0.7, 1.0, 1.0, 0.8, 0.8, 0.9, 1.1, 1.3, 1.5, 1.4, 0.9};
+
+    private final Options options;
+    private final Random random;
+
+    private String[] outletCodes;
+    private String[][] employeeIds;
+    private String[][] employeeNames;
+    private String[] modelIds;
+    private long[] prices;
+    private Sampler modelPicker;
+    private Sampler outletPicker;
+
+    private SyntheticDataGenerator(Options options) {
+        this.options = options;
+        this.random = new Random(options.seed);
+    }
+
+    public static void main(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out" -> options.out = Paths.get(value);
+                case "--seed" -> options.seed = Long.parseLong(value);
+                case "--sales" -> options.sales = Long.parseLong(value);
+                case "--models" -> options.models = Integer.parseInt(value);
+                case "--outlets" -> options.outlets = Integer.parseInt(value);
+                case "--employees" -> options.employeesPerOutlet = Integer.parseInt(value);
+                case "--start" -> options.start = LocalDate.parse(value, DATE_FMT);
+                case "--days" -> options.days = Integer.parseInt(value);
+                case "--zipf" -> options.zipf = Double.parseDouble(value);
+                case "--receipt-days" -> options.receiptDays = Integer.parseInt(value);
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+        long t0 = System.nanoTime();
+        try {
+            generate(options);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error generating data: " + e.getMessage());
+            return;
+        }
+        System.out.printf("Wrote %,d sales rows, %d models, %d outlets over %d days to %s in %.1f s%n",
+                options.sales, options.models, options.outlets, options.days, options.out.toAbsolutePath(),
+                (System.nanoTime() - t0) / 1e9);
+    }
+
+    /** Write the dataset into options.out. */
+    public static void generate(Options options) throws IOException {
+        if (options.models < 1 || options.outlets < 1 || options.employeesPerOutlet < 1 || options.days < 1 || options.sales < 0) {
+            throw new IllegalArgumentException("Sizes must be positive");
+        }
+        if (Files.isDirectory(options.out)) {
+            try (Stream<Path> entries = Files.list(options.out)) {
+                if (entries.findAny().isPresent()) {
+                    throw new IOException(options.out + " is not empty");
+                }
+            }
+        }
+        Files.createDirectories(options.out.resolve("sales"));
+        new SyntheticDataGenerator(options).run();
+    }
+
+    private void run() throws IOException {
+        writeOutlets();
+        writeEmployees();
+        writeModels();
+        writeSales();
+        writeAttendance();
+        writeStockMovements();
+    }
+
+    //MASTER DATA
+
+    /** Outlet codes continue the existing numbering: C60, C61, ... */
+    public static String outletCode(int outlet) {
+        return "C" + (60 + outlet);
+    }
+
+    /** Employee n (1-based) of an outlet: C6001, C6002, ... */
+    public static String employeeId(int outlet, int n) {
+        return outletCode(outlet) + (n < 10 ? "0" : "") + n;
+    }
+
+    /** Model ids: five families, nine variants per series (DW1000-1 .. DW1000-9, SW1001-1, ...). */
+    public static String modelId(int model) {
+        int series = model / 9;
+        return FAMILIES[series % FAMILIES.length] + (1000 + series) + "-" + (model % 9 + 1);
+    }
+
+    private void writeOutlets() throws IOException {
+        outletCodes = new String[options.outlets];
+        try (BufferedWriter out = open("outlet.csv", "OutletCode", "OutletName")) {
+            for (int o = 0; o < options.outlets; o++) {
+                outletCodes[o] = outletCode(o);
+                String name = PLACES[o % PLACES.length];
+                if (o >= PLACES.length) name += " " + (o / PLACES.length + 1);
+                row(out, outletCodes[o], name);
+            }
+        }
+        // a few big outlets, a long tail of small ones
+        outletPicker = new Sampler(options.outlets, 0.6, random);
+    }
+
+    private void writeEmployees() throws IOException {
+        int perOutlet = options.employeesPerOutlet;
+        employeeIds = new String[options.outlets][perOutlet];
+        employeeNames = new String[options.outlets][perOutlet];
+        try (BufferedWriter out = open("employee.csv", "EmployeeID", "EmployeeName", "Role", "Password", "OutletCode")) {
+            for (int o = 0; o < options.outlets; o++) {
+                for (int n = 0; n < perOutlet; n++) {
+                    employeeIds[o][n] = employeeId(o, n + 1);
+                    employeeNames[o][n] = personName();
+                    String role = n == 0 ? "Manager" : n < (perOutlet * 2 + 2) / 3 ? "Full-time" : "Part-time";
+                    row(out, employeeIds[o][n], employeeNames[o][n], role, password(), outletCodes[o]);
+                }
+            }
+        }
+    }
+
+    private void writeModels() throws IOException {
+        modelIds = new String[options.models];
+        prices = new long[options.models];
+        modelPicker = new Sampler(options.models, options.zipf, random);
+        String[] header = new String[options.outlets + 2];
+        header[0] = "Model";
+        header[1] = "Price";
+        System.arraycopy(outletCodes, 0, header, 2, options.outlets);
+        try (BufferedWriter out = open("model.csv", header)) {
+            String[] fields = new String[header.length];
+            for (int m = 0; m < options.models; m++) {
+                modelIds[m] = modelId(m);
+                // RM149 .. RM1509, ending in 9
+                prices[m] = ((15 + random.nextInt(137)) * 10L - 1) * 100;
+                fields[0] = modelIds[m];
+                fields[1] = Money.format(prices[m]);
+                // outlets keep more of what sells
+                int typical = (int) Math.min(30, 2 + modelPicker.share(m) * options.models * 3);
+                for (int o = 0; o < options.outlets; o++) {
+                    fields[o + 2] = String.valueOf(random.nextInt(typical + 1));
+                }
+                row(out, fields);
+            }
+        }
+    }
+
+    //SALES
+
+    private void writeSales() throws IOException {
+        long[] rowsPerDay = spreadOverDays(options.sales);
+        int firstReceiptDay = options.days - Math.min(options.days, options.receiptDays);
+
+        try (BufferedWriter out = open("sales.csv", "SaleID", "EmployeeID", "OutletCode", "CustomerName", "Model",
+                "Quantity", "UnitPrice", "Subtotal", "PaymentMethod", "Date", "Time")) {
+            List<String> receiptIds = new ArrayList<>();
+            List<String> receipts = new ArrayList<>();
+            int[] items = new int[3];
+            for (int d = 0; d < options.days; d++) {
+                LocalDate date = options.start.plusDays(d);
+                String dateText = date.format(DATE_FMT);
+                long remaining = rowsPerDay[d];
+
+                // item counts first, so the day's times can be drawn and sorted together
+                List<Integer> itemCounts = new ArrayList<>();
+                while (remaining > 0) {
+                    double r = random.nextDouble();
+                    int n = (int) Math.min(remaining, r < 0.70 ? 1 : r < 0.92 ? 2 : 3);
+                    itemCounts.add(n);
+                    remaining -= n;
+                }
+                int[] times = saleTimes(itemCounts.size());
+
+                receiptIds.clear();
+                receipts.clear();
+                for (int t = 0; t < times.length; t++) {
+                    LocalDateTime when = date.atStartOfDay().plusNanos(times[t] * 1_000_000L);
+                    int outlet = outletPicker.next(random);
+                    int employee = random.nextInt(options.employeesPerOutlet);
+                    String customer = personName();
+                    String payment = PAYMENTS[pick(PAYMENT_SHARE)];
+                    // one id per millisecond of the day (times are distinct), so the node can stay 0
+                    String saleId = IdGenerator.encode(IdGenerator.compose(when.toInstant(ZoneOffset.UTC), 0, 0));
+                    String time = when.format(TIME_PRINT_FMT);
+
+                    int count = itemCounts.get(t);
+                    pickModels(items, count);
+                    long subtotal = 0;
+                    int[] quantities = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        double r = random.nextDouble();
+                        quantities[i] = r < 0.80 ? 1 : r < 0.95 ? 2 : 3;
+                        long lineTotal = Money.times(prices[items[i]], quantities[i]);
+                        subtotal += lineTotal;
+                        row(out, saleId, employeeIds[outlet][employee], outletCodes[outlet], customer, modelIds[items[i]],
+                                String.valueOf(quantities[i]), Money.format(prices[items[i]]), Money.format(lineTotal),
+                                payment, dateText, time);
+                    }
+                    if (d >= firstReceiptDay) {
+                        receiptIds.add(saleId);
+                        receipts.add(receiptText(dateText, time, employeeIds[outlet][employee], employeeNames[outlet][employee],
+                                customer, items, quantities, payment, subtotal, saleId));
+                    }
+                }
+                if (!receipts.isEmpty()) {
+                    ReceiptStore.append(options.out.resolve("sales").resolve("sales_" + dateText + ".txt"), receiptIds, receipts);
+                }
+            }
+        }
+    }
+
+    // Sales rows per day: weekday x month x +-10% noise, scaled so the days add up to total exactly
+    private long[] spreadOverDays(long total) {
+        double[] weight = new double[options.days];
+        double sum = 0;
+        for (int d = 0; d < options.days; d++) {
+            LocalDate date = options.start.plusDays(d);
+            weight[d] = WEEKDAY[date.getDayOfWeek().getValue() - 1] * MONTH[date.getMonthValue() - 1]
+                    * (0.9 + 0.2 * random.nextDouble());
+            sum += weight[d];
+        }
+        long[] rows = new long[options.days];
+        long given = 0;
+        double exact = 0;
+        for (int d = 0; d < options.days; d++) {
+            // cumulative rounding: no day drifts by more than one row
+            exact += total * weight[d] / sum;
+            long upTo = d == options.days - 1 ? total : Math.round(exact);
+            rows[d] = upTo - given;
+            given = upTo;
+        }
+        return rows;
+    }
+
+    // Distinct, sorted milliseconds of the day within opening hours, busiest in the evening
+    private int[] saleTimes(int count) {
+        int[] times = new int[count];
+        for (int i = 0; i < count; i++) {
+            int hour = OPENING_HOUR + pick(HOUR);
+            times[i] = hour * 3_600_000 + random.nextInt(3_600_000);
+        }
+        Arrays.sort(times);
+        for (int i = 1; i < count; i++) {
+            if (times[i] <= times[i - 1]) times[i] = times[i - 1] + 1;
+        }
+        return times;
+    }
+
+    // count different models, popular ones more often
+    private void pickModels(int[] items, int count) {
+        for (int i = 0; i < count; i++) {
+            int m = modelPicker.next(random);
+            for (int tries = 0; tries < 10 && contains(items, i, m); tries++) {
+                m = modelPicker.next(random);
+            }
+            items[i] = m;
+        }
+    }
+
+    // same layout as salesSystem.receiptText
+    private String receiptText(String date, String time, String employeeId, String employeeName, String customer,
+                               int[] items, int[] quantities, String payment, long subtotal, String saleId) {
+        String nl = System.lineSeparator();
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Date: ").append(date).append(nl);
+        sb.append("Time: ").append(time).append(nl);
+        sb.append("Employee: ").append(employeeId).append(" - ").append(employeeName).append(nl);
+        sb.append("Customer Name: ").append(customer).append(nl);
+        sb.append("Item(s) Purchased:").append(nl);
+        for (int i = 0; i < quantities.length; i++) {
+            sb.append("Enter Model: ").append(modelIds[items[i]]).append(nl);
+            sb.append("Enter Quantity: ").append(quantities[i]).append(nl);
+            sb.append("Unit Price: RM").append(currency(prices[items[i]])).append(nl);
+        }
+        sb.append("Transaction Method: ").append(payment).append(nl);
+        sb.append("Subtotal: RM").append(currency(subtotal)).append(nl);
+        sb.append("Transaction ID: ").append(saleId).append(nl);
+        sb.append("-----------------------------------------------------").append(nl);
+        return sb.toString();
+    }
+
+    //ATTENDANCE
+
+    // Each employee works about five days a week (managers six), one row per shift
+    private void writeAttendance() throws IOException {
+        try (BufferedWriter out = open("attendance.csv", "EmployeeID", "Date", "ClockInTime", "ClockOutTime", "OutletCode")) {
+            for (int d = 0; d < options.days; d++) {
+                LocalDate date = options.start.plusDays(d);
+                String dateText = date.format(DATE_FMT);
+                for (int o = 0; o < options.outlets; o++) {
+                    for (int n = 0; n < options.employeesPerOutlet; n++) {
+                        double works = n == 0 ? 6 / 7.0 : 5 / 7.0;
+                        if (random.nextDouble() >= works) continue;
+                        // in 09:30 - 10:15, out 8 - 9 hours later
+                        int in = 9 * 3600 + 1800 + random.nextInt(2700);
+                        int outTime = in + 8 * 3600 + random.nextInt(3600);
+                        row(out, employeeIds[o][n], dateText, secondsOfDay(in), secondsOfDay(outTime), outletCodes[o]);
+                    }
+                }
+            }
+        }
+    }
+
+    //STOCK MOVEMENTS
+
+    // Mondays: every outlet is restocked from HQ; other days: a few transfers between outlets
+    private void writeStockMovements() throws IOException {
+        try (BufferedWriter in = open("stock_in.csv", "EmployeeID", "OutletCode", "Date", "ModelID", "QuantityIn", "TransactionID");
+             BufferedWriter out = open("stock_out.csv", "EmployeeID", "OutletCode", "Date", "ModelID", "QuantityOut", "Reason", "TransactionID")) {
+            for (int d = 0; d < options.days; d++) {
+                LocalDate date = options.start.plusDays(d);
+                // movements are made before opening, one millisecond apart
+                LocalDateTime when = date.atTime(8, 0);
+                int sequence = 0;
+                for (int o = 0; o < options.outlets; o++) {
+                    boolean restock = date.getDayOfWeek() == DayOfWeek.MONDAY;
+                    boolean transfer = !restock && options.outlets > 1 && random.nextDouble() < 0.1;
+                    if (!restock && !transfer) continue;
+
+                    LocalDateTime at = when.plusNanos(sequence++ * 1_000_000L);
+                    String txId = IdGenerator.encode(IdGenerator.compose(at.toInstant(ZoneOffset.UTC), 0, 0));
+                    String time = at.format(STOCK_TIME_FMT);
+                    int lines = restock ? 3 + random.nextInt(6) : 1 + random.nextInt(2);
+                    int to = o;
+                    int from = -1;
+                    if (transfer) {
+                        from = random.nextInt(options.outlets - 1);
+                        if (from >= o) from++;
+                    }
+                    for (int i = 0; i < lines; i++) {
+                        String model = modelIds[modelPicker.next(random)];
+                        String qty = String.valueOf(restock ? 5 + random.nextInt(16) : 1 + random.nextInt(3));
+                        if (from >= 0) {
+                            row(out, employeeIds[from][0], outletCodes[from], time, model, qty, "Transfer", txId);
+                        }
+                        row(in, employeeIds[to][0], outletCodes[to], time, model, qty, txId);
+                    }
+                }
+            }
+        }
+    }
+
+    //HELPERS
+
+    /** Weighted picks with Zipf weights 1/rank^s over randomly ordered items. */
+    private static final class Sampler {
+        private final double[] cumulative;
+        private final double[] share;
+
+        Sampler(int n, double s, Random random) {
+            // which item gets which rank is random, so popularity does not follow the ids
+            int[] rankOf = new int[n];
+            for (int i = 0; i < n; i++) rankOf[i] = i;
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = rankOf[i];
+                rankOf[i] = rankOf[j];
+                rankOf[j] = tmp;
+            }
+            share = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                share[i] = 1.0 / Math.pow(rankOf[i] + 1, s);
+                sum += share[i];
+            }
+            cumulative = new double[n];
+            double running = 0;
+            for (int i = 0; i < n; i++) {
+                share[i] /= sum;
+                running += share[i];
+                cumulative[i] = running;
+            }
+        }
+
+        int next(Random random) {
+            int i = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (i < 0) i = -i - 1;
+            return Math.min(i, cumulative.length - 1);
+        }
+
+        double share(int i) {
+            return share[i];
+        }
+    }
+
+    // index into weights, in proportion to them
+    private int pick(double[] weights) {
+        double total = 0;
+        for (double w : weights) total += w;
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            r -= weights[i];
+            if (r < 0) return i;
+        }
+        return weights.length - 1;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private String personName() {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private String password() {
+        String chars = "abcdefghijkmnpqrstuvwxyz23456789";
+        char[] p = new char[6];
+        for (int i = 0; i < p.length; i++) p[i] = chars.charAt(random.nextInt(chars.length()));
+        return new String(p);
+    }
+
+    private static String secondsOfDay(int seconds) {
+        return LocalDateTime.of(2000, 1, 1, 0, 0).plusSeconds(seconds).format(PUNCH_FMT);
+    }
+
+    // as salesSystem prints amounts: RM399, RM349.50
+    private static String currency(long cents) {
+        return cents % 100 == 0 ? String.valueOf(cents / 100) : Money.format(cents);
+    }
+
+    private BufferedWriter open(String file, String... header) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(options.out.resolve(file), StandardCharsets.UTF_8);
+        row(out, header);
+        return out;
+    }
+
+    // one row, every field quoted like CSVWriter and GroupCommitWriter write them
+    private static void row(BufferedWriter out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            out.write('"');
+            out.write(fields[i].replace("\"", "\"\""));
+            out.write('"');
+        }
+        out.write('\n');
+    }
+}